@@ -3,29 +3,31 @@ package com.shreyanshi.scamshield;
 import android.app.Application;
 import android.util.Log;
 
+import com.shreyanshi.scamshield.metrics.EventLog;
+import com.shreyanshi.scamshield.stt.VoskModelExtractor;
+import com.shreyanshi.scamshield.stt.VoskModelHolder;
+import com.shreyanshi.scamshield.utils.AppMetrics;
+
 import java.io.File;
 import java.io.FileWriter;
+import java.io.IOException;
 import java.io.PrintWriter;
 
 public class ScamApplication extends Application {
     @Override
     public void onCreate() {
         super.onCreate();
+        AppMetrics.openEvents(this);
 
         final Thread.UncaughtExceptionHandler defaultHandler = Thread.getDefaultUncaughtExceptionHandler();
 
         Thread.setDefaultUncaughtExceptionHandler((thread, throwable) -> {
-            try {
-                File dir = getExternalFilesDir("logs");
-                if (dir != null && !dir.exists()) dir.mkdirs();
-                File f = new File(dir, "last_crash.txt");
-                FileWriter fw = new FileWriter(f, true);
-                fw.write("\n--- CRASH at " + System.currentTimeMillis() + " ---\n");
-                PrintWriter pw = new PrintWriter(fw);
+            // the events leading up to this are already on disk; MainActivity shows them with the trace
+            AppMetrics.events().log(EventLog.CRASH, 0, thread.getId());
+            File f = new File(AppMetrics.eventFile(this).getParentFile(), "last_crash.txt");
+            try (PrintWriter pw = new PrintWriter(new FileWriter(f, true))) {
+                pw.write("\n--- CRASH at " + System.currentTimeMillis() + " ---\n");
                 throwable.printStackTrace(pw);
-                pw.flush();
-                pw.close();
-                fw.close();
             } catch (Exception e) {
                 Log.e("ScamApplication", "Failed to write crash file", e);
             }
@@ -37,5 +39,25 @@ public class ScamApplication extends Application {
                 System.exit(2);
             }
         });
+
+        // unpack the offline model if the app changed, then load it so the first call is
+        // covered from its first words
+        VoskModelExtractor.extractAsync(this, new VoskModelExtractor.Callback() {
+            @Override
+            public void onExtracted(VoskModelExtractor.Result result) {
+                VoskModelHolder.get(ScamApplication.this).prewarm();
+            }
+
+            @Override
+            public void onExtractionFailed(IOException e) {
+                Log.e("ScamApplication", "Offline model unavailable", e);
+            }
+        });
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        VoskModelHolder.get(this).onTrimMemory(level);
     }
 }
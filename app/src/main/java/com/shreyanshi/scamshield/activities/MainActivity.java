@@ -19,6 +19,7 @@ import androidx.fragment.app.Fragment;
 
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 import com.shreyanshi.scamshield.R;
+import com.shreyanshi.scamshield.utils.AppMetrics;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -72,14 +73,16 @@ public class MainActivity extends AppCompatActivity {
 
     private void checkCrashLogs() {
         try {
-            File dir = getExternalFilesDir("logs");
+            File dir = AppMetrics.eventFile(this).getParentFile();
             if (dir != null) {
                 File f = new File(dir, "last_crash.txt");
                 if (f.exists() && f.length() > 0) {
                     try (FileInputStream fis = new FileInputStream(f)) {
                         byte[] data = new byte[(int) f.length()];
                         fis.read(data);
-                        String s = new String(data, StandardCharsets.UTF_8);
+                        // the crash is the latest event of the last run, unless a call has started since
+                        String s = new String(data, StandardCharsets.UTF_8)
+                                + "\nLast events:\n" + AppMetrics.recentEvents(AppMetrics.RECENT_EVENTS);
                         new AlertDialog.Builder(this)
                                 .setTitle("App Recovery Info")
                                 .setMessage("The app restarted after a background issue. To prevent this, please ensure 'Battery Optimization' is off for ScamShield.\n\nDetails:\n" + s)
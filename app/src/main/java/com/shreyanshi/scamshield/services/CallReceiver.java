@@ -11,6 +11,8 @@ import android.util.Log;
 
 import androidx.core.content.ContextCompat;
 
+import com.shreyanshi.scamshield.stt.VoskModelHolder;
+
 public class CallReceiver extends BroadcastReceiver {
     private static final String TAG = "ScamShield-Receiver";
     private static boolean isCallActive = false;
@@ -29,7 +31,10 @@ public class CallReceiver extends BroadcastReceiver {
 
             Log.d(TAG, "Phone State Change: " + state);
 
-            if (state.equals(TelephonyManager.EXTRA_STATE_OFFHOOK)) {
+            if (state.equals(TelephonyManager.EXTRA_STATE_RINGING)) {
+                // the model may have been evicted; have it ready by the time the call is answered
+                VoskModelHolder.get(context).prewarm();
+            } else if (state.equals(TelephonyManager.EXTRA_STATE_OFFHOOK)) {
                 // Call answered (Incoming or Outgoing)
                 isCallActive = true;
                 startMonitoring(context, "");
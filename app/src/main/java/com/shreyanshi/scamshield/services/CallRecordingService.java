@@ -10,24 +10,28 @@ import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.media.MediaRecorder;
 import android.os.Build;
-import android.os.Bundle;
-import android.os.Handler;
-import android.os.HandlerThread;
 import android.os.IBinder;
-import android.os.Looper;
 import android.os.SystemClock;
-import android.speech.RecognitionListener;
-import android.speech.RecognizerIntent;
-import android.speech.SpeechRecognizer;
+import android.text.TextUtils;
 import android.util.Log;
 
 import androidx.core.app.NotificationCompat;
 import androidx.core.content.ContextCompat;
 
 import com.shreyanshi.scamshield.R;
-import com.shreyanshi.scamshield.utils.ScamDetector;
+import com.shreyanshi.scamshield.detection.DetectionExecutor;
+import com.shreyanshi.scamshield.detection.DetectionSession;
+import com.shreyanshi.scamshield.detection.ScamDetector;
+import com.shreyanshi.scamshield.metrics.DetectionLatency;
+import com.shreyanshi.scamshield.metrics.EventLog;
+import com.shreyanshi.scamshield.stt.GoogleSpeechProcessor;
+import com.shreyanshi.scamshield.utils.AppMetrics;
+import com.shreyanshi.scamshield.utils.LatencyStats;
+import com.shreyanshi.scamshield.utils.StorageManager;
 
 import java.io.File;
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -36,20 +40,25 @@ public class CallRecordingService extends Service {
     public static String lastRecordingPath = null;
     private MediaRecorder recorder;
 
-    // Speech recognizer for realtime listening
-    private SpeechRecognizer speechRecognizer;
-    private Intent recognizerIntent;
-    private boolean isListening = false;
-
-    // Backoff handler for restart
-    private Handler backoffHandler;
-    private int backoffAttempts = 0;
-    private static final int MAX_BACKOFF_ATTEMPTS = 6; // up to ~32s
+    // Speech recognizer for realtime listening; restarts itself after every utterance
+    private GoogleSpeechProcessor speech;
 
     // throttle alerts (ms)
     private static final long ALERT_THROTTLE_MS = 30_000; // 30 seconds
     private long lastAlertTime = 0;
 
+    // Incremental matcher and risk score; each partial only scans what the recognizer appended
+    private DetectionSession detection;
+    // Runs detection, notifications and the alert popup off the recognizer callbacks
+    private DetectionExecutor detector;
+    // How long onDestroy waits for the detection thread to finish what is queued
+    private static final long DETECTION_DRAIN_MS = 200;
+    // Set in onDestroy; the detection thread stops alerting from then on
+    private volatile boolean destroyed;
+    // This call's detection latency, apart from any other service's; saved from when recording starts
+    private volatile DetectionLatency latency = new DetectionLatency();
+    private boolean callStarted;
+
     private static final String CHANNEL_ID = "scamshield_alerts";
 
     @Override
@@ -57,9 +66,23 @@ public class CallRecordingService extends Service {
         return null;
     }
 
+    @Override
+    protected void dump(FileDescriptor fd, PrintWriter writer, String[] args) {
+        writer.print(AppMetrics.report(this));
+    }
+
     @Override
     public int onStartCommand(Intent intent, int flags, int startId) {
 
+        if (detection == null) {
+            detection = ScamDetector.newDetection(new StorageManager(this).getAlertThreshold());
+        }
+        if (detector == null) {
+            detector = new DetectionExecutor("call-detection", DetectionExecutor.DEFAULT_CAPACITY,
+                    (stream, text, partial, recognizedAt, capturedAt) -> processTranscript(text, partial, recognizedAt));
+            detector.start();
+        }
+
         try {
             File dir = new File(getExternalFilesDir(null), "recordings");
             if (!dir.exists()) dir.mkdirs();
@@ -77,11 +100,11 @@ public class CallRecordingService extends Service {
             recorder.start();
 
             Log.d("Recorder", "Recording started");
-
-            // prepare backoff handler
-            HandlerThread ht = new HandlerThread("SpeechBackoff");
-            ht.start();
-            backoffHandler = new Handler(ht.getLooper());
+            if (!callStarted) {
+                latency = LatencyStats.onCallStart();
+                callStarted = true;
+            }
+            AppMetrics.events().log(EventLog.CALL_START);
 
             // Start speech recognizer if permission granted
             startSpeechRecognizerIfPermitted();
@@ -99,24 +122,38 @@ public class CallRecordingService extends Service {
 
     @Override
     public void onDestroy() {
+        destroyed = true;
         try {
-            stopSpeechRecognizer();
+            if (speech != null) {
+                speech.stop();
+                speech = null;
+                AppMetrics.events().log(EventLog.RECOGNIZER_STOP, 1, 0);
+            }
 
             if (recorder != null) {
                 recorder.stop();
                 recorder.release();
                 recorder = null;
                 Log.d("Recorder", "Recording stopped");
+                AppMetrics.events().log(EventLog.CALL_END);
             }
 
-            if (backoffHandler != null) {
-                backoffHandler.getLooper().quitSafely();
-                backoffHandler = null;
+            if (detector != null) {
+                detector.shutdown();
+                // so nothing is recorded into this call's latencies after they are saved below
+                if (!detector.awaitTermination(DETECTION_DRAIN_MS)) Log.w("ScamDetect", "Detection still running at stop");
+                Log.d("ScamDetect", "Detection: " + detector.coalesced() + " coalesced, "
+                        + detector.dropped() + " dropped, max queue " + detector.maxDepth());
+                detector = null;
             }
 
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             Log.e("Recorder", "Stop error", e);
         }
+        // saves this call's latencies; does nothing if recording never started
+        LatencyStats.onCallEnd(this, latency);
         super.onDestroy();
     }
 
@@ -128,130 +165,59 @@ public class CallRecordingService extends Service {
                 return;
             }
 
-            if (!SpeechRecognizer.isRecognitionAvailable(this)) {
+            if (speech == null) speech = new GoogleSpeechProcessor(this, this::submitTranscript);
+            if (!speech.isAvailable()) {
                 Log.w("CallRecordingService", "Speech recognition not available on this device");
                 return;
             }
-
-            if (speechRecognizer == null) {
-                speechRecognizer = SpeechRecognizer.createSpeechRecognizer(this);
-                speechRecognizer.setRecognitionListener(new MyRecognitionListener());
-            }
-
-            if (recognizerIntent == null) {
-                recognizerIntent = new Intent(RecognizerIntent.ACTION_RECOGNIZE_SPEECH);
-                recognizerIntent.putExtra(RecognizerIntent.EXTRA_LANGUAGE_MODEL,
-                        RecognizerIntent.LANGUAGE_MODEL_FREE_FORM);
-                recognizerIntent.putExtra(RecognizerIntent.EXTRA_PARTIAL_RESULTS, true);
-                recognizerIntent.putExtra(RecognizerIntent.EXTRA_CALLING_PACKAGE, getPackageName());
-            }
-
-            if (!isListening) {
-                speechRecognizer.startListening(recognizerIntent);
-                isListening = true;
-                // reset backoff on success
-                backoffAttempts = 0;
-            }
+            speech.start();
+            AppMetrics.events().log(EventLog.RECOGNIZER_START, 1, 0);
 
         } catch (Exception e) {
             Log.e("CallRecordingService", "Failed to start SpeechRecognizer", e);
-            scheduleRestartWithBackoff();
-        }
-    }
-
-    private void scheduleRestartWithBackoff() {
-        if (backoffHandler == null) return;
-        backoffAttempts = Math.min(backoffAttempts + 1, MAX_BACKOFF_ATTEMPTS);
-        long delay = (1L << backoffAttempts) * 500; // exponential: 1s,2s,4s... *500ms base
-        if (delay > 60_000) delay = 60_000; // cap at 60s
-        Log.w("SpeechRec", "Scheduling restart in " + delay + "ms (attempt " + backoffAttempts + ")");
-        backoffHandler.postDelayed(this::tryRestartListening, delay);
-    }
-
-    private void tryRestartListening() {
-        try {
-            if (speechRecognizer == null) {
-                if (ContextCompat.checkSelfPermission(this, Manifest.permission.RECORD_AUDIO)
-                        == PackageManager.PERMISSION_GRANTED && SpeechRecognizer.isRecognitionAvailable(this)) {
-                    speechRecognizer = SpeechRecognizer.createSpeechRecognizer(this);
-                    speechRecognizer.setRecognitionListener(new MyRecognitionListener());
-                } else {
-                    return;
-                }
-            }
-
-            if (recognizerIntent == null) {
-                recognizerIntent = new Intent(RecognizerIntent.ACTION_RECOGNIZE_SPEECH);
-                recognizerIntent.putExtra(RecognizerIntent.EXTRA_LANGUAGE_MODEL,
-                        RecognizerIntent.LANGUAGE_MODEL_FREE_FORM);
-                recognizerIntent.putExtra(RecognizerIntent.EXTRA_PARTIAL_RESULTS, true);
-                recognizerIntent.putExtra(RecognizerIntent.EXTRA_CALLING_PACKAGE, getPackageName());
-            }
-
-            if (!isListening) {
-                speechRecognizer.startListening(recognizerIntent);
-                isListening = true;
-                backoffAttempts = 0; // success
-            }
-        } catch (Exception e) {
-            Log.e("SpeechRec", "tryRestartListening failed", e);
-            scheduleRestartWithBackoff();
-        }
-    }
-
-    private void restartListeningWithDelay() {
-        // simpler restart: schedule a short restart via backoff handler
-        try {
-            if (backoffHandler != null) {
-                backoffHandler.postDelayed(() -> {
-                    try {
-                        if (speechRecognizer != null) {
-                            speechRecognizer.stopListening();
-                            speechRecognizer.cancel();
-                        }
-                    } catch (Exception ignored) {}
-                    isListening = false;
-                    scheduleRestartWithBackoff();
-                }, 300);
-            }
-        } catch (Exception e) {
-            Log.e("SpeechRec", "restartListeningWithDelay error", e);
         }
     }
 
-    private void stopSpeechRecognizer() {
-        try {
-            if (speechRecognizer != null) {
-                try {
-                    speechRecognizer.stopListening();
-                } catch (Exception ignored) {
-                }
-                speechRecognizer.cancel();
-                speechRecognizer.destroy();
-                speechRecognizer = null;
-                isListening = false;
-            }
-        } catch (Exception e) {
-            Log.e("SpeechRec", "Error stopping recognizer", e);
-        }
+    private void submitTranscript(CharSequence transcript, boolean partial) {
+        if (transcript == null || detector == null) return;
+        if (partial) AppMetrics.partials.mark();
+        else AppMetrics.finals.inc();
+        AppMetrics.events().log(partial ? EventLog.PARTIAL : EventLog.FINAL, 0, transcript.length());
+        detector.submit(0, transcript, partial, SystemClock.elapsedRealtime());
     }
 
-    private void processTranscript(String transcript) {
-        if (transcript == null || transcript.trim().isEmpty()) return;
-        String t = transcript.toLowerCase();
-        Log.d("SpeechRec", "Transcript: " + t);
-
-        List<String> matches = ScamDetector.detectKeywords(t);
-        if (matches != null && !matches.isEmpty()) {
+    // On the detection thread
+    private void processTranscript(CharSequence text, boolean partial, long recognizedAt) {
+        if (destroyed || detection == null || TextUtils.getTrimmedLength(text) == 0) return;
+
+        long elapsed = SystemClock.elapsedRealtime();
+        boolean alert = detection.update(text, elapsed);
+        // the next session's words continue this one's
+        if (!partial) detection.commit();
+        if (detection.matches().isEmpty()) return;
+        long matched = SystemClock.elapsedRealtime();
+        latency.record(DetectionLatency.MATCH, matched - recognizedAt);
+        if (alert) {
+            String transcript = text.toString();
+            List<String> matches = ScamDetector.alertReasons(detection, elapsed);
             long now = System.currentTimeMillis();
             if (now - lastAlertTime < ALERT_THROTTLE_MS) {
-                Log.d("ScamDetect", "Alert throttled");
+                AppMetrics.alertsThrottled.inc();
+                AppMetrics.events().log(EventLog.ALERT_THROTTLED);
                 return;
             }
             lastAlertTime = now;
-
-            String message = ScamDetector.buildAlertMessage(matches, transcript);
-            showAlertNotification(message, transcript, matches);
+            AppMetrics.alertsRaised.inc();
+
+            // the session's messages cover entity and proximity hits too
+            String message = ScamDetector.buildAlertMessage(detection, elapsed);
+            long dispatched = SystemClock.elapsedRealtime();
+            latency.onAlertDispatched(recognizedAt, matched, dispatched);
+            AppMetrics.events().log(EventLog.ALERT, 0, dispatched - recognizedAt);
+            // the notification is the alert's display here
+            if (showAlertNotification(message, transcript, matches)) {
+                latency.onAlertDisplayed(dispatched, SystemClock.elapsedRealtime());
+            }
             // attempt immediate popup activity (best-effort)
             try {
                 Intent i = new Intent();
@@ -267,7 +233,8 @@ public class CallRecordingService extends Service {
         }
     }
 
-    private void showAlertNotification(String message, String transcript, List<String> matches) {
+    // True if the notification was posted
+    private boolean showAlertNotification(String message, String transcript, List<String> matches) {
         try {
             createNotificationChannelIfNeeded();
 
@@ -292,10 +259,12 @@ public class CallRecordingService extends Service {
                     .setDefaults(Notification.DEFAULT_ALL);
 
             NotificationManager nm = (NotificationManager) getSystemService(NOTIFICATION_SERVICE);
-            if (nm != null) nm.notify((int) (System.currentTimeMillis() % Integer.MAX_VALUE), builder.build());
-
+            if (nm == null) return false;
+            nm.notify((int) (System.currentTimeMillis() % Integer.MAX_VALUE), builder.build());
+            return true;
         } catch (Exception e) {
             Log.e("ScamNotify", "Failed to post notification", e);
+            return false;
         }
     }
 
@@ -330,62 +299,4 @@ public class CallRecordingService extends Service {
             }
         }
     }
-
-    // Named RecognitionListener to satisfy static analysis and keep code readable
-    private class MyRecognitionListener implements RecognitionListener {
-        @Override
-        public void onReadyForSpeech(android.os.Bundle params) {
-            Log.d("SpeechRec", "Ready for speech");
-        }
-
-        @Override
-        public void onBeginningOfSpeech() {
-            Log.d("SpeechRec", "Beginning of speech");
-        }
-
-        @Override
-        public void onRmsChanged(float rmsdB) {
-        }
-
-        @Override
-        public void onBufferReceived(byte[] buffer) {
-        }
-
-        @Override
-        public void onEndOfSpeech() {
-            Log.d("SpeechRec", "End of speech");
-            restartListeningWithDelay();
-        }
-
-        @Override
-        public void onError(int error) {
-            Log.w("SpeechRec", "Error: " + error);
-            restartListeningWithDelay();
-        }
-
-        @Override
-        public void onPartialResults(android.os.Bundle partialResults) {
-            if (partialResults != null) {
-                ArrayList<String> texts = partialResults.getStringArrayList(SpeechRecognizer.RESULTS_RECOGNITION);
-                if (texts != null && !texts.isEmpty()) {
-                    processTranscript(texts.get(0));
-                }
-            }
-        }
-
-        @Override
-        public void onResults(android.os.Bundle results) {
-            if (results != null) {
-                ArrayList<String> texts = results.getStringArrayList(SpeechRecognizer.RESULTS_RECOGNITION);
-                if (texts != null && !texts.isEmpty()) {
-                    processTranscript(texts.get(0));
-                }
-            }
-            restartListeningWithDelay();
-        }
-
-        @Override
-        public void onEvent(int eventType, android.os.Bundle params) {
-        }
-    }
 }
@@ -6,12 +6,8 @@ import android.app.NotificationManager;
 import android.app.Service;
 import android.content.Intent;
 import android.os.Build;
-import android.os.Handler;
 import android.os.IBinder;
-import android.os.Looper;
-import android.speech.RecognitionListener;
-import android.speech.RecognizerIntent;
-import android.speech.SpeechRecognizer;
+import android.os.SystemClock;
 import android.util.Log;
 
 import androidx.annotation.Nullable;
@@ -20,39 +16,72 @@ import androidx.core.content.ContextCompat;
 import android.Manifest;
 import android.content.pm.PackageManager;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Method;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Locale;
+import com.shreyanshi.scamshield.detection.DetectionExecutor;
+import com.shreyanshi.scamshield.detection.DetectionSession;
+import com.shreyanshi.scamshield.detection.MatchSet;
+import com.shreyanshi.scamshield.detection.RuleSet;
+import com.shreyanshi.scamshield.detection.ScamDetector;
+import com.shreyanshi.scamshield.metrics.DetectionLatency;
+import com.shreyanshi.scamshield.metrics.EventLog;
+import com.shreyanshi.scamshield.metrics.MetricsRegistry;
+import com.shreyanshi.scamshield.stt.GoogleSpeechProcessor;
+import com.shreyanshi.scamshield.stt.SpeechProcessor;
+import com.shreyanshi.scamshield.stt.VoskProcessor;
+import com.shreyanshi.scamshield.utils.AppMetrics;
+import com.shreyanshi.scamshield.utils.LatencyStats;
+import com.shreyanshi.scamshield.utils.StorageManager;
 
-public class LiveDetectionService extends Service {
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
+
+public class LiveDetectionService extends Service implements SpeechProcessor.Listener {
     private static final String TAG = "ScamShield-LiveDetect";
     // Restore ACTION_START since CallReceiver references it; keep ACTION_STOP
     public static final String ACTION_START = "com.shreyanshi.scamshield.ACTION_START_LIVE_DETECTION";
     public static final String ACTION_STOP = "com.shreyanshi.scamshield.ACTION_STOP_LIVE_DETECTION";
 
-    private SpeechRecognizer speechRecognizer;
-    private Intent recognizerIntent;
-    private boolean isListening = false;
-    private final Handler handler = new Handler(Looper.getMainLooper());
+    private GoogleSpeechProcessor googleProcessor;
 
-    private Object voskProcessor = null; // use reflection-based instance
+    private VoskProcessor voskProcessor = null;
     private boolean usingVosk = false; // will track whether we successfully started Vosk
 
-    private final List<String> SCAM_KEYWORDS = Arrays.asList(
-            "otp", "one time password", "pin", "password", "account blocked", "verify your account",
-            "bank", "transfer", "money", "verify", "card number", "upi", "paytm", "netbanking",
-            "reset password", "remote access", "confirm code", "lottery", "gift card", "customer care",
-            "blocked", "locked", "account"
-    );
+    // Incremental matcher and risk score for this call
+    private DetectionSession detection;
+    // Matches the keyword recognizer's hypotheses in dual mode; scores into detection's scorer
+    private DetectionSession keywordDetection;
+    // Runs the sessions above off the recognizer callback thread
+    private DetectionExecutor detector;
+    // How long onDestroy waits for the detection thread to finish what is queued
+    private static final long DETECTION_DRAIN_MS = 200;
+    private static final int STREAM_SPEECH = 0;
+    private static final int STREAM_KEYWORDS = 1;
+    private static final int STREAM_ALTERNATIVE = 2;
+    // Matches per rule of the call's rule set, by rule id; each made on the rule's first match
+    private RuleSet rules;
+    private MetricsRegistry.Counter[] ruleMatches;
+    // This call's detection latency, apart from any other service's
+    private DetectionLatency latency;
 
     @Override
     public void onCreate() {
         super.onCreate();
+        latency = LatencyStats.onCallStart();
+        AppMetrics.calls.inc();
+        AppMetrics.events().log(EventLog.CALL_START);
         startForegroundNotification();
-        
+        StorageManager storage = new StorageManager(this);
+        rules = ScamDetector.rules();
+        ruleMatches = new MetricsRegistry.Counter[rules.size()];
+        detection = ScamDetector.newDetection(storage.getAlertThreshold());
+        keywordDetection = new DetectionSession(rules, detection.scorer());
+        detector = new DetectionExecutor("live-detection", DetectionExecutor.DEFAULT_CAPACITY, this::detect);
+        detector.start();
+        AppMetrics.registry.gauge("detection.queue_depth", detector::depth);
+        AppMetrics.registry.gauge("detection.max_queue_depth", detector::maxDepth);
+        AppMetrics.registry.gauge("detection.coalesced", detector::coalesced);
+        AppMetrics.registry.gauge("detection.dropped", detector::dropped);
+        AppMetrics.registry.gauge("detection.failures", detector::failures);
+
         // Initialize Vosk only if we have RECORD_AUDIO permission
         boolean hasRecordAudio = ContextCompat.checkSelfPermission(this, Manifest.permission.RECORD_AUDIO) == PackageManager.PERMISSION_GRANTED;
         if (!hasRecordAudio) {
@@ -62,37 +91,21 @@ public class LiveDetectionService extends Service {
         }
 
         try {
-            // Reflectively construct com.shreyanshi.scamshield.stt.VoskProcessor(Context, Object)
-            Class<?> voskCls = Class.forName("com.shreyanshi.scamshield.stt.VoskProcessor");
-            Constructor<?> ctor = voskCls.getConstructor(android.content.Context.class, Object.class);
-            voskProcessor = ctor.newInstance(this, this);
-
-            Method isAvailable = voskCls.getMethod("isAvailable");
-            Object availObj = isAvailable.invoke(voskProcessor);
-            boolean avail = (availObj instanceof Boolean) && ((Boolean) availObj);
-            if (avail) {
-                // mark that Vosk is actually available and will be used
+            voskProcessor = new VoskProcessor(this, this, storage.isDualRecognizerEnabled());
+            if (voskProcessor.isAvailable()) {
+                // listens as soon as the shared model is loaded; onSpeechUnavailable if it can't be
+                voskProcessor.start();
                 usingVosk = true;
-                try {
-                    Method start = voskCls.getMethod("start");
-                    start.invoke(voskProcessor);
-                    Log.i(TAG, "Vosk detection initialized");
-                } catch (SecurityException se) {
-                    Log.e(TAG, "SecurityException starting Vosk (FGS/permissions): " + se.getMessage());
-                    usingVosk = false;
-                    setupGoogleSpeech();
-                } catch (Exception e) {
-                    Log.e(TAG, "Failed to start Vosk processor, falling back to Google Speech", e);
-                    usingVosk = false;
-                    setupGoogleSpeech();
-                }
+            }
+            if (usingVosk) {
+                AppMetrics.events().log(EventLog.RECOGNIZER_START, 0, 0);
+                Log.i(TAG, "Vosk detection initialized");
             } else {
-                Log.w(TAG, "Vosk model not found, falling back to Google Speech");
-                usingVosk = false;
+                Log.w(TAG, "Vosk model not available, falling back to Google Speech");
                 setupGoogleSpeech();
             }
-        } catch (ClassNotFoundException cnf) {
-            Log.w(TAG, "VoskProcessor class not present; falling back to Google Speech.", cnf);
+        } catch (SecurityException se) {
+            Log.e(TAG, "SecurityException starting Vosk (FGS/permissions): " + se.getMessage());
             usingVosk = false;
             setupGoogleSpeech();
         } catch (Exception e) {
@@ -103,87 +116,117 @@ public class LiveDetectionService extends Service {
     }
 
     private void setupGoogleSpeech() {
-        if (SpeechRecognizer.isRecognitionAvailable(this)) {
-            speechRecognizer = SpeechRecognizer.createSpeechRecognizer(this);
-            speechRecognizer.setRecognitionListener(new GoogleRecognitionListener());
-
-            recognizerIntent = new Intent(RecognizerIntent.ACTION_RECOGNIZE_SPEECH);
-            recognizerIntent.putExtra(RecognizerIntent.EXTRA_LANGUAGE_MODEL, RecognizerIntent.LANGUAGE_MODEL_FREE_FORM);
-            recognizerIntent.putExtra(RecognizerIntent.EXTRA_LANGUAGE, Locale.getDefault());
-            recognizerIntent.putExtra(RecognizerIntent.EXTRA_PARTIAL_RESULTS, true);
-            
-            startListeningGoogle();
+        if (googleProcessor != null) return;
+        googleProcessor = new GoogleSpeechProcessor(this, this);
+        if (googleProcessor.isAvailable()) {
+            googleProcessor.start();
+            AppMetrics.events().log(EventLog.RECOGNIZER_START, 1, 0);
+        } else {
+            Log.w(TAG, "Google speech recognition not available on this device");
         }
     }
 
-    private void startListeningGoogle() {
-        if (speechRecognizer != null && !isListening) {
-            try {
-                speechRecognizer.startListening(recognizerIntent);
-            } catch (Exception e) {
-                Log.e(TAG, "Google start failed: " + e.getMessage());
-            }
-        }
+    // Best hypothesis from either VoskProcessor or the Google recognizer
+    @Override
+    public void onSpeechRecognized(CharSequence text, boolean partial) {
+        if (text == null || text.length() == 0) return;
+        if (partial) AppMetrics.partials.mark();
+        else AppMetrics.finals.inc();
+        AppMetrics.events().log(partial ? EventLog.PARTIAL : EventLog.FINAL, STREAM_SPEECH, text.length());
+        submit(STREAM_SPEECH, text, partial);
     }
 
-    // Keep this as a plain public method so it can be used by VoskProcessor via reflection or by Google recognizer
-    public void onSpeechRecognized(String text) {
-        if (text == null || text.isEmpty()) return;
-        
-        String lowerText = text.toLowerCase();
-        for (String k : SCAM_KEYWORDS) {
-            if (lowerText.contains(k)) {
-                triggerAlert(k);
-                break;
-            }
-        }
+    // Rule words from Vosk's keyword recognizer, ahead of the free-form transcript
+    @Override
+    public void onKeywordsRecognized(CharSequence text, boolean partial) {
+        if (text == null || text.length() == 0) return;
+        AppMetrics.keywordHypotheses.inc();
+        AppMetrics.events().log(partial ? EventLog.PARTIAL : EventLog.FINAL, STREAM_KEYWORDS, text.length());
+        submit(STREAM_KEYWORDS, text, partial);
     }
 
-    private void triggerAlert(String detectedKeyword) {
-        Log.w(TAG, "!!! SCAM KEYWORD DETECTED: " + detectedKeyword);
-        Intent i = new Intent(this, ScamOverlayService.class);
-        i.putExtra("action", "SHOW_ALERT");
-        i.putExtra("keywords", detectedKeyword);
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            startForegroundService(i);
-        } else {
-            startService(i);
-        }
+    // Vosk could not load its model or start its recognizer
+    @Override
+    public void onSpeechUnavailable(Exception e) {
+        AppMetrics.recognizerFailures.inc();
+        AppMetrics.events().log(EventLog.RECOGNIZER_UNAVAILABLE, usingVosk ? 0 : 1, 0);
+        if (!usingVosk) return;
+        Log.w(TAG, "Vosk unavailable, falling back to Google Speech", e);
+        usingVosk = false;
+        setupGoogleSpeech();
     }
 
-    private class GoogleRecognitionListener implements RecognitionListener {
-        @Override public void onReadyForSpeech(android.os.Bundle params) { isListening = true; }
-        @Override public void onBeginningOfSpeech() {}
-        @Override public void onRmsChanged(float rmsdB) {}
-        @Override public void onBufferReceived(byte[] buffer) {}
-        @Override public void onEndOfSpeech() { isListening = false; }
-        @Override public void onError(int error) {
-            isListening = false;
-            // use method reference instead of lambda to satisfy analyzer
-            handler.postDelayed(this::restartListeningGoogle, 1000);
+    // Google's runner-up transcripts; scored in one pass each since they only come with final results
+    @Override
+    public void onAlternativeRecognized(CharSequence text) {
+        if (text == null || text.length() == 0) return;
+        submit(STREAM_ALTERNATIVE, text, false);
+    }
+
+    // On the callback thread: stamp a hypothesis now, with when its audio was captured if the recognizer knows
+    private void submit(int stream, CharSequence text, boolean partial) {
+        long now = SystemClock.elapsedRealtime();
+        SpeechProcessor processor = usingVosk ? voskProcessor : googleProcessor;
+        long captured = processor != null ? processor.resultCapturedAtMs() : -1;
+        if (captured >= 0) latency.record(DetectionLatency.CAPTURE, now - captured);
+        detector.submit(stream, text, partial, now, captured >= 0 ? captured : now);
+    }
+
+    // On the detection thread, the only one that touches the sessions
+    private void detect(int stream, CharSequence text, boolean partial, long recognizedAt, long capturedAt) {
+        long now = SystemClock.elapsedRealtime();
+        long started = System.nanoTime();
+        boolean alert;
+        DetectionSession session = stream == STREAM_KEYWORDS ? keywordDetection : detection;
+        if (stream == STREAM_SPEECH) {
+            alert = detection.update(text, now);
+            // the next session's words continue this one's
+            if (!partial) detection.commit();
+        } else if (stream == STREAM_KEYWORDS) {
+            // both sessions share one scorer, so a phrase heard by both recognizers counts once
+            alert = keywordDetection.update(text, now);
+            if (!partial) keywordDetection.commit();
+        } else {
+            alert = detection.updateAlternative(text, now);
         }
-        @Override
-        public void onResults(android.os.Bundle results) {
-            processResults(results);
-            isListening = false;
-            startListeningGoogle();
+        AppMetrics.detectMicros.record((System.nanoTime() - started) / 1_000);
+        MatchSet matches = session.matches();
+        if (matches.isEmpty()) return;
+        for (int i = 0; i < matches.size(); i++) {
+            countMatch(matches.get(i));
+            AppMetrics.events().log(EventLog.MATCH, matches.get(i), stream);
         }
-        @Override
-        public void onPartialResults(android.os.Bundle partialResults) {
-            processResults(partialResults);
+        long matched = SystemClock.elapsedRealtime();
+        latency.record(DetectionLatency.MATCH, matched - recognizedAt);
+        if (alert) {
+            AppMetrics.events().log(EventLog.ALERT, stream, matched - capturedAt);
+            triggerAlert(ScamDetector.buildAlertMessage(detection, now), capturedAt, matched);
         }
-        @Override public void onEvent(int eventType, android.os.Bundle params) {}
+    }
 
-        // small helper to call startListeningGoogle from method reference
-        private void restartListeningGoogle() { startListeningGoogle(); }
+    private void countMatch(int ruleId) {
+        MetricsRegistry.Counter c = ruleMatches[ruleId];
+        if (c == null) c = ruleMatches[ruleId] = AppMetrics.registry.counter("matches." + rules.phrase(ruleId));
+        c.inc();
     }
 
-    private void processResults(android.os.Bundle results) {
-        ArrayList<String> texts = results.getStringArrayList(SpeechRecognizer.RESULTS_RECOGNITION);
-        if (texts != null) {
-            for (String text : texts) {
-                onSpeechRecognized(text);
-            }
+    // startedAt is the earliest we know of the speech behind the alert, matchedAt when it crossed the threshold
+    private void triggerAlert(String message, long startedAt, long matchedAt) {
+        Log.w(TAG, "!!! SCAM DETECTED: " + message);
+        long raisedAt = SystemClock.elapsedRealtime();
+        latency.onAlertDispatched(startedAt, matchedAt, raisedAt);
+        AppMetrics.alertsRaised.inc();
+        // the overlay service normally runs from the start of the call; the intent only starts it
+        if (ScamOverlayService.alerts().publish(message, raisedAt)) return;
+        AppMetrics.alertsByIntent.inc();
+        Intent i = new Intent(this, ScamOverlayService.class);
+        i.putExtra("action", "SHOW_ALERT");
+        i.putExtra("keywords", message);
+        i.putExtra(ScamOverlayService.EXTRA_RAISED_AT, raisedAt);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            startForegroundService(i);
+        } else {
+            startService(i);
         }
     }
 
@@ -220,21 +263,31 @@ public class LiveDetectionService extends Service {
 
     @Override
     public void onDestroy() {
-        if (voskProcessor != null && usingVosk) {
-            try {
-                Method stop = voskProcessor.getClass().getMethod("stop");
-                stop.invoke(voskProcessor);
-            } catch (Exception e) {
-                Log.w(TAG, "Failed to stop Vosk processor via reflection", e);
-            }
-        }
-        if (speechRecognizer != null) {
-            speechRecognizer.cancel();
-            speechRecognizer.destroy();
+        if (voskProcessor != null && usingVosk) voskProcessor.stop();
+        if (googleProcessor != null) googleProcessor.stop();
+        AppMetrics.events().log(EventLog.RECOGNIZER_STOP, usingVosk ? 0 : 1, 0);
+        // what is still queued is evaluated, then the thread exits
+        detector.shutdown();
+        try {
+            // so nothing is recorded into this call's latencies after they are saved below
+            if (!detector.awaitTermination(DETECTION_DRAIN_MS)) Log.w(TAG, "Detection still running at stop");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
+        Log.d(TAG, "Detection: " + detector.processed() + " of " + detector.submitted() + " hypotheses evaluated, "
+                + detector.coalesced() + " coalesced, " + detector.dropped() + " dropped, max queue " + detector.maxDepth());
+        LatencyStats.onCallEnd(this, latency);
+        AppMetrics.events().log(EventLog.CALL_END);
+        // keep the call's last values without keeping the service
+        AppMetrics.registry.freeze("detection.");
         super.onDestroy();
     }
 
+    @Override
+    protected void dump(FileDescriptor fd, PrintWriter writer, String[] args) {
+        writer.print(AppMetrics.report(this));
+    }
+
     @Nullable
     @Override public IBinder onBind(Intent intent) { return null; }
 }
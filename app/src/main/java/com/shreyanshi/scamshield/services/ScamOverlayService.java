@@ -10,23 +10,42 @@ import android.content.pm.ServiceInfo;
 import android.graphics.PixelFormat;
 import android.os.Build;
 import android.os.IBinder;
+import android.os.SystemClock;
 import android.provider.Settings;
 import android.util.Log;
 import android.view.Gravity;
 import android.view.LayoutInflater;
 import android.view.View;
+import android.view.ViewTreeObserver;
 import android.view.WindowManager;
 import android.widget.TextView;
-import android.widget.Toast;
 
 import androidx.core.app.NotificationCompat;
+import androidx.core.content.ContextCompat;
 
 import com.shreyanshi.scamshield.R;
-
+import com.shreyanshi.scamshield.detection.AlertChannel;
+import com.shreyanshi.scamshield.metrics.EventLog;
+import com.shreyanshi.scamshield.utils.AppMetrics;
+import com.shreyanshi.scamshield.utils.LatencyStats;
+
+/**
+ * Shows the scam alert over whatever is on screen. The overlay is inflated, measured and
+ * attached hidden as soon as monitoring starts, so an alert only has to set its text and
+ * make it visible; repeated alerts update the text in place. Alerts raised in this process
+ * arrive over {@link #alerts()} while the service runs; intents are for starting it.
+ */
 public class ScamOverlayService extends Service {
     private static final String TAG = "ScamShield-Overlay";
+    // SystemClock.elapsedRealtime() when the alert was raised, to time it to the screen
+    public static final String EXTRA_RAISED_AT = "raised_at";
+    private static final AlertChannel ALERTS = new AlertChannel();
+    private final AlertChannel.Subscriber subscriber = (keywords, raisedAt) ->
+            showScamOverlay(keywords, raisedAt, SystemClock.elapsedRealtime(), "channel");
     private WindowManager windowManager;
     private View overlayView;
+    private TextView keywordsView;
+    private WindowManager.LayoutParams params;
     private boolean isOverlayShowing = false;
 
     @Override
@@ -34,6 +53,19 @@ public class ScamOverlayService extends Service {
         super.onCreate();
         // Call this immediately to satisfy Android 14 requirements
         startForegroundInternal();
+        ALERTS.subscribe(subscriber, ContextCompat.getMainExecutor(this));
+        AppMetrics.registry.gauge("alerts.channel.published", ALERTS::published);
+        AppMetrics.registry.gauge("alerts.channel.coalesced", ALERTS::coalesced);
+        AppMetrics.registry.gauge("alerts.channel.delivered", ALERTS::delivered);
+    }
+
+    /**
+     * Shows an alert without an Intent round trip if the service is running; a burst of
+     * alerts collapses into the latest. When publish returns false, start the service with
+     * a SHOW_ALERT intent instead.
+     */
+    public static AlertChannel alerts() {
+        return ALERTS;
     }
 
     private void startForegroundInternal() {
@@ -70,79 +102,146 @@ public class ScamOverlayService extends Service {
         if (intent == null) return START_STICKY;
         
         String action = intent.getStringExtra("action");
-        if ("SHOW_ALERT".equals(action)) {
+        if ("START_MONITORING".equals(action)) {
+            // idle until the first alert; do the expensive part now
+            prepareOverlay();
+        } else if ("SHOW_ALERT".equals(action)) {
             String keywords = intent.getStringExtra("keywords");
-            showScamOverlay(keywords);
+            long received = SystemClock.elapsedRealtime();
+            showScamOverlay(keywords, intent.getLongExtra(EXTRA_RAISED_AT, received), received, "intent");
         } else if ("HIDE_OVERLAY".equals(action)) {
             hideScamOverlay();
         } else if ("STOP_MONITORING".equals(action)) {
+            removeOverlay();
             stopSelf();
         }
 
         return START_STICKY;
     }
 
+    // Inflate, measure and attach the overlay hidden; no-op once attached
     @SuppressLint("InflateParams")
-    private void showScamOverlay(String keywords) {
+    private void prepareOverlay() {
+        if (overlayView != null) return;
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M && !Settings.canDrawOverlays(this)) {
             return;
         }
 
         try {
-            if (isOverlayShowing) {
-                TextView tv = overlayView.findViewById(R.id.tvOverlayKeywords);
-                if (tv != null) tv.setText("Suspicious phrase: " + keywords);
-                return;
-            }
-
             windowManager = (WindowManager) getSystemService(WINDOW_SERVICE);
-            overlayView = LayoutInflater.from(this).inflate(R.layout.layout_scam_alert_overlay, null);
-
-            TextView tvKeywords = overlayView.findViewById(R.id.tvOverlayKeywords);
-            if (tvKeywords != null) tvKeywords.setText("Scam Detected: " + keywords);
+            if (windowManager == null) return;
+            View view = LayoutInflater.from(this).inflate(R.layout.layout_scam_alert_overlay, null);
+            keywordsView = view.findViewById(R.id.tvOverlayKeywords);
+            View dismiss = view.findViewById(R.id.btnDismissOverlay);
+            if (dismiss != null) dismiss.setOnClickListener(v -> hideScamOverlay());
+
+            // a hidden view isn't measured when attached; measure it once so text layout and drawables are warm
+            int width = getResources().getDisplayMetrics().widthPixels;
+            view.measure(View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+                    View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+            view.setVisibility(View.GONE);
 
             int layoutType = (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) ? 
                              WindowManager.LayoutParams.TYPE_APPLICATION_OVERLAY : 
                              WindowManager.LayoutParams.TYPE_PHONE;
 
-            WindowManager.LayoutParams params = new WindowManager.LayoutParams(
+            params = new WindowManager.LayoutParams(
                     WindowManager.LayoutParams.MATCH_PARENT,
                     WindowManager.LayoutParams.WRAP_CONTENT,
                     layoutType,
                     WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE | 
                     WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON |
-                    WindowManager.LayoutParams.FLAG_LAYOUT_IN_SCREEN,
+                    WindowManager.LayoutParams.FLAG_LAYOUT_IN_SCREEN |
+                    // while hidden, let touches through to the call screen
+                    WindowManager.LayoutParams.FLAG_NOT_TOUCHABLE,
                     PixelFormat.TRANSLUCENT);
 
             params.gravity = Gravity.TOP;
-            
-            if (windowManager != null) {
-                windowManager.addView(overlayView, params);
-                isOverlayShowing = true;
-                
-                View dismiss = overlayView.findViewById(R.id.btnDismissOverlay);
-                if (dismiss != null) dismiss.setOnClickListener(v -> hideScamOverlay());
+            windowManager.addView(view, params);
+            overlayView = view;
+            AppMetrics.overlayPrepared.inc();
+        } catch (Exception e) {
+            Log.e(TAG, "Error preparing overlay: " + e.getMessage());
+        }
+    }
+
+    // received is when the alert reached this service, by way of path
+    private void showScamOverlay(String keywords, long raisedAt, long received, String path) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M && !Settings.canDrawOverlays(this)) {
+            return;
+        }
+
+        try {
+            if (isOverlayShowing) {
+                if (keywordsView != null) keywordsView.setText("Suspicious phrase: " + keywords);
+                AppMetrics.overlayUpdated.inc();
+                logFirstFrame(raisedAt, received, path);
+                return;
             }
+
+            // monitoring may not have started, e.g. a test alert from the home screen
+            prepareOverlay();
+            if (overlayView == null) return;
+
+            if (keywordsView != null) keywordsView.setText("Scam Detected: " + keywords);
+            params.flags &= ~WindowManager.LayoutParams.FLAG_NOT_TOUCHABLE;
+            windowManager.updateViewLayout(overlayView, params);
+            overlayView.setVisibility(View.VISIBLE);
+            isOverlayShowing = true;
+            AppMetrics.overlayShown.inc();
+            logFirstFrame(raisedAt, received, path);
         } catch (Exception e) {
             Log.e(TAG, "Error showing overlay: " + e.getMessage());
         }
     }
 
+    // Record and log how long the alert took to reach the screen once its first frame is drawn
+    private void logFirstFrame(long raisedAt, long received, String path) {
+        ViewTreeObserver observer = overlayView.getViewTreeObserver();
+        observer.addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                overlayView.getViewTreeObserver().removeOnPreDrawListener(this);
+                long now = SystemClock.elapsedRealtime();
+                LatencyStats.current().onAlertDisplayed(raisedAt, now);
+                AppMetrics.events().log(EventLog.ALERT_SHOWN, 0, now - raisedAt);
+                Log.d(TAG, "Alert on screen " + (now - received) + " ms after it arrived by " + path + ", "
+                        + (now - raisedAt) + " ms after it was raised; channel delivered " + ALERTS.delivered()
+                        + " of " + ALERTS.published());
+                return true;
+            }
+        });
+    }
+
     private void hideScamOverlay() {
         if (isOverlayShowing && windowManager != null && overlayView != null) {
             try {
-                windowManager.removeView(overlayView);
+                overlayView.setVisibility(View.GONE);
+                params.flags |= WindowManager.LayoutParams.FLAG_NOT_TOUCHABLE;
+                windowManager.updateViewLayout(overlayView, params);
             } catch (Exception ignored) {}
             isOverlayShowing = false;
         }
     }
 
+    private void removeOverlay() {
+        if (windowManager != null && overlayView != null) {
+            try {
+                windowManager.removeView(overlayView);
+            } catch (Exception ignored) {}
+        }
+        overlayView = null;
+        keywordsView = null;
+        isOverlayShowing = false;
+    }
+
     @Override
     public void onDestroy() {
-        hideScamOverlay();
+        ALERTS.unsubscribe(subscriber);
+        removeOverlay();
         super.onDestroy();
     }
 
     @Override
     public IBinder onBind(Intent intent) { return null; }
-}
\ No newline at end of file
+}
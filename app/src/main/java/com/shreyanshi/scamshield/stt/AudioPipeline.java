@@ -0,0 +1,477 @@
+package com.shreyanshi.scamshield.stt;
+
+import android.annotation.SuppressLint;
+import android.media.AudioFormat;
+import android.media.AudioRecord;
+import android.media.MediaRecorder;
+import android.os.Handler;
+import android.os.Debug;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.shreyanshi.scamshield.audio.FrameRing;
+import com.shreyanshi.scamshield.audio.VoiceActivityDetector;
+
+import org.vosk.Recognizer;
+import org.vosk.android.RecognitionListener;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Microphone to recognizer, replacing Vosk's SpeechService so buffering is ours to size
+ * and watch. A capture thread reads 16-bit mono PCM from AudioRecord into a
+ * {@link FrameRing} of direct buffers; a recognizer thread drains it into
+ * {@link Recognizer#acceptWaveForm(byte[], int)}. If recognition falls a whole ring
+ * behind, capture drops frames rather than blocking AudioRecord, and counts them in
+ * {@link #overruns()}. Results are delivered on the main thread, like SpeechService does.
+ *
+ * <p>Frames a {@link VoiceActivityDetector} judges not to be speech are never decoded;
+ * the frame before speech starts is kept and fed first so the onset isn't clipped, and
+ * when speech stops the utterance is finalized at once instead of after Vosk's own
+ * silence timeout. {@link #estimatedCpuSavedMs()} estimates what that gating saved.
+ *
+ * <p>A second, context recognizer can share the feed: typically a grammar-held recognizer
+ * decodes first for quick keyword hits, and a free-form one runs behind it on a
+ * lower-priority thread, fed the same speech frames through a second ring. If the context
+ * recognizer falls that ring behind, its frames are dropped and counted rather than
+ * holding up the first.
+ *
+ * <p>Frames are stamped when captured; while a result is being delivered,
+ * {@link #resultCapturedAtMs()} says when the newest audio in it was captured.
+ */
+public final class AudioPipeline {
+
+    // Audio per frame and frames in the ring; 32 x 100 ms lets recognition fall 3.2 s behind
+    public static final int DEFAULT_FRAME_MS = 100;
+    public static final int DEFAULT_RING_FRAMES = 32;
+
+    private static final String TAG = "ScamShield-Audio";
+    private static final long TAKE_TIMEOUT_NS = TimeUnit.MILLISECONDS.toNanos(200);
+    // How long stop lets the recognizers work through what was captured before it; the rest is dropped
+    private static final long STOP_DRAIN_NS = TimeUnit.MILLISECONDS.toNanos(250);
+
+    private final Decoder decoder;
+    // Null unless a context recognizer shares the feed
+    private final Decoder context;
+    private final FrameRing contextRing;
+    private final int sampleRate;
+    private final int frameBytes;
+    private final FrameRing ring;
+    private final AtomicReference<String> pendingGrammar = new AtomicReference<>();
+    private final VoiceActivityDetector vad;
+    private final Handler main = new Handler(Looper.getMainLooper());
+
+    private volatile boolean running;
+    private Thread capture;
+    private Thread recognition;
+    private Thread contextRecognition;
+    // Set once the first recognizer has forwarded its last frame
+    private volatile boolean forwardingDone;
+    // System.nanoTime() after which a stopping recognizer drops what is left; written before running is cleared
+    private long drainDeadlineNs;
+    private AudioRecord record;
+
+    // Written by the capture thread only
+    private volatile long readErrors;
+    // Written by the recognizer thread only
+    private volatile long framesSkipped;
+    // Written by each recognizer thread once, as it stops
+    private volatile long droppedAtStop;
+    private volatile long contextDroppedAtStop;
+    private volatile long vadCpuNs;
+    // Main thread only; set while a result is delivered
+    private long resultCapturedAtMs = -1;
+
+    public AudioPipeline(Recognizer recognizer, float sampleRate, RecognitionListener listener) {
+        this(recognizer, sampleRate, DEFAULT_FRAME_MS, DEFAULT_RING_FRAMES, listener);
+    }
+
+    public AudioPipeline(Recognizer recognizer, float sampleRate, int frameMs, int ringFrames,
+                         RecognitionListener listener) {
+        this(recognizer, listener, null, null, sampleRate, frameMs, ringFrames);
+    }
+
+    /**
+     * Two recognizers on one feed: recognizer decodes every speech frame first, context
+     * gets the same frames afterwards on a lower-priority thread.
+     */
+    public AudioPipeline(Recognizer recognizer, RecognitionListener listener,
+                         Recognizer context, RecognitionListener contextListener, float sampleRate) {
+        this(recognizer, listener, context, contextListener, sampleRate, DEFAULT_FRAME_MS, DEFAULT_RING_FRAMES);
+    }
+
+    private AudioPipeline(Recognizer recognizer, RecognitionListener listener,
+                          Recognizer context, RecognitionListener contextListener,
+                          float sampleRate, int frameMs, int ringFrames) {
+        this.decoder = new Decoder(recognizer, listener);
+        this.sampleRate = (int) sampleRate;
+        // 16-bit mono
+        this.frameBytes = this.sampleRate * frameMs / 1000 * 2;
+        this.ring = new FrameRing(ringFrames, frameBytes);
+        this.vad = new VoiceActivityDetector(this.sampleRate);
+        if (context != null) {
+            this.context = new Decoder(context, contextListener);
+            // free-form decoding is slower and bursty, so give it more room to catch up
+            this.contextRing = new FrameRing(2 * ringFrames, frameBytes);
+        } else {
+            this.context = null;
+            this.contextRing = null;
+        }
+    }
+
+    /**
+     * Open the microphone and start both threads.
+     *
+     * @throws IOException if AudioRecord can't be opened, e.g. while another app records
+     */
+    @SuppressLint("MissingPermission") // callers check RECORD_AUDIO before starting recognition
+    public void start() throws IOException {
+        if (record != null) return;
+        int minBuffer = AudioRecord.getMinBufferSize(sampleRate, AudioFormat.CHANNEL_IN_MONO,
+                AudioFormat.ENCODING_PCM_16BIT);
+        if (minBuffer <= 0) throw new IOException("Unsupported audio format at " + sampleRate + " Hz");
+        AudioRecord r = new AudioRecord(MediaRecorder.AudioSource.VOICE_RECOGNITION, sampleRate,
+                AudioFormat.CHANNEL_IN_MONO, AudioFormat.ENCODING_PCM_16BIT, Math.max(minBuffer, 2 * frameBytes));
+        if (r.getState() != AudioRecord.STATE_INITIALIZED) {
+            r.release();
+            throw new IOException("Failed to initialize the microphone");
+        }
+        record = r;
+        running = true;
+        r.startRecording();
+        forwardingDone = false;
+        capture = new Thread(this::captureLoop, "audio-capture");
+        recognition = new Thread(this::recognizeLoop, "vosk-recognizer");
+        capture.start();
+        recognition.start();
+        if (context != null) {
+            contextRecognition = new Thread(this::contextLoop, "vosk-context");
+            contextRecognition.start();
+        }
+    }
+
+    /**
+     * Swap the first recognizer's grammar, e.g. after the rules change mid-call. It takes
+     * effect between two frames on the recognizer thread; capture carries on throughout.
+     * Any thread.
+     */
+    public void setGrammar(String grammar) {
+        pendingGrammar.set(grammar);
+    }
+
+    /**
+     * Stop all threads and deliver the recognizers' final results. Call from the thread that
+     * started it, usually the main thread: the recognizers get {@link #STOP_DRAIN_NS} to
+     * catch up on the frames still queued and drop the rest, so this returns in well under
+     * a second however far behind they were.
+     */
+    public void stop() {
+        if (record == null) return;
+        drainDeadlineNs = System.nanoTime() + STOP_DRAIN_NS;
+        running = false;
+        // stopping the recording also ends a blocking read
+        record.stop();
+        join(capture);
+        join(recognition);
+        join(contextRecognition);
+        capture = null;
+        recognition = null;
+        contextRecognition = null;
+        record.release();
+        record = null;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Inside a listener callback, when the newest audio in the result being delivered was
+     * captured, on the SystemClock.elapsedRealtime() clock; -1 before any. Main thread.
+     */
+    public long resultCapturedAtMs() {
+        return resultCapturedAtMs;
+    }
+
+    public int frameBytes() {
+        return frameBytes;
+    }
+
+    // Frames dropped because the recognizer was a whole ring behind
+    public long overruns() {
+        return ring.overruns();
+    }
+
+    // Frames captured but not yet recognized; each one is a frame of detection lag
+    public int queueDepth() {
+        return ring.depth();
+    }
+
+    public int maxQueueDepth() {
+        return ring.maxDepth();
+    }
+
+    public long framesCaptured() {
+        return ring.published();
+    }
+
+    public long readErrors() {
+        return readErrors;
+    }
+
+    public long framesDecoded() {
+        return decoder.frames;
+    }
+
+    // Frames still queued when stop's drain deadline passed, by both recognizers
+    public long framesDroppedAtStop() {
+        return droppedAtStop + contextDroppedAtStop;
+    }
+
+    // Frames the voice activity detector kept from the recognizer
+    public long framesSkipped() {
+        return framesSkipped;
+    }
+
+    // Recognizer thread CPU spent in acceptWaveForm, by both recognizers
+    public long decodeCpuMs() {
+        return (decoder.cpuNs + (context != null ? context.cpuNs : 0)) / 1_000_000;
+    }
+
+    // Speech frames the context recognizer dropped because it was a whole ring behind
+    public long contextOverruns() {
+        return contextRing != null ? contextRing.overruns() : 0;
+    }
+
+    public int contextQueueDepth() {
+        return contextRing != null ? contextRing.depth() : 0;
+    }
+
+    public int maxContextQueueDepth() {
+        return contextRing != null ? contextRing.maxDepth() : 0;
+    }
+
+    // Recognizer thread CPU spent deciding what to skip
+    public long vadCpuMs() {
+        return vadCpuNs / 1_000_000;
+    }
+
+    /**
+     * CPU time gating saved over decoding every frame: skipped frames at the average cost
+     * of a decoded one, less the detector's own cost. Decoding silence is likely cheaper
+     * than speech, so this leans high; CPU time is what the recognizer's battery cost
+     * scales with.
+     */
+    public long estimatedCpuSavedMs() {
+        long perFrame = decoder.averageCpuNs() + (context != null ? context.averageCpuNs() : 0);
+        return Math.max(0, framesSkipped * perFrame - vadCpuNs) / 1_000_000;
+    }
+
+    private void captureLoop() {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_URGENT_AUDIO);
+        // audio that arrives while the ring is full is read into this and dropped
+        ByteBuffer spill = ByteBuffer.allocateDirect(frameBytes);
+        AudioRecord r = record;
+        while (running) {
+            ByteBuffer frame = ring.claim();
+            ByteBuffer target = frame != null ? frame : spill;
+            target.clear();
+            int n = r.read(target, frameBytes, AudioRecord.READ_BLOCKING);
+            if (!running) break;
+            if (n < 0) {
+                readErrors++;
+                Log.w(TAG, "AudioRecord.read failed: " + n);
+                continue;
+            }
+            if (frame == null || n == 0) continue;
+            // read(ByteBuffer) doesn't move the position
+            frame.position(n);
+            ring.publish(SystemClock.elapsedRealtime());
+        }
+    }
+
+    private void recognizeLoop() {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_AUDIO);
+        byte[] pcm = new byte[frameBytes];
+        // the last skipped frame, decoded ahead of the first speech frame
+        byte[] preroll = new byte[frameBytes];
+        int prerollLength = 0;
+        long prerollAt = 0;
+        boolean speaking = false;
+        vad.reset();
+        try {
+            // drain what was captured before stop, then finish the utterance
+            while (running || (ring.depth() > 0 && System.nanoTime() < drainDeadlineNs)) {
+                String grammar = pendingGrammar.getAndSet(null);
+                if (grammar != null) {
+                    // words heard under the old grammar are reported before it goes
+                    if (speaking) decoder.endUtterance();
+                    decoder.recognizer.setGrammar(grammar);
+                }
+                ByteBuffer frame = ring.take(TAKE_TIMEOUT_NS);
+                if (frame == null) continue;
+                // the Vosk binding only takes arrays
+                int n = frame.remaining();
+                frame.get(pcm, 0, n);
+                long capturedAt = ring.stamp();
+                ring.release();
+
+                long t0 = Debug.threadCpuTimeNanos();
+                boolean speech = vad.process(pcm, n);
+                vadCpuNs += Debug.threadCpuTimeNanos() - t0;
+                if (!speech) {
+                    framesSkipped++;
+                    if (speaking) {
+                        speaking = false;
+                        decoder.endUtterance();
+                        forward(pcm, 0, capturedAt);
+                    }
+                    byte[] t = preroll;
+                    preroll = pcm;
+                    pcm = t;
+                    prerollLength = n;
+                    prerollAt = capturedAt;
+                    continue;
+                }
+                if (!speaking && prerollLength > 0) {
+                    // already counted as skipped; decoding it after all is cheaper than clipping the onset
+                    framesSkipped--;
+                    decoder.decode(preroll, prerollLength, prerollAt);
+                    forward(preroll, prerollLength, prerollAt);
+                }
+                speaking = true;
+                prerollLength = 0;
+                decoder.decode(pcm, n, capturedAt);
+                forward(pcm, n, capturedAt);
+            }
+            droppedAtStop = drop(ring);
+            decoder.finish();
+        } catch (RuntimeException e) {
+            running = false;
+            decoder.fail(e);
+        } finally {
+            forwardingDone = true;
+        }
+    }
+
+    // Release whatever is still queued without decoding it; returns how many frames that was
+    private static int drop(FrameRing r) {
+        int n = 0;
+        while (r.take(0) != null) {
+            r.release();
+            n++;
+        }
+        return n;
+    }
+
+    // Pass a decoded frame on to the context recognizer; an empty one ends its utterance
+    private void forward(byte[] pcm, int n, long capturedAt) {
+        if (contextRing == null) return;
+        ByteBuffer frame = contextRing.claim();
+        if (frame == null) return;
+        frame.put(pcm, 0, n);
+        contextRing.publish(capturedAt);
+    }
+
+    private void contextLoop() {
+        // keyword hits on the other thread come first
+        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+        byte[] pcm = new byte[frameBytes];
+        try {
+            while (!forwardingDone || (contextRing.depth() > 0 && System.nanoTime() < drainDeadlineNs)) {
+                ByteBuffer frame = contextRing.take(TAKE_TIMEOUT_NS);
+                if (frame == null) continue;
+                int n = frame.remaining();
+                frame.get(pcm, 0, n);
+                long capturedAt = contextRing.stamp();
+                contextRing.release();
+                if (n == 0) context.endUtterance();
+                else context.decode(pcm, n, capturedAt);
+            }
+            contextDroppedAtStop = drop(contextRing);
+            context.finish();
+        } catch (RuntimeException e) {
+            context.fail(e);
+        }
+    }
+
+    // One recognizer and the listener its results go to; used by a single thread
+    private final class Decoder {
+        final Recognizer recognizer;
+        final RecognitionListener listener;
+        private String lastPartial;
+        // When the newest decoded audio was captured
+        private long capturedAt = -1;
+        volatile long frames;
+        volatile long cpuNs;
+
+        Decoder(Recognizer recognizer, RecognitionListener listener) {
+            this.recognizer = recognizer;
+            this.listener = listener;
+        }
+
+        void decode(byte[] pcm, int n, long capturedAt) {
+            this.capturedAt = capturedAt;
+            long t0 = Debug.threadCpuTimeNanos();
+            boolean endpoint = recognizer.acceptWaveForm(pcm, n);
+            cpuNs += Debug.threadCpuTimeNanos() - t0;
+            frames++;
+            if (endpoint) {
+                post(recognizer.getResult(), false);
+                lastPartial = null;
+                return;
+            }
+            String partial = recognizer.getPartialResult();
+            // Vosk repeats the partial for every frame of silence
+            if (!partial.equals(lastPartial)) post(partial, true);
+            lastPartial = partial;
+        }
+
+        // Speech stopped: report the utterance now rather than after Vosk hears enough silence
+        void endUtterance() {
+            post(recognizer.getFinalResult(), false);
+            lastPartial = null;
+        }
+
+        void finish() {
+            String result = recognizer.getFinalResult();
+            long at = capturedAt;
+            main.post(() -> {
+                resultCapturedAtMs = at;
+                listener.onFinalResult(result);
+            });
+        }
+
+        void fail(Exception e) {
+            main.post(() -> listener.onError(e));
+        }
+
+        long averageCpuNs() {
+            long n = frames;
+            return n == 0 ? 0 : cpuNs / n;
+        }
+
+        private void post(String hypothesis, boolean partial) {
+            long at = capturedAt;
+            main.post(() -> {
+                resultCapturedAtMs = at;
+                if (partial) listener.onPartialResult(hypothesis);
+                else listener.onResult(hypothesis);
+            });
+        }
+    }
+
+    private static void join(Thread t) {
+        if (t == null) return;
+        try {
+            t.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
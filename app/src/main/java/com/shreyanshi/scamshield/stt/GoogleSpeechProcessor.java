@@ -0,0 +1,187 @@
+package com.shreyanshi.scamshield.stt;
+
+import android.content.Context;
+import android.content.Intent;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.speech.RecognitionListener;
+import android.speech.RecognizerIntent;
+import android.speech.SpeechRecognizer;
+import android.util.Log;
+
+import com.shreyanshi.scamshield.audio.RecognizerSupervisor;
+import com.shreyanshi.scamshield.audio.RestartPacer;
+import com.shreyanshi.scamshield.audio.VoiceActivityDetector;
+import com.shreyanshi.scamshield.utils.AppMetrics;
+
+import java.util.ArrayList;
+import java.util.Locale;
+
+/**
+ * Android's SpeechRecognizer, kept listening across utterances. SpeechRecognizer ends its
+ * session after every utterance; two instances take turns under a
+ * {@link RecognizerSupervisor}, so the next session starts while the last one is still
+ * working out its results. Call start and stop on the main thread; results arrive there.
+ */
+public class GoogleSpeechProcessor implements SpeechProcessor {
+
+    private static final String TAG = "ScamShield-Google";
+
+    private final Context context;
+    private final Listener listener;
+    private final Handler main = new Handler(Looper.getMainLooper());
+    private final SpeechRecognizer[] recognizers = new SpeechRecognizer[2];
+    private final Intent intent;
+    private RecognizerSupervisor supervisor;
+
+    public GoogleSpeechProcessor(Context context, Listener listener) {
+        this.context = context;
+        this.listener = listener;
+        intent = new Intent(RecognizerIntent.ACTION_RECOGNIZE_SPEECH);
+        intent.putExtra(RecognizerIntent.EXTRA_LANGUAGE_MODEL, RecognizerIntent.LANGUAGE_MODEL_FREE_FORM);
+        intent.putExtra(RecognizerIntent.EXTRA_LANGUAGE, Locale.getDefault());
+        intent.putExtra(RecognizerIntent.EXTRA_PARTIAL_RESULTS, true);
+        intent.putExtra(RecognizerIntent.EXTRA_CALLING_PACKAGE, context.getPackageName());
+    }
+
+    public boolean isAvailable() {
+        return SpeechRecognizer.isRecognitionAvailable(context);
+    }
+
+    @Override
+    public void start() {
+        if (isRunning()) return;
+        // both are created up front, so the second is bound to the service before it is needed
+        for (int i = 0; i < 2; i++) {
+            recognizers[i] = SpeechRecognizer.createSpeechRecognizer(context);
+            recognizers[i].setRecognitionListener(new SessionListener(i));
+        }
+        supervisor = new RecognizerSupervisor(session(0), session(1),
+                // the sample rate is unused for levels
+                new RestartPacer(new VoiceActivityDetector(16_000)), new RecognizerSupervisor.Host() {
+            @Override
+            public long nowMs() {
+                return SystemClock.elapsedRealtime();
+            }
+
+            @Override
+            public void postDelayed(Runnable task, long delayMs) {
+                main.postDelayed(task, delayMs);
+            }
+
+            @Override
+            public void removeCallbacks(Runnable task) {
+                main.removeCallbacks(task);
+            }
+        });
+        supervisor.start();
+        RecognizerSupervisor s = supervisor;
+        // each session is a recognizer restart
+        AppMetrics.registry.gauge("google.sessions", s::sessions);
+        AppMetrics.registry.gauge("google.handoffs", s::handoffs);
+        AppMetrics.registry.gauge("google.gaps", s::gaps);
+        AppMetrics.registry.gauge("google.uncovered_ms", s::uncoveredMs);
+        AppMetrics.registry.gauge("google.max_gap_ms", s::maxGapMs);
+    }
+
+    @Override
+    public void stop() {
+        if (supervisor == null) return;
+        supervisor.stop();
+        Log.d(TAG, "Google recognizer stopped; " + supervisor.uncoveredMs() + " of " + supervisor.elapsedMs()
+                + " ms uncovered in " + supervisor.gaps() + " gaps (max " + supervisor.maxGapMs() + " ms, "
+                + supervisor.pausedMs() + " ms paused on silence), " + supervisor.handoffs() + " handoffs");
+        AppMetrics.registry.freeze("google.");
+        for (int i = 0; i < 2; i++) {
+            recognizers[i].destroy();
+            recognizers[i] = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return supervisor != null && supervisor.isRunning();
+    }
+
+    // Restart gaps and uncovered time for the current or last call; null before start
+    public RecognizerSupervisor supervisor() {
+        return supervisor;
+    }
+
+    private RecognizerSupervisor.Recognizer session(int index) {
+        return new RecognizerSupervisor.Recognizer() {
+            @Override
+            public void startListening() {
+                recognizers[index].startListening(intent);
+            }
+
+            @Override
+            public void cancel() {
+                recognizers[index].cancel();
+            }
+        };
+    }
+
+    // Callbacks of one of the two recognizers
+    private class SessionListener implements RecognitionListener {
+        private final int index;
+
+        SessionListener(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public void onReadyForSpeech(Bundle params) {
+            supervisor.onReadyForSpeech(index);
+        }
+
+        @Override
+        public void onBeginningOfSpeech() {
+        }
+
+        @Override
+        public void onRmsChanged(float rmsdB) {
+            supervisor.onRmsChanged(index, rmsdB);
+        }
+
+        @Override
+        public void onBufferReceived(byte[] buffer) {
+        }
+
+        @Override
+        public void onEndOfSpeech() {
+            supervisor.onEndOfSpeech(index);
+        }
+
+        @Override
+        public void onError(int error) {
+            if (error != SpeechRecognizer.ERROR_NO_MATCH && error != SpeechRecognizer.ERROR_SPEECH_TIMEOUT) {
+                Log.w(TAG, "Recognizer " + index + " error " + error);
+            }
+            supervisor.onError(index, error == SpeechRecognizer.ERROR_RECOGNIZER_BUSY);
+        }
+
+        @Override
+        public void onPartialResults(Bundle partialResults) {
+            ArrayList<String> texts = partialResults.getStringArrayList(SpeechRecognizer.RESULTS_RECOGNITION);
+            if (texts != null && !texts.isEmpty()) listener.onSpeechRecognized(texts.get(0), true);
+        }
+
+        @Override
+        public void onResults(Bundle results) {
+            // the next session may already be listening; this only reports what was heard
+            ArrayList<String> texts = results.getStringArrayList(SpeechRecognizer.RESULTS_RECOGNITION);
+            if (texts != null && !texts.isEmpty()) {
+                listener.onSpeechRecognized(texts.get(0), false);
+                for (int i = 1; i < texts.size(); i++) listener.onAlternativeRecognized(texts.get(i));
+            }
+            supervisor.onResults(index);
+        }
+
+        @Override
+        public void onEvent(int eventType, Bundle params) {
+        }
+    }
+}
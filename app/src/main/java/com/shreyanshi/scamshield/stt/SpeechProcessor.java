@@ -5,7 +5,25 @@ public interface SpeechProcessor {
     void stop();
     boolean isRunning();
 
+    // During a listener callback, when the newest audio in the result was captured
+    // (SystemClock.elapsedRealtime()), or -1 if this recognizer doesn't say
+    default long resultCapturedAtMs() {
+        return -1;
+    }
+
     interface Listener {
-        void onSpeechRecognized(String text);
+        // text may be a reused buffer; copy it to keep it past the call. A partial
+        // hypothesis is superseded by the next one for the same utterance.
+        void onSpeechRecognized(CharSequence text, boolean partial);
+
+        // Rule words from a grammar-held recognizer running alongside a free-form one; they
+        // arrive before the same words reach onSpeechRecognized
+        default void onKeywordsRecognized(CharSequence text, boolean partial) {}
+
+        // Runner-up transcripts of a final result, for recognizers that give them
+        default void onAlternativeRecognized(CharSequence text) {}
+
+        // The recognizer could not start or stopped for good; it won't call back again
+        default void onSpeechUnavailable(Exception e) {}
     }
 }
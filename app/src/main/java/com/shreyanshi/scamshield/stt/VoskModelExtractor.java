@@ -0,0 +1,328 @@
+package com.shreyanshi.scamshield.stt;
+
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.content.res.AssetFileDescriptor;
+import android.content.res.AssetManager;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Copies the model bundled under assets/vosk-model to getFilesDir()/vosk-model, where
+ * Vosk can open it. A manifest of every file's size and SHA-256 is written last, tagged
+ * with the app version the assets came from:
+ * <ul>
+ *   <li>same version and every file still there: nothing is read or copied</li>
+ *   <li>new version: each asset is hashed and only files whose hash changed are copied;
+ *       files the new model no longer has are deleted</li>
+ * </ul>
+ * A model without a manifest is incomplete; {@link VoskModelHolder} won't load it.
+ */
+public final class VoskModelExtractor {
+
+    public interface Callback {
+        void onExtracted(Result result);
+
+        void onExtractionFailed(IOException e);
+    }
+
+    public static final class Result {
+        public final long elapsedMs;
+        public final long bytesCopied;
+        public final int filesCopied;
+        public final int filesKept;
+
+        Result(long elapsedMs, long bytesCopied, int filesCopied, int filesKept) {
+            this.elapsedMs = elapsedMs;
+            this.bytesCopied = bytesCopied;
+            this.filesCopied = filesCopied;
+            this.filesKept = filesKept;
+        }
+    }
+
+    static final String MANIFEST = ".manifest";
+    private static final String TAG = "ScamShield-VoskExtract";
+    private static final String ASSET_DIR = VoskModelHolder.MODEL_DIR;
+    private static final int BUFFER = 64 * 1024;
+
+    private static volatile Result lastResult;
+
+    private VoskModelExtractor() {}
+
+    // True if dir holds a completely extracted model
+    static boolean isExtracted(File dir) {
+        return new File(dir, MANIFEST).isFile();
+    }
+
+    // The last extraction of this process, or null
+    public static Result lastResult() {
+        return lastResult;
+    }
+
+    /** Extract on a background thread; the callback runs on the main thread. */
+    public static void extractAsync(Context context, Callback callback) {
+        Context app = context.getApplicationContext();
+        Handler main = new Handler(Looper.getMainLooper());
+        Thread t = new Thread(() -> {
+            try {
+                Result r = extract(app);
+                main.post(() -> callback.onExtracted(r));
+            } catch (IOException e) {
+                Log.e(TAG, "Model extraction failed", e);
+                main.post(() -> callback.onExtractionFailed(e));
+            }
+        }, "vosk-model-extract");
+        t.setPriority(Thread.MIN_PRIORITY);
+        t.start();
+    }
+
+    /** Bring getFilesDir()/vosk-model up to date with the assets. Blocks; call it off the main thread. */
+    public static Result extract(Context context) throws IOException {
+        long started = SystemClock.elapsedRealtime();
+        AssetManager assets = context.getAssets();
+        File dir = new File(context.getFilesDir(), ASSET_DIR);
+        String version = appVersion(context);
+
+        Manifest old = Manifest.read(new File(dir, MANIFEST));
+        if (old != null && old.version.equals(version) && old.filesPresent(dir)) {
+            return finish(started, 0, 0, old.entries.size());
+        }
+
+        List<String> files = new ArrayList<>();
+        listAssets(assets, ASSET_DIR, files);
+        if (files.isEmpty()) throw new FileNotFoundException("No model in assets/" + ASSET_DIR);
+
+        // from here on the model on disk is incomplete until the new manifest is written
+        File manifestFile = new File(dir, MANIFEST);
+        if (manifestFile.exists() && !manifestFile.delete()) throw new IOException("Cannot delete " + manifestFile);
+
+        Manifest next = new Manifest(version);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER);
+        MessageDigest sha = sha256();
+        long bytesCopied = 0;
+        int copied = 0;
+        int kept = 0;
+        for (String asset : files) {
+            String path = asset.substring(ASSET_DIR.length() + 1);
+            File target = new File(dir, path);
+            Entry entry = hash(assets, asset, sha, buffer);
+            Entry before = old != null ? old.entries.get(path) : null;
+            if (before != null && before.sameAs(entry) && target.length() == entry.size) {
+                kept++;
+            } else {
+                bytesCopied += copy(assets, asset, target);
+                copied++;
+            }
+            next.entries.put(path, entry);
+        }
+        if (old != null) {
+            for (String path : old.entries.keySet()) {
+                if (!next.entries.containsKey(path)) new File(dir, path).delete();
+            }
+        }
+        next.write(manifestFile);
+        return finish(started, bytesCopied, copied, kept);
+    }
+
+    private static Result finish(long started, long bytes, int copied, int kept) {
+        Result r = new Result(SystemClock.elapsedRealtime() - started, bytes, copied, kept);
+        lastResult = r;
+        Log.i(TAG, "Model up to date in " + r.elapsedMs + " ms: copied " + copied + " files ("
+                + (bytes >> 10) + " KB), kept " + kept);
+        return r;
+    }
+
+    // The assets change only with the app, so its install time identifies the bundled model
+    private static String appVersion(Context context) throws IOException {
+        try {
+            return Long.toString(context.getPackageManager()
+                    .getPackageInfo(context.getPackageName(), 0).lastUpdateTime);
+        } catch (PackageManager.NameNotFoundException e) {
+            throw new IOException("Own package not found", e);
+        }
+    }
+
+    // Every file under path; AssetManager.list returns nothing for a file
+    private static void listAssets(AssetManager assets, String path, List<String> out) throws IOException {
+        String[] children = assets.list(path);
+        if (children == null || children.length == 0) {
+            if (!path.equals(ASSET_DIR)) out.add(path);
+            return;
+        }
+        for (String child : children) listAssets(assets, path + "/" + child, out);
+    }
+
+    private static Entry hash(AssetManager assets, String asset, MessageDigest sha, ByteBuffer buffer) throws IOException {
+        sha.reset();
+        long size = 0;
+        try (InputStream in = assets.open(asset, AssetManager.ACCESS_STREAMING);
+             ReadableByteChannel ch = Channels.newChannel(in)) {
+            buffer.clear();
+            int n;
+            while ((n = ch.read(buffer)) >= 0) {
+                if (n == 0) continue;
+                buffer.flip();
+                sha.update(buffer);
+                buffer.clear();
+                size += n;
+            }
+        }
+        return new Entry(size, toHex(sha.digest()));
+    }
+
+    /**
+     * Copy one asset through a temporary file, so a crash never leaves a half-written file
+     * under the real name. Uncompressed assets are transferred channel to channel;
+     * compressed ones can only be streamed.
+     */
+    private static long copy(AssetManager assets, String asset, File target) throws IOException {
+        File parent = target.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) throw new IOException("Cannot create " + parent);
+        File tmp = new File(target.getPath() + ".tmp");
+        long copied;
+        try (FileOutputStream out = new FileOutputStream(tmp); FileChannel dst = out.getChannel()) {
+            AssetFileDescriptor fd = openFd(assets, asset);
+            if (fd != null) {
+                try (FileInputStream in = fd.createInputStream(); FileChannel src = in.getChannel()) {
+                    copied = transfer(src, dst, fd.getStartOffset(), fd.getLength());
+                } finally {
+                    fd.close();
+                }
+            } else {
+                try (InputStream in = assets.open(asset, AssetManager.ACCESS_STREAMING);
+                     ReadableByteChannel src = Channels.newChannel(in)) {
+                    copied = 0;
+                    long n;
+                    while ((n = dst.transferFrom(src, copied, BUFFER)) > 0) copied += n;
+                }
+            }
+            out.getFD().sync();
+        }
+        if (!tmp.renameTo(target)) {
+            tmp.delete();
+            throw new IOException("Cannot rename " + tmp + " to " + target);
+        }
+        return copied;
+    }
+
+    private static long transfer(FileChannel src, FileChannel dst, long offset, long length) throws IOException {
+        long done = 0;
+        while (done < length) {
+            long n = src.transferTo(offset + done, length - done, dst);
+            if (n <= 0) throw new IOException("Asset ended early");
+            done += n;
+        }
+        return done;
+    }
+
+    // Null for compressed assets, which have no file descriptor of their own
+    private static AssetFileDescriptor openFd(AssetManager assets, String asset) {
+        try {
+            return assets.openFd(asset);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static MessageDigest sha256() throws IOException {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        return sb.toString();
+    }
+
+    private static final class Entry {
+        final long size;
+        final String sha256;
+
+        Entry(long size, String sha256) {
+            this.size = size;
+            this.sha256 = sha256;
+        }
+
+        boolean sameAs(Entry other) {
+            return size == other.size && sha256.equals(other.sha256);
+        }
+    }
+
+    // "version <v>" then one "<size> <sha256> <path>" line per file
+    private static final class Manifest {
+        final String version;
+        final Map<String, Entry> entries = new HashMap<>();
+
+        Manifest(String version) {
+            this.version = version;
+        }
+
+        boolean filesPresent(File dir) {
+            for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                if (new File(dir, e.getKey()).length() != e.getValue().size) return false;
+            }
+            return true;
+        }
+
+        // Null if missing or unreadable; either way everything gets checked again
+        static Manifest read(File file) {
+            if (!file.isFile()) return null;
+            try (BufferedReader r = new BufferedReader(new FileReader(file))) {
+                String first = r.readLine();
+                if (first == null || !first.startsWith("version ")) return null;
+                Manifest m = new Manifest(first.substring("version ".length()));
+                String line;
+                while ((line = r.readLine()) != null) {
+                    String[] parts = line.split(" ", 3);
+                    if (parts.length != 3) return null;
+                    m.entries.put(parts[2], new Entry(Long.parseLong(parts[0]), parts[1]));
+                }
+                return m;
+            } catch (IOException | NumberFormatException e) {
+                Log.w(TAG, "Ignoring unreadable manifest " + file, e);
+                return null;
+            }
+        }
+
+        void write(File file) throws IOException {
+            File tmp = new File(file.getPath() + ".tmp");
+            try (FileOutputStream out = new FileOutputStream(tmp); PrintWriter w = new PrintWriter(out)) {
+                w.print("version ");
+                w.print(version);
+                w.print('\n');
+                for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                    w.print(e.getValue().size + " " + e.getValue().sha256 + " " + e.getKey() + "\n");
+                }
+                w.flush();
+                out.getFD().sync();
+            }
+            if (!tmp.renameTo(file)) throw new IOException("Cannot rename " + tmp + " to " + file);
+        }
+    }
+}
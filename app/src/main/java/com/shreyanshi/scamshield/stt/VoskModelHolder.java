@@ -0,0 +1,173 @@
+package com.shreyanshi.scamshield.stt;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.os.Debug;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.shreyanshi.scamshield.utils.AppMetrics;
+
+import org.vosk.Model;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The one Vosk model of the process. Loading takes seconds and hundreds of megabytes of
+ * native memory, so the model is loaded once in the background (when
+ * {@link VoskModelExtractor} has unpacked it, or when the phone rings), shared by every call, and closed only when the system is short of
+ * memory and no call is using it.
+ *
+ * <p>Callers {@link #acquire(Callback)} a reference and {@link #release(Callback)} it when
+ * they stop, also after an error; callbacks run on the main thread and may still arrive
+ * after release. Thread-safe.
+ */
+public final class VoskModelHolder {
+
+    public interface Callback {
+        void onModel(Model model);
+
+        void onModelError(IOException e);
+    }
+
+    // Folder under getFilesDir() that holds the unpacked model
+    public static final String MODEL_DIR = "vosk-model";
+    private static final String TAG = "ScamShield-VoskModel";
+
+    private static VoskModelHolder instance;
+
+    private final File modelDir;
+    private final Handler main = new Handler(Looper.getMainLooper());
+
+    // Guarded by this
+    private Model model;
+    private boolean loading;
+    private int references;
+    private final List<Callback> waiting = new ArrayList<>();
+    private long loadMs = -1;
+    private long residentBytes = -1;
+
+    private VoskModelHolder(Context context) {
+        modelDir = new File(context.getFilesDir(), MODEL_DIR);
+    }
+
+    public static synchronized VoskModelHolder get(Context context) {
+        if (instance == null) instance = new VoskModelHolder(context.getApplicationContext());
+        return instance;
+    }
+
+    // True if the model has been fully extracted, whether or not it is loaded
+    public boolean isInstalled() {
+        return VoskModelExtractor.isExtracted(modelDir);
+    }
+
+    /** Start loading in the background if the model is installed and not loaded yet. */
+    public synchronized void prewarm() {
+        if (model != null || loading || !isInstalled()) return;
+        loading = true;
+        Thread t = new Thread(this::load, "vosk-model-load");
+        t.setPriority(Thread.MIN_PRIORITY);
+        t.start();
+    }
+
+    /**
+     * Take a reference to the model. The callback gets it right away if it is loaded,
+     * otherwise once loading finishes.
+     */
+    public synchronized void acquire(Callback callback) {
+        references++;
+        if (model != null) {
+            Model m = model;
+            main.post(() -> deliver(callback, m));
+            return;
+        }
+        waiting.add(callback);
+        if (!isInstalled()) {
+            failWaiting(new IOException("No model in " + modelDir));
+            return;
+        }
+        prewarm();
+    }
+
+    /** Drop a reference; the model stays loaded for the next call. */
+    public synchronized void release(Callback callback) {
+        if (references > 0) references--;
+        waiting.remove(callback);
+    }
+
+    /**
+     * From Application.onTrimMemory: close the model if no call is using it and the system
+     * wants memory back. It is loaded again on the next prewarm or acquire.
+     */
+    public synchronized void onTrimMemory(int level) {
+        if (model == null || references > 0) return;
+        if (level < ComponentCallbacks2.TRIM_MEMORY_BACKGROUND && level != ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            return;
+        }
+        Log.i(TAG, "Closing idle model on memory pressure, level " + level);
+        model.close();
+        model = null;
+        residentBytes = -1;
+    }
+
+    // How long the last load took, or -1 if none finished
+    public synchronized long loadMs() {
+        return loadMs;
+    }
+
+    // Native heap the loaded model takes, or -1 if it isn't loaded
+    public synchronized long residentBytes() {
+        return residentBytes;
+    }
+
+    private void load() {
+        long started = SystemClock.elapsedRealtime();
+        long heapBefore = Debug.getNativeHeapAllocatedSize();
+        Model loaded = null;
+        IOException error = null;
+        try {
+            loaded = new Model(modelDir.getAbsolutePath());
+        } catch (IOException e) {
+            error = e;
+        } catch (RuntimeException e) {
+            error = new IOException("Failed to load model from " + modelDir, e);
+        }
+        synchronized (this) {
+            loading = false;
+            if (loaded == null) {
+                Log.e(TAG, "Model load failed", error);
+                failWaiting(error);
+                return;
+            }
+            model = loaded;
+            loadMs = SystemClock.elapsedRealtime() - started;
+            residentBytes = Math.max(0, Debug.getNativeHeapAllocatedSize() - heapBefore);
+            AppMetrics.registry.histogram("vosk.model_load_ms").record(loadMs);
+            AppMetrics.registry.gauge("vosk.model_native_mb").set(residentBytes >> 20);
+            Log.i(TAG, "Model loaded in " + loadMs + " ms, " + (residentBytes >> 20) + " MB native");
+            for (Callback c : waiting) {
+                Model m = loaded;
+                main.post(() -> deliver(c, m));
+            }
+            waiting.clear();
+        }
+    }
+
+    // The model may have been closed by a trim between posting and this running
+    private void deliver(Callback callback, Model m) {
+        synchronized (this) {
+            if (model != m) return;
+        }
+        callback.onModel(m);
+    }
+
+    private void failWaiting(IOException error) {
+        for (Callback c : waiting) main.post(() -> c.onModelError(error));
+        waiting.clear();
+    }
+}
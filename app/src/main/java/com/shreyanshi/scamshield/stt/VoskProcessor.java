@@ -3,171 +3,213 @@ package com.shreyanshi.scamshield.stt;
 import android.content.Context;
 import android.util.Log;
 
-import org.json.JSONObject;
+import com.shreyanshi.scamshield.detection.HypothesisParser;
+import com.shreyanshi.scamshield.detection.KeywordGrammar;
+import com.shreyanshi.scamshield.detection.RuleSet;
+import com.shreyanshi.scamshield.detection.ScamDetector;
+import com.shreyanshi.scamshield.utils.AppMetrics;
 
-import java.io.File;
-import java.io.IOException;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Method;
-import java.lang.reflect.Proxy;
+import org.vosk.Model;
+import org.vosk.Recognizer;
+import org.vosk.android.RecognitionListener;
 
-public class VoskProcessor {
+import java.io.IOException;
 
-    private final Context context;
-    private Object model; // org.vosk.Model when available
-    private Object speechService; // org.vosk.android.SpeechService when available
-    private final Object listener; // use Object to avoid static access issues
+/**
+ * Offline recognition with Vosk, held to a grammar of the rule set's phrases. In dual mode
+ * a free-form recognizer shares the audio: the grammar one reports rule words early
+ * through onKeywordsRecognized, the free-form one the whole conversation through
+ * onSpeechRecognized. Otherwise the grammar recognizer's hypotheses go to
+ * onSpeechRecognized.
+ */
+public class VoskProcessor implements SpeechProcessor, RecognitionListener, VoskModelHolder.Callback {
+
+    private final VoskModelHolder models;
+    private final Listener listener;
+    private final boolean dual;
+    private final RecognitionListener keywordResults = new KeywordResults();
+    // Recognizer callbacks all arrive on the main thread, so one parser serves them
+    private final HypothesisParser parser = new HypothesisParser();
+    private boolean started;
+    private Recognizer recognizer;
+    private Recognizer freeForm;
+    private AudioPipeline audio;
+    private String grammar = KeywordGrammar.of(ScamDetector.rules());
 
-    private static final String MODEL_PATH_KEY = "vosk-model";
     private static final String TAG = "ScamShield-Vosk";
+    private static final float SAMPLE_RATE = 16000.0f;
+
+    // Call on the main thread, like start and stop
+    public VoskProcessor(Context context, Listener listener) {
+        this(context, listener, false);
+    }
 
-    public VoskProcessor(Context context, Object listener) {
-        this.context = context;
+    public VoskProcessor(Context context, Listener listener, boolean dual) {
+        this.models = VoskModelHolder.get(context);
         this.listener = listener;
-        initModel();
-    }
-
-    private void initModel() {
-        File sourceDir = new File(context.getFilesDir(), MODEL_PATH_KEY);
-        if (!sourceDir.exists()) {
-            Log.d(TAG, "Model folder not found in internal storage. Skipping unpack (reflection fallback). If you want Vosk support, add the model to files/" + MODEL_PATH_KEY + " or add the Vosk dependency.");
-            // We intentionally don't call the Vosk StorageService here to avoid compile-time dependency.
-            return;
-        } else {
-            Log.d(TAG, "Model found in internal storage. Loading (reflection)...");
-            try {
-                initModel(sourceDir);
-            } catch (IOException e) {
-                Log.e(TAG, "Failed to load model via reflection", e);
-            }
-        }
+        this.dual = dual;
     }
 
-    // Public initializer as requested by you; tries to load the Vosk Model via reflection
-    public void initModel(File sourceDir) throws IOException {
-        try {
-            Class<?> modelCls = Class.forName("org.vosk.Model");
-            Constructor<?> ctor = modelCls.getConstructor(String.class);
-            this.model = ctor.newInstance(sourceDir.getAbsolutePath());
-        } catch (ClassNotFoundException cnf) {
-            throw new IOException("Vosk Model class not found on classpath", cnf);
-        } catch (ReflectiveOperationException roe) {
-            throw new IOException("Failed to instantiate Vosk Model via reflection", roe);
-        }
+    /** Listen for the phrases of rules from now on, mid-call if running, without restarting the microphone. */
+    public void setRules(RuleSet rules) {
+        grammar = KeywordGrammar.of(rules);
+        if (audio != null) audio.setGrammar(grammar);
     }
 
     public boolean isAvailable() {
-        File f = new File(context.getFilesDir(), MODEL_PATH_KEY);
-        return model != null || (f.exists() && f.isDirectory());
+        return models.isInstalled();
     }
 
+    /** Starts listening once the shared model is loaded, which is immediate after a prewarm. */
+    @Override
     public void start() {
-        if (model == null) {
-            File sourceDir = new File(context.getFilesDir(), MODEL_PATH_KEY);
-            if (sourceDir.exists()) {
-                try {
-                    initModel(sourceDir);
-                } catch (IOException e) {
-                    Log.e(TAG, "Cannot start listening, failed to load model!", e);
-                    return;
-                }
-            } else {
-                Log.e(TAG, "Cannot start listening, model is not loaded!");
-                return;
-            }
-        }
+        if (started) return;
+        started = true;
+        models.acquire(this);
+    }
 
+    @Override
+    public void onModel(Model model) {
+        if (!started || audio != null) return;
         try {
-            // Use reflection to create Recognizer and SpeechService and start listening via a dynamic proxy
-            Class<?> recognizerCls = Class.forName("org.vosk.Recognizer");
-            Class<?> speechServiceCls = Class.forName("org.vosk.android.SpeechService");
-            Class<?> recListenerCls = Class.forName("org.vosk.android.RecognitionListener");
-
-            // Recognizer constructor: Recognizer(Model, float, String)
-            Constructor<?> recCtor = recognizerCls.getConstructor(Class.forName("org.vosk.Model"), float.class, String.class);
-            Object recognizer = recCtor.newInstance(this.model, 16000.0f, "[\"otp\", \"bank\", \"account\", \"blocked\", \"verify\", \"card\", \"password\"]");
-
-            // SpeechService constructor: SpeechService(Recognizer, float)
-            Constructor<?> svcCtor = speechServiceCls.getConstructor(recognizerCls, float.class);
-            this.speechService = svcCtor.newInstance(recognizer, 16000.0f);
-
-            // Create a dynamic proxy for RecognitionListener that forwards calls to this class
-            Object listenerProxy = Proxy.newProxyInstance(
-                    recListenerCls.getClassLoader(),
-                    new Class[]{recListenerCls},
-                    (proxy, method, args) -> {
-                        String name = method.getName();
-                        try {
-                            if ("onResult".equals(name) || "onFinalResult".equals(name)) {
-                                if (args != null && args.length > 0 && args[0] instanceof String) {
-                                    processHypothesis((String) args[0], "text");
-                                }
-                            } else if ("onPartialResult".equals(name)) {
-                                if (args != null && args.length > 0 && args[0] instanceof String) {
-                                    processHypothesis((String) args[0], "partial");
-                                }
-                            } else if ("onError".equals(name)) {
-                                if (args != null && args.length > 0 && args[0] instanceof Exception) {
-                                    Log.e(TAG, "Recognition error (from proxy)", (Exception) args[0]);
-                                }
-                            } else if ("onTimeout".equals(name)) {
-                                Log.d(TAG, "Recognition timeout (from proxy)");
-                            }
-                        } catch (Throwable t) {
-                            Log.e(TAG, "Error in recognition proxy", t);
-                        }
-                        return null;
-                    }
-            );
-
-            // Invoke startListening(listenerProxy)
-            Method startListening = speechServiceCls.getMethod("startListening", recListenerCls);
-            startListening.invoke(this.speechService, listenerProxy);
-
-            Log.d(TAG, "(Reflection) Vosk is now listening.");
-        } catch (ClassNotFoundException cnf) {
-            Log.e(TAG, "Vosk classes not on classpath, cannot start offline detection.", cnf);
-        } catch (ReflectiveOperationException roe) {
-            Log.e(TAG, "Reflection failure while starting Vosk.", roe);
+            recognizer = new Recognizer(model, SAMPLE_RATE, grammar);
+            if (dual) {
+                freeForm = new Recognizer(model, SAMPLE_RATE);
+                audio = new AudioPipeline(recognizer, keywordResults, freeForm, this, SAMPLE_RATE);
+            } else {
+                audio = new AudioPipeline(recognizer, SAMPLE_RATE, this);
+            }
+            audio.start();
+            AppMetrics.registry.counter("vosk.sessions").inc();
+            AudioPipeline a = audio;
+            AppMetrics.registry.gauge("vosk.queue_depth", a::queueDepth);
+            AppMetrics.registry.gauge("vosk.max_queue_depth", a::maxQueueDepth);
+            AppMetrics.registry.gauge("vosk.overruns", a::overruns);
+            AppMetrics.registry.gauge("vosk.frames_decoded", a::framesDecoded);
+            AppMetrics.registry.gauge("vosk.frames_skipped", a::framesSkipped);
+            AppMetrics.registry.gauge("vosk.context_queue_depth", a::contextQueueDepth);
+            AppMetrics.registry.gauge("vosk.context_overruns", a::contextOverruns);
+            Log.d(TAG, "Vosk is now listening.");
+        } catch (IOException e) {
+            onModelError(e);
         }
     }
 
+    @Override
     public void stop() {
-        if (this.speechService != null) {
-            try {
-                Method stop = this.speechService.getClass().getMethod("stop");
-                stop.invoke(this.speechService);
-            } catch (Exception e) {
-                Log.w(TAG, "Failed to stop speech service via reflection", e);
-            }
-            this.speechService = null;
-            Log.d(TAG, "(Reflection) Vosk has stopped listening.");
+        if (!started) return;
+        started = false;
+        if (audio != null) {
+            // stop first so the counts include the frames drained on the way out
+            audio.stop();
+            Log.d(TAG, "Vosk has stopped listening; dropped " + audio.overruns() + " of "
+                    + (audio.framesCaptured() + audio.overruns()) + " frames (" + audio.framesDroppedAtStop()
+                    + " left at stop), max queue " + audio.maxQueueDepth()
+                    + "; skipped " + audio.framesSkipped() + " non-speech frames, ~"
+                    + audio.estimatedCpuSavedMs() + " ms CPU saved of " + audio.decodeCpuMs() + " ms decoding"
+                    + (dual ? "; free-form dropped " + audio.contextOverruns() + ", max queue "
+                    + audio.maxContextQueueDepth() : ""));
+            AppMetrics.registry.freeze("vosk.");
+            audio = null;
         }
+        if (recognizer != null) {
+            recognizer.close();
+            recognizer = null;
+        }
+        if (freeForm != null) {
+            freeForm.close();
+            freeForm = null;
+        }
+        models.release(this);
     }
 
+    // True from start until stop, including while the model is still loading
+    @Override
     public boolean isRunning() {
-        return this.speechService != null;
+        return started;
     }
 
-    private void processHypothesis(String hypothesis, String key) {
-        try {
-            JSONObject json = new JSONObject(hypothesis);
-            String text = json.optString(key);
-            if (!text.isEmpty()) {
-                Log.i(TAG, "Hearing (" + key + "): " + text);
-                if (listener != null) {
-                    try {
-                        Method m = listener.getClass().getMethod("onSpeechRecognized", String.class);
-                        m.invoke(listener, text);
-                    } catch (NoSuchMethodException nsme) {
-                        Log.w(TAG, "Listener object does not implement onSpeechRecognized(String)", nsme);
-                    } catch (Exception e) {
-                        Log.e(TAG, "Failed to call listener.onSpeechRecognized via reflection", e);
-                    }
-                }
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "Could not parse result: " + hypothesis, e);
+    @Override
+    public long resultCapturedAtMs() {
+        return audio != null ? audio.resultCapturedAtMs() : -1;
+    }
+
+    // The capture pipeline while listening, for its overrun and queue-depth counters; else null
+    public AudioPipeline audio() {
+        return audio;
+    }
+
+    @Override
+    public void onPartialResult(String hypothesis) {
+        processHypothesis(hypothesis);
+    }
+
+    @Override
+    public void onResult(String hypothesis) {
+        processHypothesis(hypothesis);
+    }
+
+    @Override
+    public void onFinalResult(String hypothesis) {
+        processHypothesis(hypothesis);
+    }
+
+    // The model failed to load or the recognizer failed to start
+    @Override
+    public void onModelError(IOException e) {
+        if (!started) return;
+        Log.e(TAG, "Cannot start listening", e);
+        stop();
+        if (listener != null) listener.onSpeechUnavailable(e);
+    }
+
+    @Override
+    public void onError(Exception e) {
+        Log.e(TAG, "Recognition error", e);
+    }
+
+    @Override
+    public void onTimeout() {
+        Log.d(TAG, "Recognition timeout");
+    }
+
+    // Partials carry "partial" and results "text"; either goes to the listener
+    private void processHypothesis(String hypothesis) {
+        if (parse(hypothesis)) listener.onSpeechRecognized(parser.text(), parser.isPartial());
+    }
+
+    private boolean parse(String hypothesis) {
+        if (!parser.parse(hypothesis)) {
+            Log.e(TAG, "Could not parse result: " + hypothesis);
+            return false;
+        }
+        return parser.text().length() > 0 && listener != null;
+    }
+
+    // The grammar recognizer's results in dual mode
+    private class KeywordResults implements RecognitionListener {
+        @Override
+        public void onPartialResult(String hypothesis) {
+            if (parse(hypothesis)) listener.onKeywordsRecognized(parser.text(), parser.isPartial());
+        }
+
+        @Override
+        public void onResult(String hypothesis) {
+            onPartialResult(hypothesis);
+        }
+
+        @Override
+        public void onFinalResult(String hypothesis) {
+            onPartialResult(hypothesis);
+        }
+
+        @Override
+        public void onError(Exception e) {
+            VoskProcessor.this.onError(e);
+        }
+
+        @Override
+        public void onTimeout() {
         }
     }
 }
@@ -6,6 +6,7 @@ import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.net.Uri;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.provider.Settings;
 import android.text.TextUtils;
 import android.view.LayoutInflater;
@@ -25,8 +26,8 @@ import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.shreyanshi.scamshield.R;
 import com.shreyanshi.scamshield.database.ScamDatabaseHelper;
 import com.shreyanshi.scamshield.services.ScamOverlayService;
+import com.shreyanshi.scamshield.stt.VoskModelHolder;
 
-import java.io.File;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Locale;
@@ -85,13 +86,17 @@ public class HomeFragment extends Fragment {
         });
 
         btnTestScam.setOnClickListener(v -> {
-            Intent i = new Intent(requireContext(), ScamOverlayService.class);
-            i.putExtra("action", "SHOW_ALERT");
-            i.putExtra("keywords", "TEST_SCAM_ALERT");
-            if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.O) {
-                requireContext().startForegroundService(i);
-            } else {
-                requireContext().startService(i);
+            long raisedAt = SystemClock.elapsedRealtime();
+            if (!ScamOverlayService.alerts().publish("TEST_SCAM_ALERT", raisedAt)) {
+                Intent i = new Intent(requireContext(), ScamOverlayService.class);
+                i.putExtra("action", "SHOW_ALERT");
+                i.putExtra("keywords", "TEST_SCAM_ALERT");
+                i.putExtra(ScamOverlayService.EXTRA_RAISED_AT, raisedAt);
+                if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.O) {
+                    requireContext().startForegroundService(i);
+                } else {
+                    requireContext().startService(i);
+                }
             }
             Toast.makeText(getContext(), "Showing test alert...", Toast.LENGTH_SHORT).show();
         });
@@ -141,9 +146,8 @@ public class HomeFragment extends Fragment {
         tvStatusOverlay.setText(overlayGranted ? "GRANTED" : "MISSING");
         tvStatusOverlay.setTextColor(overlayGranted ? 0xFF4CAF50 : 0xFFF44336);
 
-        // Check Vosk Model
-        File modelFolder = new File(context.getFilesDir(), "vosk-model");
-        boolean modelExists = modelFolder.exists() && modelFolder.isDirectory();
+        // Check Vosk Model; it is unpacked from the APK's assets on first launch
+        boolean modelExists = VoskModelHolder.get(context).isInstalled();
         tvStatusVosk.setText(modelExists ? "INSTALLED" : "MISSING");
         tvStatusVosk.setTextColor(modelExists ? 0xFF4CAF50 : 0xFFF44336);
 
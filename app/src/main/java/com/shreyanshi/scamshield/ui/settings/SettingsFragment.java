@@ -4,6 +4,7 @@ import android.Manifest;
 import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
+import android.graphics.Typeface;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
@@ -12,6 +13,9 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.Button;
+import android.widget.HorizontalScrollView;
+import android.widget.RadioGroup;
+import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.activity.result.ActivityResultLauncher;
@@ -26,6 +30,10 @@ import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 
 import com.shreyanshi.scamshield.R;
+import com.shreyanshi.scamshield.detection.ScamDetector;
+import com.shreyanshi.scamshield.utils.AppMetrics;
+import com.shreyanshi.scamshield.utils.LatencyStats;
+import com.shreyanshi.scamshield.utils.StorageManager;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -43,6 +51,10 @@ public class SettingsFragment extends Fragment {
     private static final String KEY_SOUNDS = "sounds_enabled";
     private static final String KEY_VIBRATION = "vibration_enabled";
 
+    // Alert thresholds for the sensitivity choices, most sensitive first
+    private static final int[] SENSITIVITY_IDS = {R.id.sensitivityHigh, R.id.sensitivityNormal, R.id.sensitivityLow};
+    private static final float[] SENSITIVITY_THRESHOLDS = {0.6f, ScamDetector.ALERT_THRESHOLD, 1.5f};
+
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -96,15 +108,19 @@ public class SettingsFragment extends Fragment {
         View view = inflater.inflate(R.layout.fragment_settings, container, false);
 
         SharedPreferences prefs = requireActivity().getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        StorageManager storage = new StorageManager(requireContext());
 
         // Use direct resource IDs
         switchScamAlerts = view.findViewById(R.id.switchScamAlerts);
         SwitchCompat switchDarkMode = view.findViewById(R.id.switchDarkMode);
         SwitchCompat switchSounds = view.findViewById(R.id.switchSounds);
         SwitchCompat switchVibration = view.findViewById(R.id.switchVibration);
+        SwitchCompat switchDualRecognizer = view.findViewById(R.id.switchDualRecognizer);
+        RadioGroup groupSensitivity = view.findViewById(R.id.groupSensitivity);
         Button btnAppPermissions = view.findViewById(R.id.btnAppPermissions);
         Button btnHelpFeedback = view.findViewById(R.id.btnHelpFeedback);
         Button btnPrivacyConsent = view.findViewById(R.id.btnPrivacyConsent);
+        Button btnDiagnostics = view.findViewById(R.id.btnDiagnostics);
 
         // Permission warning visibility
         updatePermissionWarning(view);
@@ -114,6 +130,8 @@ public class SettingsFragment extends Fragment {
         if (switchDarkMode != null) switchDarkMode.setChecked(prefs.getBoolean(KEY_DARK_MODE, false));
         if (switchSounds != null) switchSounds.setChecked(prefs.getBoolean(KEY_SOUNDS, true));
         if (switchVibration != null) switchVibration.setChecked(prefs.getBoolean(KEY_VIBRATION, true));
+        if (switchDualRecognizer != null) switchDualRecognizer.setChecked(storage.isDualRecognizerEnabled());
+        if (groupSensitivity != null) groupSensitivity.check(SENSITIVITY_IDS[sensitivity(storage.getAlertThreshold())]);
 
         if (switchScamAlerts != null) {
             switchScamAlerts.setOnCheckedChangeListener((buttonView, isChecked) -> {
@@ -160,6 +178,13 @@ public class SettingsFragment extends Fragment {
 
         if (switchSounds != null) switchSounds.setOnCheckedChangeListener((b, checked) -> prefs.edit().putBoolean(KEY_SOUNDS, checked).apply());
         if (switchVibration != null) switchVibration.setOnCheckedChangeListener((b, checked) -> prefs.edit().putBoolean(KEY_VIBRATION, checked).apply());
+        // read when live detection starts, so it applies from the next call
+        if (switchDualRecognizer != null) switchDualRecognizer.setOnCheckedChangeListener((b, checked) -> storage.setDualRecognizerEnabled(checked));
+        if (groupSensitivity != null) groupSensitivity.setOnCheckedChangeListener((g, id) -> {
+            for (int i = 0; i < SENSITIVITY_IDS.length; i++) {
+                if (SENSITIVITY_IDS[i] == id) storage.setAlertThreshold(SENSITIVITY_THRESHOLDS[i]);
+            }
+        });
 
         if (btnAppPermissions != null) btnAppPermissions.setOnClickListener(v -> openAppSettings());
 
@@ -176,10 +201,20 @@ public class SettingsFragment extends Fragment {
         });
 
         if (btnPrivacyConsent != null) btnPrivacyConsent.setOnClickListener(v -> showConsentDialog());
+        if (btnDiagnostics != null) btnDiagnostics.setOnClickListener(v -> showDiagnostics());
 
         return view;
     }
 
+    // The choice whose threshold is nearest the saved one
+    private static int sensitivity(float threshold) {
+        int best = 0;
+        for (int i = 1; i < SENSITIVITY_THRESHOLDS.length; i++) {
+            if (Math.abs(SENSITIVITY_THRESHOLDS[i] - threshold) < Math.abs(SENSITIVITY_THRESHOLDS[best] - threshold)) best = i;
+        }
+        return best;
+    }
+
     private void updatePermissionWarning(View root) {
         boolean micGranted = ContextCompat.checkSelfPermission(requireContext(), Manifest.permission.RECORD_AUDIO) == android.content.pm.PackageManager.PERMISSION_GRANTED;
         View warn = root.findViewById(R.id.permissionWarning);
@@ -215,6 +250,34 @@ public class SettingsFragment extends Fragment {
         startActivity(intent);
     }
 
+    // Every metric and detection latency per stage, for this or the last call and all calls; shareable as text
+    private void showDiagnostics() {
+        String dump = AppMetrics.report(requireContext());
+        TextView text = new TextView(requireContext());
+        text.setText(dump);
+        text.setTypeface(Typeface.MONOSPACE);
+        text.setTextSize(12);
+        text.setTextIsSelectable(true);
+        int pad = (int) (16 * getResources().getDisplayMetrics().density);
+        text.setPadding(pad, pad, pad, 0);
+        HorizontalScrollView scroll = new HorizontalScrollView(requireContext());
+        scroll.addView(text);
+
+        new AlertDialog.Builder(requireContext())
+                .setTitle(R.string.diagnostics)
+                .setView(scroll)
+                .setPositiveButton(R.string.diagnostics_share, (d, w) -> {
+                    Intent send = new Intent(Intent.ACTION_SEND);
+                    send.setType("text/plain");
+                    send.putExtra(Intent.EXTRA_SUBJECT, "ScamShield diagnostics");
+                    send.putExtra(Intent.EXTRA_TEXT, dump);
+                    try { startActivity(Intent.createChooser(send, null)); } catch (Exception ignored) {}
+                })
+                .setNeutralButton(R.string.diagnostics_reset, (d, w) -> LatencyStats.reset(requireContext()))
+                .setNegativeButton(R.string.diagnostics_close, (d, w) -> d.dismiss())
+                .show();
+    }
+
     private void showConsentDialog() {
         new AlertDialog.Builder(requireContext())
                 .setTitle(R.string.consent_title)
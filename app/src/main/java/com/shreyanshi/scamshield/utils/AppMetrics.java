@@ -0,0 +1,84 @@
+package com.shreyanshi.scamshield.utils;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.shreyanshi.scamshield.metrics.EventLog;
+import com.shreyanshi.scamshield.metrics.MetricsRegistry;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * The process's {@link MetricsRegistry} and the metrics recorded on hot paths, looked up
+ * once here. {@link #report} prints it with {@link LatencyStats}, for the services' dump
+ * (adb shell dumpsys activity service com.shreyanshi.scamshield) and the settings
+ * diagnostics page. Names are grouped by prefix; times are in milliseconds unless the
+ * name says otherwise.
+ *
+ * <p>Pipeline events go to {@link #events()}, kept in a file that outlives the process
+ * so the events before a crash can be shown after it.
+ */
+public final class AppMetrics {
+
+    public static final MetricsRegistry registry = new MetricsRegistry();
+
+    public static final MetricsRegistry.Meter partials = registry.meter("recognizer.partials");
+    public static final MetricsRegistry.Counter finals = registry.counter("recognizer.finals");
+    public static final MetricsRegistry.Counter keywordHypotheses = registry.counter("recognizer.keyword_hypotheses");
+    public static final MetricsRegistry.Counter recognizerFailures = registry.counter("recognizer.unavailable");
+    public static final MetricsRegistry.Histogram detectMicros = registry.histogram("detection.update_us");
+    public static final MetricsRegistry.Counter alertsRaised = registry.counter("alerts.raised");
+    public static final MetricsRegistry.Counter alertsThrottled = registry.counter("alerts.throttled");
+    public static final MetricsRegistry.Counter alertsByIntent = registry.counter("alerts.by_intent");
+    public static final MetricsRegistry.Counter overlayShown = registry.counter("overlay.shown");
+    public static final MetricsRegistry.Counter overlayUpdated = registry.counter("overlay.updated");
+    public static final MetricsRegistry.Counter overlayPrepared = registry.counter("overlay.prepared");
+    public static final MetricsRegistry.Counter calls = registry.counter("calls");
+
+    // Events shown with a crash report and in the report below
+    public static final int RECENT_EVENTS = 32;
+
+    // In memory until openEvents maps the file
+    private static volatile EventLog events = EventLog.inMemory(RECENT_EVENTS);
+
+    private AppMetrics() {}
+
+    public static EventLog events() {
+        return events;
+    }
+
+    // Next to the crash log, so both can be pulled without root
+    public static File eventFile(Context context) {
+        File dir = context.getExternalFilesDir("logs");
+        if (dir == null) dir = context.getFilesDir();
+        if (!dir.exists()) dir.mkdirs();
+        return new File(dir, "events.bin");
+    }
+
+    /** Map the event ring from its file; once, from Application.onCreate. */
+    public static void openEvents(Context context) {
+        registry.gauge("events.lost", () -> events.lost());
+        try {
+            events = EventLog.open(eventFile(context), EventLog.DEFAULT_CAPACITY);
+        } catch (IOException e) {
+            Log.e("AppMetrics", "Event log unavailable; keeping events in memory", e);
+        }
+    }
+
+    // The last n events, one per line
+    public static String recentEvents(int n) {
+        StringBuilder sb = new StringBuilder();
+        EventLog.dump(events.tail(n), sb);
+        return sb.toString();
+    }
+
+    // Every metric, one per line, then detection latency and the latest events
+    public static String report(Context context) {
+        StringBuilder sb = new StringBuilder();
+        registry.dump(sb);
+        sb.append('\n').append(LatencyStats.dump(context));
+        sb.append("\nRecent events\n").append(recentEvents(RECENT_EVENTS));
+        return sb.toString();
+    }
+}
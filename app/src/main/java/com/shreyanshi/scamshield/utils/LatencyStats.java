@@ -0,0 +1,72 @@
+package com.shreyanshi.scamshield.utils;
+
+import android.content.Context;
+
+import com.shreyanshi.scamshield.metrics.DetectionLatency;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Detection latency per call, and for every call so far, which survives restarts in
+ * {@link StorageManager}. Each service gets its own call from {@link #onCallStart()} and
+ * records into it, so two services running at once don't mix their figures; the settings
+ * screen shows {@link #dump(Context)}.
+ */
+public final class LatencyStats {
+
+    // Calls started and not yet ended, oldest first
+    private static final List<DetectionLatency> active = new ArrayList<>();
+    // Stands in for current() when no call is in progress; never saved
+    private static final DetectionLatency detached = new DetectionLatency();
+    // Loaded on first use
+    private static DetectionLatency allCalls;
+
+    private LatencyStats() {}
+
+    // The call started most recently that is still in progress, e.g. for the overlay, which only live detection alerts on
+    public static synchronized DetectionLatency current() {
+        return active.isEmpty() ? detached : active.get(active.size() - 1);
+    }
+
+    // A new call's figures; record into them until onCallEnd
+    public static synchronized DetectionLatency onCallStart() {
+        DetectionLatency call = new DetectionLatency();
+        active.add(call);
+        return call;
+    }
+
+    // Fold the call into the totals and save both; does nothing for a call that isn't in progress
+    public static synchronized void onCallEnd(Context context, DetectionLatency call) {
+        if (!active.remove(call)) return;
+        allCalls(context).add(call);
+        StorageManager storage = new StorageManager(context);
+        storage.setLatency(false, call.encode());
+        storage.setLatency(true, allCalls.encode());
+    }
+
+    public static synchronized String dump(Context context) {
+        StringBuilder sb = new StringBuilder();
+        boolean inCall = !active.isEmpty();
+        DetectionLatency last = inCall ? current()
+                : DetectionLatency.decode(new StorageManager(context).getLatency(false));
+        sb.append(inCall ? "This call" : "Last call").append(" (ms)\n");
+        last.dump(sb);
+        sb.append("\nAll calls (ms)\n");
+        allCalls(context).dump(sb);
+        return sb.toString();
+    }
+
+    // Forget the saved figures; calls in progress keep theirs
+    public static synchronized void reset(Context context) {
+        allCalls = new DetectionLatency();
+        StorageManager storage = new StorageManager(context);
+        storage.setLatency(false, null);
+        storage.setLatency(true, null);
+    }
+
+    private static DetectionLatency allCalls(Context context) {
+        if (allCalls == null) allCalls = DetectionLatency.decode(new StorageManager(context).getLatency(true));
+        return allCalls;
+    }
+}
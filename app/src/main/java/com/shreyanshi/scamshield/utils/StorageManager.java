@@ -3,12 +3,18 @@ package com.shreyanshi.scamshield.utils;
 import android.content.Context;
 import android.content.SharedPreferences;
 
+import com.shreyanshi.scamshield.detection.ScamDetector;
+
 public class StorageManager {
     private static final String PREF_NAME = "ScamShieldPrefs";
     private static final String KEY_SCAM_ALERTS = "scam_alerts_enabled";
     private static final String KEY_DARK_MODE = "dark_mode_enabled";
     private static final String KEY_SOUNDS = "sounds_enabled";
     private static final String KEY_VIBRATION = "vibration_enabled";
+    private static final String KEY_ALERT_THRESHOLD = "alert_threshold";
+    private static final String KEY_DUAL_RECOGNIZER = "dual_recognizer_enabled";
+    private static final String KEY_LATENCY_LAST_CALL = "latency_last_call";
+    private static final String KEY_LATENCY_ALL_CALLS = "latency_all_calls";
 
     private final SharedPreferences sharedPreferences;
 
@@ -49,4 +55,31 @@ public class StorageManager {
     public boolean isVibrationEnabled() {
         return sharedPreferences.getBoolean(KEY_VIBRATION, true);
     }
+
+    // Risk score at which live detection raises an alert; lower is more sensitive
+    public void setAlertThreshold(float threshold) {
+        sharedPreferences.edit().putFloat(KEY_ALERT_THRESHOLD, threshold).apply();
+    }
+
+    public float getAlertThreshold() {
+        return sharedPreferences.getFloat(KEY_ALERT_THRESHOLD, ScamDetector.ALERT_THRESHOLD);
+    }
+
+    // Run a free-form recognizer next to the keyword one: more context, about twice the CPU
+    public void setDualRecognizerEnabled(boolean enabled) {
+        sharedPreferences.edit().putBoolean(KEY_DUAL_RECOGNIZER, enabled).apply();
+    }
+
+    public boolean isDualRecognizerEnabled() {
+        return sharedPreferences.getBoolean(KEY_DUAL_RECOGNIZER, false);
+    }
+
+    // Encoded DetectionLatency histograms, for the last call or all of them; null clears
+    public void setLatency(boolean allCalls, String encoded) {
+        sharedPreferences.edit().putString(allCalls ? KEY_LATENCY_ALL_CALLS : KEY_LATENCY_LAST_CALL, encoded).apply();
+    }
+
+    public String getLatency(boolean allCalls) {
+        return sharedPreferences.getString(allCalls ? KEY_LATENCY_ALL_CALLS : KEY_LATENCY_LAST_CALL, null);
+    }
 }
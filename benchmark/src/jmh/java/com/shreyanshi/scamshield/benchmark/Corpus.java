@@ -0,0 +1,156 @@
+package com.shreyanshi.scamshield.benchmark;
+
+import com.shreyanshi.scamshield.detection.RuleSet;
+import com.shreyanshi.scamshield.detection.ScamDetector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Deterministic inputs for the benchmarks: call transcripts stitched from everyday and
+ * scam-call sentences the way a recognizer writes them (lowercase, no punctuation), and
+ * rule sets of any size that start with the app's real phrases and are padded with
+ * made-up ones.
+ */
+final class Corpus {
+
+    // Roughly 150 spoken words a minute, so 4500 words is a 30 minute call
+    static final int CALL_30_MIN_WORDS = 4500;
+
+    private static final String[] EVERYDAY = {
+            "hello who is this",
+            "yes i can hear you now",
+            "sorry the line is not clear can you repeat that",
+            "i am driving right now can i call you back in ten minutes",
+            "did you reach home safely",
+            "mummy is asking when you are coming for dinner",
+            "the meeting got moved to thursday afternoon",
+            "please send me the address on whatsapp",
+            "okay okay no problem",
+            "the doctor said it is nothing serious just take rest",
+            "which train are you taking tomorrow morning",
+            "i will transfer the rent by evening",
+            "the electrician is coming at four",
+            "tell him to bring the documents",
+            "haan ji theek hai",
+            "my phone battery is about to die",
+            "what time does the shop close",
+            "we need to book the tickets before the price goes up",
+            "it came to 2450 rupees for both of us",
+            "call me on 98765 43210 after 6",
+            "we will reach by seven thirty",
+            "she has two kids and one dog",
+    };
+
+    private static final String[] SCAM = {
+            "sir i am calling from your bank customer care department",
+            "your account will be blocked today if kyc is not updated",
+            "please verify your account by telling the otp you just received",
+            "madam do not disconnect this is regarding your card number",
+            "you have won a lottery prize of twenty five lakh rupees",
+            "to receive the amount you need to pay processing charges by upi",
+            "please install anydesk so our technician can fix the issue",
+            "there is a police complaint and a warrant against your aadhaar",
+            "share the one time password to cancel the transaction",
+            "send money through western union or gift card",
+            "this is urgent your netbanking is locked",
+            "read the six digit code o t p from the message",
+            "okay sir the code is 4 8 2 9 1 6",
+            "note the account 50100234567812 and ifsc hdfc0001234",
+            "pay the fee to ramesh at the rate okaxis",
+            "my card is 4111 1111 1111 1111",
+            "sir the code is four eight double two one six",
+            "otp hai char paanch do saat",
+    };
+
+    private Corpus() {}
+
+    /**
+     * A transcript of exactly words words. About one sentence in five comes from a scam
+     * script, which is already more than a normal call has.
+     */
+    static String transcript(int words, long seed) {
+        Random r = new Random(seed);
+        StringBuilder sb = new StringBuilder();
+        int n = 0;
+        while (n < words) {
+            String sentence = r.nextInt(5) == 0 ? SCAM[r.nextInt(SCAM.length)] : EVERYDAY[r.nextInt(EVERYDAY.length)];
+            for (String w : sentence.split(" ")) {
+                if (n == words) break;
+                if (n > 0) sb.append(' ');
+                sb.append(w);
+                n++;
+            }
+        }
+        return sb.toString();
+    }
+
+    // Every prefix of the text at a word boundary, as a recognizer resends its growing hypothesis
+    static String[] partials(String text) {
+        List<String> out = new ArrayList<>();
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == ' ') out.add(text.substring(0, i));
+        }
+        out.add(text);
+        return out.toArray(new String[0]);
+    }
+
+    /**
+     * The app's own phrases with their weights, truncated or padded with made-up phrases
+     * to exactly size rules. Made-up phrases are one to three words of random syllables,
+     * so like a large blocklist they mostly don't occur in a call.
+     */
+    static RuleSet rules(int size, long seed) {
+        RuleSet real = ScamDetector.rules();
+        RuleSet.Builder b = new RuleSet.Builder();
+        Map<String, Float> weights = new HashMap<>();
+        Set<String> seen = new HashSet<>();
+        for (int id = 0; id < real.size() && seen.size() < size; id++) {
+            // rules without text of their own would turn into phrases that never occur
+            if (real.hasSource(id, RuleSet.SOURCE_ENTITY | RuleSet.SOURCE_PROXIMITY)) continue;
+            if (!real.hasSource(id, ~RuleSet.SOURCE_TERM)) continue;
+            String p = real.phrase(id);
+            seen.add(p);
+            b.add(p, RuleSet.SOURCE_RULE, real.message(id));
+            weights.put(p, real.weight(id));
+        }
+        Random r = new Random(seed);
+        while (seen.size() < size) {
+            String p = madeUpPhrase(r);
+            if (seen.add(p)) b.add(p, RuleSet.SOURCE_RULE);
+        }
+        return b.weights(weights).build();
+    }
+
+    // Distinct words of the transcript sentences, in a fixed order
+    static List<String> vocabulary() {
+        Set<String> words = new LinkedHashSet<>();
+        for (String s : EVERYDAY) words.addAll(Arrays.asList(s.split(" ")));
+        for (String s : SCAM) words.addAll(Arrays.asList(s.split(" ")));
+        return new ArrayList<>(words);
+    }
+
+    private static final String CONSONANTS = "bdfgklmnprstvz";
+    private static final String VOWELS = "aeiou";
+
+    private static String madeUpPhrase(Random r) {
+        StringBuilder sb = new StringBuilder();
+        int words = 1 + r.nextInt(3);
+        for (int w = 0; w < words; w++) {
+            if (w > 0) sb.append(' ');
+            int syllables = 2 + r.nextInt(3);
+            for (int s = 0; s < syllables; s++) {
+                sb.append(CONSONANTS.charAt(r.nextInt(CONSONANTS.length())));
+                sb.append(VOWELS.charAt(r.nextInt(VOWELS.length())));
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,52 @@
+package com.shreyanshi.scamshield.benchmark;
+
+import com.shreyanshi.scamshield.detection.ScamDetector;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+/**
+ * The public ScamDetector entry points over one complete transcript, from a single word up
+ * to a 30 minute call, with the app's own rules.
+ */
+@State(Scope.Benchmark)
+public class DetectorBenchmark {
+
+    @Param({"1", "12", "150", "1500", "" + Corpus.CALL_30_MIN_WORDS})
+    public int words;
+
+    private String transcript;
+    private List<String> matches;
+
+    @Setup
+    public void setUp() {
+        transcript = Corpus.transcript(words, 42);
+        matches = ScamDetector.detectKeywords(transcript);
+    }
+
+    @Benchmark
+    public ScamDetector.ScamResult detect() {
+        return ScamDetector.detect(transcript);
+    }
+
+    @Benchmark
+    public List<String> detectKeywords() {
+        return ScamDetector.detectKeywords(transcript);
+    }
+
+    @Benchmark
+    public String buildAlertMessage() {
+        return ScamDetector.buildAlertMessage(matches, transcript);
+    }
+
+    // What detect() does without building its result lists
+    @Benchmark
+    public boolean scan() {
+        return ScamDetector.isScam(ScamDetector.scan(transcript));
+    }
+}
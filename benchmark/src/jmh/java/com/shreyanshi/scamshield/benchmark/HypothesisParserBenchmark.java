@@ -0,0 +1,95 @@
+package com.shreyanshi.scamshield.benchmark;
+
+import com.shreyanshi.scamshield.detection.HypothesisParser;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Locale;
+
+/**
+ * Reading a Vosk result, one op per callback: HypothesisParser against org.json, which is
+ * what VoskProcessor used to build for every partial. Partials carry only the text; final
+ * results also carry the per-word array that Vosk writes when words are enabled.
+ */
+@State(Scope.Thread)
+public class HypothesisParserBenchmark {
+
+    @Param({"12", "150"})
+    public int utteranceWords;
+
+    private String partial;
+    private String result;
+
+    private final HypothesisParser text = new HypothesisParser();
+    private final HypothesisParser words = new HypothesisParser();
+
+    @Setup
+    public void setUp() {
+        String transcript = Corpus.transcript(utteranceWords, 42);
+        partial = "{\n  \"partial\" : \"" + transcript + "\"\n}";
+        // the layout Vosk's result JSON has
+        StringBuilder sb = new StringBuilder("{\n  \"result\" : [");
+        float t = 0.3f;
+        String[] split = transcript.split(" ");
+        for (int i = 0; i < split.length; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(String.format(Locale.ROOT,
+                    "{\n      \"conf\" : %f,\n      \"end\" : %.2f,\n      \"start\" : %.2f,\n      \"word\" : \"%s\"\n    }",
+                    0.5 + (i % 5) / 10.0, t + 0.3f, t, split[i]));
+            t += 0.35f;
+        }
+        sb.append("],\n  \"text\" : \"").append(transcript).append("\"\n}");
+        result = sb.toString();
+        words.setWords(true);
+    }
+
+    @Benchmark
+    public int parserPartial() {
+        text.parse(partial);
+        return text.text().length();
+    }
+
+    @Benchmark
+    public int orgJsonPartial() throws JSONException {
+        return new JSONObject(partial).optString("partial").length();
+    }
+
+    @Benchmark
+    public int parserResult() {
+        text.parse(result);
+        return text.text().length();
+    }
+
+    @Benchmark
+    public int orgJsonResult() throws JSONException {
+        return new JSONObject(result).optString("text").length();
+    }
+
+    @Benchmark
+    public float parserResultWords() {
+        words.parse(result);
+        float sum = 0;
+        for (int i = 0; i < words.wordCount(); i++) sum += words.confidence(i);
+        return sum;
+    }
+
+    @Benchmark
+    public float orgJsonResultWords() throws JSONException {
+        JSONObject json = new JSONObject(result);
+        JSONArray array = json.getJSONArray("result");
+        float sum = 0;
+        for (int i = 0; i < array.length(); i++) {
+            JSONObject w = array.getJSONObject(i);
+            w.getString("word");
+            sum += (float) w.getDouble("conf");
+        }
+        return sum + json.optString("text").length();
+    }
+}
@@ -0,0 +1,111 @@
+package com.shreyanshi.scamshield.benchmark;
+
+import com.shreyanshi.scamshield.detection.DetectionSession;
+import com.shreyanshi.scamshield.detection.EntityScanner;
+import com.shreyanshi.scamshield.detection.FuzzyMatcher;
+import com.shreyanshi.scamshield.detection.KeywordAutomaton;
+import com.shreyanshi.scamshield.detection.MatchSession;
+import com.shreyanshi.scamshield.detection.RiskScorer;
+import com.shreyanshi.scamshield.detection.RuleSet;
+import com.shreyanshi.scamshield.detection.ScamDetector;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Locale;
+
+/**
+ * The LiveDetectionService path: one op is one partial result of a call, replayed as a
+ * recognizer resends its growing hypothesis a word at a time. Compares the incremental
+ * matchers (exact, plus fuzzy or entities, and the whole session with scoring) against the
+ * service's original loop, which lowercased every partial and searched it for each phrase.
+ */
+@State(Scope.Thread)
+public class LiveDetectionBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int ruleCount;
+
+    // Words per utterance before the recognizer finalizes it and starts over
+    @Param({"12", "150"})
+    public int utteranceWords;
+
+    private String[] partials;
+    private String[] phrases;
+    private int next;
+    private long now;
+
+    private MatchSession exact;
+    private FuzzyMatcher fuzzy;
+    private EntityScanner entities;
+    private DetectionSession session;
+    private int hits;
+    private final KeywordAutomaton.MatchListener count = (id, end) -> hits++;
+
+    @Setup
+    public void setUp() {
+        RuleSet rules = Corpus.rules(ruleCount, 7);
+        phrases = new String[rules.size()];
+        for (int id = 0; id < phrases.length; id++) phrases[id] = rules.phrase(id);
+        partials = Corpus.partials(Corpus.transcript(utteranceWords, 42));
+        exact = new MatchSession(rules.automaton());
+        fuzzy = new FuzzyMatcher(rules);
+        entities = new EntityScanner(rules);
+        session = new DetectionSession(rules, new RiskScorer(rules, ScamDetector.ALERT_THRESHOLD,
+                ScamDetector.SCORE_HALF_LIFE_MS, ScamDetector.SCORE_WINDOW_MS));
+    }
+
+    // Next partial; a new utterance starts a fresh hypothesis
+    private String nextPartial() {
+        if (next == partials.length) {
+            next = 0;
+            exact.reset();
+            session.reset();
+        }
+        now += 100;
+        return partials[next++];
+    }
+
+    @Benchmark
+    public int legacyLoop() {
+        String lowerText = nextPartial().toLowerCase(Locale.ROOT);
+        for (String k : phrases) {
+            if (lowerText.contains(k)) return 1;
+        }
+        return 0;
+    }
+
+    @Benchmark
+    public int exact() {
+        hits = 0;
+        exact.update(nextPartial(), count);
+        return hits;
+    }
+
+    @Benchmark
+    public int exactAndFuzzy() {
+        hits = 0;
+        String p = nextPartial();
+        exact.update(p, count);
+        fuzzy.scan(p, exact.lastDivergence(), count);
+        return hits;
+    }
+
+    // Digit runs, IFSC codes and UPI IDs; should cost about as much as exact matching
+    @Benchmark
+    public int exactAndEntities() {
+        hits = 0;
+        String p = nextPartial();
+        exact.update(p, count);
+        entities.scan(p, exact.lastDivergence(), count);
+        return hits;
+    }
+
+    @Benchmark
+    public boolean session() {
+        return session.update(nextPartial(), now);
+    }
+}
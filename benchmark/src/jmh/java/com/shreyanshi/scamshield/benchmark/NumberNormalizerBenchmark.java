@@ -0,0 +1,77 @@
+package com.shreyanshi.scamshield.benchmark;
+
+import com.shreyanshi.scamshield.detection.EntityScanner;
+import com.shreyanshi.scamshield.detection.KeywordAutomaton;
+import com.shreyanshi.scamshield.detection.MatchSession;
+import com.shreyanshi.scamshield.detection.NumberNormalizer;
+import com.shreyanshi.scamshield.detection.RuleSet;
+import com.shreyanshi.scamshield.detection.ScamDetector;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Spoken-number normalization per partial result, replayed word by word like
+ * LiveDetectionBenchmark. The session needs the divergence offset from MatchSession,
+ * so every op runs the exact matcher too; compare against LiveDetectionBenchmark.exact.
+ */
+@State(Scope.Thread)
+public class NumberNormalizerBenchmark {
+
+    @Param({"12", "150"})
+    public int utteranceWords;
+
+    private String[] partials;
+    private int next;
+
+    private MatchSession exact;
+    private NumberNormalizer numbers;
+    private EntityScanner entities;
+    private int hits;
+    private final KeywordAutomaton.MatchListener count = (id, end) -> hits++;
+
+    @Setup
+    public void setUp() {
+        RuleSet rules = ScamDetector.rules();
+        partials = Corpus.partials(Corpus.transcript(utteranceWords, 42));
+        exact = new MatchSession(rules.automaton());
+        numbers = new NumberNormalizer();
+        entities = new EntityScanner(rules);
+    }
+
+    private String nextPartial() {
+        if (next == partials.length) {
+            next = 0;
+            exact.reset();
+            numbers.reset();
+        }
+        return partials[next++];
+    }
+
+    @Benchmark
+    public int normalize() {
+        hits = 0;
+        String p = nextPartial();
+        exact.update(p, count);
+        return numbers.update(p, exact.lastDivergence()).length() + hits;
+    }
+
+    @Benchmark
+    public int normalizeAndEntities() {
+        hits = 0;
+        String p = nextPartial();
+        exact.update(p, count);
+        numbers.update(p, exact.lastDivergence());
+        entities.scan(numbers.text(), numbers.changedFrom(), count);
+        return hits;
+    }
+
+    // The whole hypothesis normalized from scratch every time, for comparison
+    @Benchmark
+    public int normalizeFromScratch() {
+        return numbers.update(nextPartial(), 0).length();
+    }
+}
@@ -0,0 +1,168 @@
+package com.shreyanshi.scamshield.benchmark;
+
+import com.shreyanshi.scamshield.detection.KeywordAutomaton;
+import com.shreyanshi.scamshield.detection.MatchSession;
+import com.shreyanshi.scamshield.detection.ProximityMatcher;
+import com.shreyanshi.scamshield.detection.RuleSet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Proximity and sequence rules per partial result, replayed word by word like
+ * LiveDetectionBenchmark. The rules pair up words of the corpus at random, so unlike
+ * padded phrase lists most of their terms do occur. The compiled matcher is fed by the
+ * incremental exact matcher; the naive evaluator splits every partial into tokens and
+ * walks them once for each rule.
+ */
+@State(Scope.Thread)
+public class ProximityBenchmark {
+
+    private static final int NONE = -1_000_000;
+
+    @Param({"10", "100", "1000"})
+    public int ruleCount;
+
+    @Param({"12", "150"})
+    public int utteranceWords;
+
+    private String[] partials;
+    private int next;
+
+    private MatchSession exact;
+    private ProximityMatcher proximity;
+    private boolean stale;
+    private int hits;
+    private final KeywordAutomaton.MatchListener count = (id, end) -> hits++;
+    private final KeywordAutomaton.MatchListener feed = this::onExactMatch;
+
+    // The same rules for the naive evaluator
+    private String[][] ruleTerms;
+    private int[][] ruleDistances;
+    private boolean[] ruleNear;
+
+    @Setup
+    public void setUp() {
+        List<String> words = Corpus.vocabulary();
+        Random r = new Random(7);
+        Set<String> expressions = new LinkedHashSet<>();
+        while (expressions.size() < ruleCount) {
+            boolean near = r.nextBoolean();
+            int terms = near ? 2 : 2 + r.nextInt(2);
+            StringBuilder sb = new StringBuilder(words.get(r.nextInt(words.size())));
+            String last = sb.toString();
+            for (int t = 1; t < terms; t++) {
+                String term = words.get(r.nextInt(words.size()));
+                if (near && term.equals(last)) break;
+                sb.append(near ? " NEAR/" : " THEN/").append(3 + r.nextInt(8)).append(' ').append(term);
+                last = term;
+            }
+            if (sb.indexOf("/") > 0) expressions.add(sb.toString());
+        }
+
+        RuleSet.Builder b = new RuleSet.Builder();
+        ruleTerms = new String[ruleCount][];
+        ruleDistances = new int[ruleCount][];
+        ruleNear = new boolean[ruleCount];
+        int i = 0;
+        for (String e : expressions) {
+            b.addProximity(e, null);
+            String[] parts = e.split(" ");
+            int terms = (parts.length + 1) / 2;
+            ruleTerms[i] = new String[terms];
+            ruleDistances[i] = new int[terms - 1];
+            ruleNear[i] = parts[1].startsWith("NEAR");
+            for (int t = 0; t < terms; t++) ruleTerms[i][t] = parts[2 * t];
+            for (int t = 0; t < terms - 1; t++) {
+                ruleDistances[i][t] = Integer.parseInt(parts[2 * t + 1].substring(5));
+            }
+            i++;
+        }
+        RuleSet rules = b.build();
+        partials = Corpus.partials(Corpus.transcript(utteranceWords, 42));
+        exact = new MatchSession(rules.automaton());
+        proximity = new ProximityMatcher(rules);
+    }
+
+    private String nextPartial() {
+        if (next == partials.length) {
+            next = 0;
+            exact.reset();
+            proximity.reset();
+        }
+        return partials[next++];
+    }
+
+    private void onExactMatch(int id, int end) {
+        if (stale) {
+            proximity.rewind(exact.lastDivergence());
+            stale = false;
+        }
+        proximity.onTerm(id, exact.tokenIndex(), end, count);
+    }
+
+    // The exact matcher alone, for the cost the proximity rules add on top
+    @Benchmark
+    public int exactOnly() {
+        hits = 0;
+        exact.update(nextPartial(), count);
+        return hits;
+    }
+
+    @Benchmark
+    public int compiled() {
+        hits = 0;
+        stale = true;
+        exact.update(nextPartial(), feed);
+        if (stale) proximity.rewind(exact.lastDivergence());
+        return hits;
+    }
+
+    @Benchmark
+    public int naive() {
+        String[] tokens = nextPartial().split(" ");
+        int fired = 0;
+        for (int rule = 0; rule < ruleTerms.length; rule++) {
+            if (naiveMatches(rule, tokens)) fired++;
+        }
+        return fired;
+    }
+
+    // Latest token at which the rule is satisfied up to each term, as ProximityMatcher keeps it
+    private boolean naiveMatches(int rule, String[] tokens) {
+        String[] terms = ruleTerms[rule];
+        int[] distances = ruleDistances[rule];
+        int first = NONE;
+        int second = NONE;
+        int[] pos = new int[terms.length];
+        Arrays.fill(pos, NONE);
+        for (int t = 0; t < tokens.length; t++) {
+            String token = tokens[t];
+            if (ruleNear[rule]) {
+                if (token.equals(terms[0])) first = t;
+                if (token.equals(terms[1])) second = t;
+                if (first != NONE && second != NONE && Math.abs(first - second) <= distances[0]) return true;
+                continue;
+            }
+            for (int s = terms.length - 1; s >= 0; s--) {
+                if (!token.equals(terms[s])) continue;
+                if (s == 0) {
+                    pos[0] = t;
+                } else if (t > pos[s - 1] && t - pos[s - 1] <= distances[s - 1]) {
+                    if (s == terms.length - 1) return true;
+                    pos[s] = t;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,92 @@
+package com.shreyanshi.scamshield.benchmark;
+
+import com.shreyanshi.scamshield.detection.KeywordAutomaton;
+import com.shreyanshi.scamshield.detection.MatchSet;
+import com.shreyanshi.scamshield.detection.RuleSet;
+import com.shreyanshi.scamshield.detection.TextScanner;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * How matching scales with the number of rules (10 to 10k phrases) and the length of the
+ * transcript, against the naive lowercase-and-contains loop the app started with.
+ */
+public class RuleSetBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Rules {
+        @Param({"10", "100", "1000", "10000"})
+        public int ruleCount;
+
+        RuleSet rules;
+        String[] phrases;
+
+        @Setup
+        public void setUp() {
+            rules = Corpus.rules(ruleCount, 7);
+            phrases = new String[rules.size()];
+            for (int id = 0; id < phrases.length; id++) phrases[id] = rules.phrase(id);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Text {
+        @Param({"1", "12", "150", "1500", "" + Corpus.CALL_30_MIN_WORDS})
+        public int words;
+
+        String transcript;
+
+        @Setup
+        public void setUp() {
+            transcript = Corpus.transcript(words, 42);
+        }
+    }
+
+    // Per-thread matching state, since TextScanner is not thread-safe
+    @State(Scope.Thread)
+    public static class Scanner {
+        TextScanner scanner;
+        int hits;
+        final KeywordAutomaton.MatchListener count = (id, end) -> hits++;
+
+        @Setup
+        public void setUp(Rules rules) {
+            scanner = new TextScanner(rules.rules);
+        }
+    }
+
+    // Compiling the automaton and phonetic index, which happens once per app start
+    @Benchmark
+    public RuleSet build(Rules rules) {
+        return new RuleSet.Builder().addAll(Arrays.asList(rules.phrases), RuleSet.SOURCE_RULE).build();
+    }
+
+    @Benchmark
+    public int exact(Rules rules, Text text, Scanner scanner) {
+        scanner.hits = 0;
+        rules.rules.automaton().scan(text.transcript, scanner.count);
+        return scanner.hits;
+    }
+
+    @Benchmark
+    public MatchSet exactAndFuzzy(Scanner scanner, Text text) {
+        return scanner.scanner.scan(text.transcript);
+    }
+
+    @Benchmark
+    public int naiveContains(Rules rules, Text text) {
+        String lower = text.transcript.toLowerCase(Locale.ROOT);
+        int found = 0;
+        for (String p : rules.phrases) {
+            if (lower.contains(p)) found++;
+        }
+        return found;
+    }
+}
@@ -0,0 +1,121 @@
+package com.shreyanshi.scamshield.benchmark;
+
+import com.shreyanshi.scamshield.audio.VoiceActivityDetector;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Voice activity gating over a synthetic call, in the 100 ms frames AudioPipeline hands
+ * the recognizer: ringback, turns of speech with pauses between them, a stretch of hold
+ * music and line hiss throughout. The score is the detector's cost per frame; the
+ * counters say how much of the call it passed to the recognizer, which is the share of
+ * decoding left after gating. There are no recorded calls in the repo to replay, and
+ * Vosk doesn't run off-device, so the CPU actually saved is read from AudioPipeline's
+ * counters on a phone.
+ */
+@State(Scope.Thread)
+public class VoiceActivityBenchmark {
+
+    private static final int RATE = 16_000;
+    private static final int FRAME_SAMPLES = RATE / 10;
+
+    private byte[][] call;
+    // Which frames of the call are speech, to compare the gate against
+    private boolean[] speech;
+    private VoiceActivityDetector vad;
+    private int next;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Gate {
+        public long decoded;
+        public long skipped;
+        // frames that were speech; decoded beyond this is hangover and false alarms
+        public long speech;
+    }
+
+    @Setup
+    public void setUp() {
+        List<Boolean> kinds = new ArrayList<>();
+        call = callFrames(new Random(11), kinds);
+        speech = new boolean[kinds.size()];
+        for (int i = 0; i < speech.length; i++) speech[i] = kinds.get(i);
+        vad = new VoiceActivityDetector(RATE);
+    }
+
+    @Benchmark
+    public boolean gate(Gate gate) {
+        if (next == call.length) {
+            next = 0;
+            vad.reset();
+        }
+        if (speech[next]) gate.speech++;
+        byte[] frame = call[next++];
+        boolean open = vad.process(frame, frame.length);
+        if (open) gate.decoded++;
+        else gate.skipped++;
+        return open;
+    }
+
+    // About a minute of call: what each part is and how many frames it lasts
+    private static byte[][] callFrames(Random r, List<Boolean> speech) {
+        List<byte[]> frames = new ArrayList<>();
+        add(frames, speech, r, "ring", 40);
+        for (int turn = 0; turn < 6; turn++) {
+            add(frames, speech, r, "speech", 30 + r.nextInt(30));
+            add(frames, speech, r, "pause", 10 + r.nextInt(30));
+        }
+        add(frames, speech, r, "hold", 100);
+        for (int turn = 0; turn < 3; turn++) {
+            add(frames, speech, r, "speech", 30 + r.nextInt(30));
+            add(frames, speech, r, "pause", 10 + r.nextInt(30));
+        }
+        return frames.toArray(new byte[0][]);
+    }
+
+    private static void add(List<byte[]> frames, List<Boolean> speech, Random r, String kind, int count) {
+        int base = frames.size();
+        for (int f = 0; f < count; f++) {
+            frames.add(frame(r, kind, base + f));
+            speech.add(kind.equals("speech"));
+        }
+    }
+
+    private static byte[] frame(Random r, String kind, int index) {
+        byte[] pcm = new byte[FRAME_SAMPLES * 2];
+        for (int i = 0; i < FRAME_SAMPLES; i++) {
+            double t = (index * FRAME_SAMPLES + i) / (double) RATE;
+            double s = r.nextGaussian() * 60;
+            switch (kind) {
+                case "ring":
+                    // 425 Hz, one second on and two off
+                    if (t % 3 < 1) s += 3000 * Math.sin(2 * Math.PI * 425 * t);
+                    break;
+                case "speech":
+                    double envelope = Math.max(0, Math.sin(2 * Math.PI * 4 * t));
+                    double pitch = 120 + 30 * Math.sin(2 * Math.PI * 0.7 * t);
+                    for (int k = 1; k <= 8; k++) s += envelope * 3000 / k * Math.sin(2 * Math.PI * pitch * k * t);
+                    break;
+                case "hold":
+                    // a steady chord
+                    s += 1500 * (Math.sin(2 * Math.PI * 262 * t) + Math.sin(2 * Math.PI * 330 * t)
+                            + Math.sin(2 * Math.PI * 392 * t));
+                    break;
+                default:
+                    break;
+            }
+            int v = (int) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, s));
+            pcm[2 * i] = (byte) v;
+            pcm[2 * i + 1] = (byte) (v >> 8);
+        }
+        return pcm;
+    }
+}
@@ -0,0 +1,128 @@
+package com.shreyanshi.scamshield.audio;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Fixed ring of direct audio frames between exactly one producer thread (the capture
+ * loop) and one consumer thread (the recognizer). No locks and no allocation after
+ * construction: each side owns its sequence counter and only publishes it.
+ *
+ * <p>Producer: {@link #claim()} a free frame, fill it, {@link #publish()}. When the
+ * consumer has fallen a whole ring behind there is no free frame; claim returns null and
+ * counts an overrun, and the producer should drop that audio rather than wait for it.
+ * <br>Consumer: {@link #take(long)} the oldest frame, read it, {@link #release()}.
+ */
+public final class FrameRing {
+
+    private final ByteBuffer[] frames;
+    // The producer's timestamp for each frame, e.g. when it was captured
+    private final long[] stamps;
+    private final int mask;
+
+    // Next sequence to write and to read; frames [tail, head) are readable
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private volatile Thread consumer;
+
+    // Written by the producer only
+    private volatile long overruns;
+    private volatile long published;
+    // Written by the consumer only
+    private volatile int maxDepth;
+
+    /**
+     * @param frames     number of frames, rounded up to a power of two
+     * @param frameBytes capacity of each frame
+     */
+    public FrameRing(int frames, int frameBytes) {
+        int n = Integer.highestOneBit(Math.max(2, frames) - 1) << 1;
+        this.frames = new ByteBuffer[n];
+        for (int i = 0; i < n; i++) this.frames[i] = ByteBuffer.allocateDirect(frameBytes);
+        this.stamps = new long[n];
+        this.mask = n - 1;
+    }
+
+    public int capacity() {
+        return frames.length;
+    }
+
+    public int frameBytes() {
+        return frames[0].capacity();
+    }
+
+    /** Producer: the next free frame, cleared, or null if the ring is full. */
+    public ByteBuffer claim() {
+        long h = head.get();
+        if (h - tail.get() == frames.length) {
+            overruns++;
+            return null;
+        }
+        ByteBuffer b = frames[(int) h & mask];
+        b.clear();
+        return b;
+    }
+
+    /** Producer: make the claimed frame readable, from 0 to its position. */
+    public void publish() {
+        publish(0);
+    }
+
+    /** Producer: publish the claimed frame with a timestamp the consumer reads back from {@link #stamp()}. */
+    public void publish(long stamp) {
+        long h = head.get();
+        frames[(int) h & mask].flip();
+        stamps[(int) h & mask] = stamp;
+        // a full set, not lazySet: the store has to land before consumer is read below, or
+        // take() can see the old head, park, and sleep through this frame
+        head.set(h + 1);
+        published++;
+        Thread c = consumer;
+        if (c != null) LockSupport.unpark(c);
+    }
+
+    /** Consumer: the oldest readable frame, or null if none arrived within timeoutNanos. */
+    public ByteBuffer take(long timeoutNanos) {
+        long t = tail.get();
+        if (head.get() == t) {
+            consumer = Thread.currentThread();
+            // check again so a publish between the first check and registering isn't missed
+            if (head.get() == t) LockSupport.parkNanos(this, timeoutNanos);
+            consumer = null;
+            if (head.get() == t) return null;
+        }
+        int depth = (int) (head.get() - t);
+        if (depth > maxDepth) maxDepth = depth;
+        return frames[(int) t & mask];
+    }
+
+    /** Consumer: the timestamp published with the frame from the last take. */
+    public long stamp() {
+        return stamps[(int) tail.get() & mask];
+    }
+
+    /** Consumer: hand the frame from the last take back to the producer. */
+    public void release() {
+        tail.lazySet(tail.get() + 1);
+    }
+
+    // Frames waiting for the consumer right now
+    public int depth() {
+        return (int) (head.get() - tail.get());
+    }
+
+    // Most frames the consumer ever found waiting; a rising value means it is falling behind
+    public int maxDepth() {
+        return maxDepth;
+    }
+
+    // Frames the producer had to drop because the ring was full
+    public long overruns() {
+        return overruns;
+    }
+
+    public long published() {
+        return published;
+    }
+}
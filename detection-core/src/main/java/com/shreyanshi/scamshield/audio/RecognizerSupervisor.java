@@ -0,0 +1,227 @@
+package com.shreyanshi.scamshield.audio;
+
+/**
+ * Keeps a recognizer that stops after every utterance, such as Android's SpeechRecognizer,
+ * listening with as little dead air as possible. It alternates between two of them: once
+ * one hears the end of speech it stops taking audio while it works out its results, so the
+ * other one starts right away instead of after those results arrive. A session that ends
+ * with no other one under way is restarted at once, or after the {@link RestartPacer}'s
+ * delay if it heard nothing. If the service turns the second recognizer away as busy, it
+ * is retried every {@link #BUSY_RETRY_MS} until the first one is done.
+ *
+ * <p>Time with no session listening is counted as uncovered audio, the part of the call
+ * nobody heard; {@link #pausedMs()} is the share of it spent deliberately backing off on
+ * a silent line. Forward each recognizer's callbacks with its index. Call everything on
+ * one thread, the one the host runs tasks on.
+ */
+public final class RecognizerSupervisor {
+
+    static final long BUSY_RETRY_MS = 100;
+    // Delay after the nth start failure in a row, doubling up to the maximum
+    private static final long FAILURE_RETRY_MS = 500;
+    private static final long MAX_FAILURE_RETRY_MS = 8_000;
+
+    /** One recognizer instance; a session runs from startListening until its results or an error. */
+    public interface Recognizer {
+        void startListening();
+
+        void cancel();
+    }
+
+    /** Clock and delayed tasks, e.g. SystemClock and a Handler. */
+    public interface Host {
+        long nowMs();
+
+        void postDelayed(Runnable task, long delayMs);
+
+        void removeCallbacks(Runnable task);
+    }
+
+    private static final int IDLE = 0;
+    // startListening called, not ready yet
+    private static final int STARTING = 1;
+    private static final int LISTENING = 2;
+    // past the end of speech, waiting for results; no longer takes audio
+    private static final int FINISHING = 3;
+
+    private final Recognizer[] recognizers;
+    private final int[] state = new int[2];
+    private final Host host;
+    private final RestartPacer pacer;
+    private final Runnable startTask = this::startNext;
+
+    private boolean running;
+    private int next;
+    private int startFailures;
+    // When no session has been listening since, or -1 while one is
+    private long gapSince = -1;
+    private long startedAt;
+    private long stoppedAt = -1;
+
+    private long sessions;
+    private long handoffs;
+    private long gaps;
+    private long uncoveredMs;
+    private long maxGapMs;
+    private long pausedMs;
+
+    public RecognizerSupervisor(Recognizer first, Recognizer second, RestartPacer pacer, Host host) {
+        this.recognizers = new Recognizer[]{first, second};
+        this.pacer = pacer;
+        this.host = host;
+    }
+
+    public void start() {
+        if (running) return;
+        running = true;
+        long now = host.nowMs();
+        startedAt = now;
+        stoppedAt = -1;
+        gapSince = now;
+        startNext();
+    }
+
+    public void stop() {
+        if (!running) return;
+        running = false;
+        host.removeCallbacks(startTask);
+        for (int i = 0; i < 2; i++) {
+            if (state[i] != IDLE) recognizers[i].cancel();
+            state[i] = IDLE;
+        }
+        stoppedAt = host.nowMs();
+        closeGap(stoppedAt);
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public void onReadyForSpeech(int index) {
+        if (!running || state[index] != STARTING) return;
+        state[index] = LISTENING;
+        startFailures = 0;
+        sessions++;
+        pacer.onSessionStart();
+        closeGap(host.nowMs());
+    }
+
+    public void onRmsChanged(int index, float rmsDb) {
+        if (running && state[index] == LISTENING) pacer.onLevel(rmsDb, host.nowMs());
+    }
+
+    public void onEndOfSpeech(int index) {
+        if (!running || state[index] != LISTENING) return;
+        state[index] = FINISHING;
+        openGap(host.nowMs());
+        // someone is talking; have the other recognizer take over while this one decodes
+        handoffs++;
+        startNext();
+    }
+
+    public void onResults(int index) {
+        onSessionEnd(index, false);
+    }
+
+    /** @param busy the service refused to start another session while one is running */
+    public void onError(int index, boolean busy) {
+        onSessionEnd(index, busy);
+    }
+
+    private void onSessionEnd(int index, boolean busy) {
+        if (!running) return;
+        int was = state[index];
+        state[index] = IDLE;
+        if (was == STARTING && busy) {
+            // the other one is still finishing; try again shortly or as soon as it is done
+            schedule(BUSY_RETRY_MS);
+        } else if (was == STARTING || was == LISTENING) {
+            openGap(host.nowMs());
+            long delay = pacer.nextDelayMs(0);
+            pausedMs += delay;
+            schedule(delay);
+        } else {
+            // a finishing session reported back; if a start was waiting for it, go now
+            startNext();
+        }
+    }
+
+    private void schedule(long delayMs) {
+        host.removeCallbacks(startTask);
+        if (delayMs <= 0) startNext();
+        else host.postDelayed(startTask, delayMs);
+    }
+
+    // Start a session unless one is already starting or listening
+    private void startNext() {
+        if (!running) return;
+        int idle = -1;
+        for (int k = 0; k < 2; k++) {
+            int i = (next + k) % 2;
+            if (state[i] == STARTING || state[i] == LISTENING) return;
+            if (idle < 0 && state[i] == IDLE) idle = i;
+        }
+        // both still finishing; whichever reports back first starts again
+        if (idle < 0) return;
+        host.removeCallbacks(startTask);
+        next = 1 - idle;
+        state[idle] = STARTING;
+        try {
+            recognizers[idle].startListening();
+        } catch (RuntimeException e) {
+            state[idle] = IDLE;
+            startFailures++;
+            schedule(Math.min(MAX_FAILURE_RETRY_MS, FAILURE_RETRY_MS << Math.min(startFailures - 1, 4)));
+        }
+    }
+
+    private void openGap(long now) {
+        if (gapSince >= 0) return;
+        for (int s : state) {
+            if (s == LISTENING) return;
+        }
+        gapSince = now;
+    }
+
+    private void closeGap(long now) {
+        if (gapSince < 0) return;
+        long gap = now - gapSince;
+        gapSince = -1;
+        gaps++;
+        uncoveredMs += gap;
+        if (gap > maxGapMs) maxGapMs = gap;
+    }
+
+    // Sessions that got as far as listening
+    public long sessions() {
+        return sessions;
+    }
+
+    // Sessions that started while the previous one was still working out its results
+    public long handoffs() {
+        return handoffs;
+    }
+
+    public long gaps() {
+        return gaps;
+    }
+
+    // Time nobody was listening, including a gap still open now
+    public long uncoveredMs() {
+        return uncoveredMs + (gapSince >= 0 ? host.nowMs() - gapSince : 0);
+    }
+
+    public long maxGapMs() {
+        return maxGapMs;
+    }
+
+    // Of the uncovered time, how much was spent backing off on a silent line
+    public long pausedMs() {
+        return pausedMs;
+    }
+
+    // Time since start, or from start to stop
+    public long elapsedMs() {
+        return (stoppedAt >= 0 ? stoppedAt : host.nowMs()) - startedAt;
+    }
+}
@@ -0,0 +1,70 @@
+package com.shreyanshi.scamshield.audio;
+
+/**
+ * Paces restarts of a recognizer whose audio we can't gate, such as Android's
+ * SpeechRecognizer, which ends its session after every utterance or timeout. Feed it the
+ * recognizer's level readings; when a session ends, {@link #nextDelayMs} says how long to
+ * wait before the next one. After a session that heard speech that is the normal delay;
+ * after a silent one it is at least {@link #SILENT_DELAY_MS}, so a quiet line doesn't
+ * restart in a tight loop. It never grows past that: nothing is heard while we wait, and
+ * the first words after a pause are often the ones that matter. Not thread-safe.
+ */
+public final class RestartPacer {
+
+    static final long SILENT_DELAY_MS = 250;
+
+    private final VoiceActivityDetector vad;
+
+    private long lastLevelMs = -1;
+    private boolean heardSpeech;
+
+    private long sessions;
+    private long silentTotal;
+    private long deferredMs;
+
+    public RestartPacer(VoiceActivityDetector vad) {
+        this.vad = vad;
+    }
+
+    /** A recognizer session began listening. */
+    public void onSessionStart() {
+        heardSpeech = false;
+        lastLevelMs = -1;
+        sessions++;
+    }
+
+    /** A level reading, e.g. from onRmsChanged, taken at nowMs on any monotonic clock. */
+    public void onLevel(float db, long nowMs) {
+        // readings come about every 50 ms
+        int elapsed = lastLevelMs < 0 ? 50 : (int) Math.min(1_000, nowMs - lastLevelMs);
+        lastLevelMs = nowMs;
+        if (vad.onLevel(db, elapsed)) heardSpeech = true;
+    }
+
+    /** Delay before restarting after a session ends; normalDelayMs if it heard speech. */
+    public long nextDelayMs(long normalDelayMs) {
+        if (heardSpeech) return normalDelayMs;
+        silentTotal++;
+        long delay = Math.max(normalDelayMs, SILENT_DELAY_MS);
+        deferredMs += delay - normalDelayMs;
+        return delay;
+    }
+
+    public boolean heardSpeech() {
+        return heardSpeech;
+    }
+
+    public long sessions() {
+        return sessions;
+    }
+
+    // Sessions that ended without hearing speech
+    public long silentSessions() {
+        return silentTotal;
+    }
+
+    // Listening time given up by backing off; each second is a second the recognizer didn't run
+    public long deferredMs() {
+        return deferredMs;
+    }
+}
@@ -0,0 +1,139 @@
+package com.shreyanshi.scamshield.audio;
+
+/**
+ * Tells speech from silence, line noise and hold music so recognizers can skip what
+ * isn't speech. Audio is judged in 20 ms windows:
+ * <ul>
+ *   <li>energy must clear an adaptive noise floor, which follows quiet stretches down
+ *       quickly and creeps up slowly, so a noisy line raises it and speech doesn't</li>
+ *   <li>a high zero-crossing rate at modest energy is hiss, not voice</li>
+ *   <li>energy that barely varies over the last second is a tone or music; speech rises
+ *       and falls with every syllable</li>
+ * </ul>
+ * The gate opens after {@link #ATTACK_WINDOWS} speech windows in a row and stays open
+ * for {@link #HANGOVER_MS} after the last one, so pauses between words don't cut an
+ * utterance. Not thread-safe; does not allocate.
+ */
+public final class VoiceActivityDetector {
+
+    static final int WINDOW_MS = 20;
+    static final int ATTACK_WINDOWS = 2;
+    static final int HANGOVER_MS = 400;
+
+    // Above the noise floor, in dB, for a window to count as loud
+    private static final float MARGIN_DB = 9f;
+    // The same for recognizer level readings, which span only about 12 dB from silence to shouting
+    private static final float LEVEL_MARGIN_DB = 4f;
+    // Noise floor rise per second while it is below the signal
+    private static final float FLOOR_RISE_DB_PER_S = 2f;
+    // Zero crossings per sample above which modest energy is taken for hiss
+    private static final float MAX_ZCR = 0.3f;
+    // Energy spread over STEADY_WINDOWS below which a loud signal is a tone or music
+    private static final float STEADY_DB = 2f;
+    private static final int STEADY_WINDOWS = 1000 / WINDOW_MS;
+
+    private final int windowSamples;
+
+    private float floorDb = Float.NaN;
+    private final float[] recentDb = new float[STEADY_WINDOWS];
+    private int recent;
+    private int loudRun;
+    private int sinceSpeechMs = Integer.MAX_VALUE / 2;
+    private boolean open;
+
+    public VoiceActivityDetector(int sampleRate) {
+        this.windowSamples = Math.max(1, sampleRate * WINDOW_MS / 1000);
+    }
+
+    public void reset() {
+        floorDb = Float.NaN;
+        recent = 0;
+        loudRun = 0;
+        sinceSpeechMs = Integer.MAX_VALUE / 2;
+        open = false;
+    }
+
+    // Whether the gate is open after the last input
+    public boolean isSpeech() {
+        return open;
+    }
+
+    /**
+     * Judge a frame of 16-bit little-endian mono PCM.
+     *
+     * @return true if the gate was open at any point in the frame
+     */
+    public boolean process(byte[] pcm, int length) {
+        boolean any = false;
+        int samples = length / 2;
+        for (int start = 0; start < samples; start += windowSamples) {
+            int end = Math.min(samples, start + windowSamples);
+            double energy = 0;
+            int crossings = 0;
+            int previous = sample(pcm, start);
+            for (int i = start; i < end; i++) {
+                int s = sample(pcm, i);
+                energy += (double) s * s;
+                if ((s < 0) != (previous < 0)) crossings++;
+                previous = s;
+            }
+            int n = end - start;
+            float db = (float) (10 * Math.log10(energy / n + 1));
+            any |= update(db, (float) crossings / n, MARGIN_DB, Math.max(1, n * WINDOW_MS / windowSamples));
+        }
+        return any;
+    }
+
+    /**
+     * Judge a level reading from a recognizer that only reports loudness, such as
+     * SpeechRecognizer's onRmsChanged; its dB scale is arbitrary, only changes matter.
+     *
+     * @param elapsedMs time since the previous reading
+     */
+    public boolean onLevel(float db, int elapsedMs) {
+        return update(db, Float.NaN, LEVEL_MARGIN_DB, Math.max(1, elapsedMs));
+    }
+
+    private boolean update(float db, float zcr, float margin, int ms) {
+        if (Float.isNaN(floorDb) || db < floorDb) {
+            floorDb = db;
+        } else {
+            floorDb += FLOOR_RISE_DB_PER_S * ms / 1000f;
+        }
+        recentDb[recent++ % STEADY_WINDOWS] = db;
+
+        boolean loud = db > floorDb + margin;
+        // hiss crosses zero constantly; fricatives do too, but only loud ones get through
+        if (loud && !Float.isNaN(zcr) && zcr > MAX_ZCR) loud = db > floorDb + 2 * margin;
+        if (loud && isSteady(margin)) loud = false;
+
+        loudRun = loud ? loudRun + 1 : 0;
+        if (loudRun >= ATTACK_WINDOWS || (open && loud)) {
+            sinceSpeechMs = 0;
+            open = true;
+        } else {
+            sinceSpeechMs += ms;
+            if (sinceSpeechMs > HANGOVER_MS) open = false;
+        }
+        return open;
+    }
+
+    // Loud for the whole last second with almost no change in level
+    private boolean isSteady(float margin) {
+        if (recent < STEADY_WINDOWS) return false;
+        double sum = 0;
+        double sumSq = 0;
+        for (float v : recentDb) {
+            if (v <= floorDb + margin) return false;
+            sum += v;
+            sumSq += v * v;
+        }
+        double mean = sum / STEADY_WINDOWS;
+        double variance = sumSq / STEADY_WINDOWS - mean * mean;
+        return variance < STEADY_DB * STEADY_DB;
+    }
+
+    private static int sample(byte[] pcm, int i) {
+        return (short) ((pcm[2 * i] & 0xff) | (pcm[2 * i + 1] << 8));
+    }
+}
@@ -0,0 +1,107 @@
+package com.shreyanshi.scamshield.detection;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Hands alerts from detection to whatever shows them in the same process, without going
+ * through an Intent and the system server. Only the latest alert matters: while one is
+ * waiting to be delivered, a newer one replaces it, so a burst of matches costs the
+ * subscriber a single update. Publish from any thread; the subscriber is called on its
+ * executor, e.g. the main thread's.
+ */
+public final class AlertChannel {
+
+    public interface Subscriber {
+        // raisedAtMs is the publisher's timestamp, for measuring delivery latency
+        void onAlert(String keywords, long raisedAtMs);
+    }
+
+    private final Object lock = new Object();
+    private final Runnable deliverTask = this::deliver;
+
+    // Guarded by lock
+    private Subscriber subscriber;
+    private Executor executor;
+    private boolean posted;
+    private String keywords;
+    private long raisedAtMs;
+    private long published;
+    private long coalesced;
+    private long delivered;
+
+    /** Replaces any earlier subscriber. */
+    public void subscribe(Subscriber subscriber, Executor executor) {
+        synchronized (lock) {
+            this.subscriber = subscriber;
+            this.executor = executor;
+        }
+    }
+
+    public void unsubscribe(Subscriber subscriber) {
+        synchronized (lock) {
+            if (this.subscriber != subscriber) return;
+            this.subscriber = null;
+            this.executor = null;
+            keywords = null;
+        }
+    }
+
+    /**
+     * Deliver an alert to the subscriber.
+     *
+     * @return false if nobody is subscribed; the caller has to reach the UI another way
+     */
+    public boolean publish(String keywords, long raisedAtMs) {
+        Executor post;
+        synchronized (lock) {
+            if (subscriber == null) return false;
+            published++;
+            this.keywords = keywords;
+            this.raisedAtMs = raisedAtMs;
+            if (posted) {
+                coalesced++;
+                return true;
+            }
+            posted = true;
+            post = executor;
+        }
+        post.execute(deliverTask);
+        return true;
+    }
+
+    private void deliver() {
+        Subscriber s;
+        String k;
+        long at;
+        synchronized (lock) {
+            posted = false;
+            // unsubscribed since it was posted
+            if (subscriber == null || keywords == null) return;
+            s = subscriber;
+            k = keywords;
+            at = raisedAtMs;
+            keywords = null;
+            delivered++;
+        }
+        s.onAlert(k, at);
+    }
+
+    public long published() {
+        synchronized (lock) {
+            return published;
+        }
+    }
+
+    // Alerts replaced by a newer one before they were delivered
+    public long coalesced() {
+        synchronized (lock) {
+            return coalesced;
+        }
+    }
+
+    public long delivered() {
+        synchronized (lock) {
+            return delivered;
+        }
+    }
+}
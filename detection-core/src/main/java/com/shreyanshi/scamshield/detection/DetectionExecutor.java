@@ -0,0 +1,207 @@
+package com.shreyanshi.scamshield.detection;
+
+/**
+ * Runs detection on a worker thread of its own, so recognizer callbacks only copy the
+ * hypothesis and return. Hypotheses wait in a bounded queue of reusable slots.
+ *
+ * <p>A partial result repeats the whole utterance so far, so while one is still waiting,
+ * a newer hypothesis from the same stream replaces it in place and only the latest gets
+ * evaluated. Final results are never replaced: what comes after them starts a new
+ * utterance. If the queue is full anyway, the new hypothesis is dropped and counted.
+ * Submit from any thread; nothing is allocated per hypothesis once the slots have grown
+ * to the longest one.
+ */
+public final class DetectionExecutor {
+
+    public static final int DEFAULT_CAPACITY = 16;
+
+    public interface Handler {
+        // On the worker thread; text is reused once this returns. stamp is the submitter's, e.g. when it was
+        // recognized, and capturedAt when the audio behind it was captured, or stamp if that isn't known
+        void onHypothesis(int stream, CharSequence text, boolean partial, long stamp, long capturedAt);
+    }
+
+    private static final class Slot {
+        final StringBuilder text = new StringBuilder(256);
+        int stream;
+        boolean partial;
+        long stamp;
+        long capturedAt;
+    }
+
+    private final Handler handler;
+    private final String name;
+    private final Object lock = new Object();
+    // Waiting slots, oldest at head; the worker swaps its spare for the one it takes
+    private final Slot[] queue;
+    private int head;
+    private int size;
+    private Slot spare = new Slot();
+    private boolean shutdown;
+    private Thread worker;
+
+    // Guarded by lock
+    private long submitted;
+    private long coalesced;
+    private long dropped;
+    private int maxDepth;
+    // Written by the worker only
+    private volatile long processed;
+    private volatile long failures;
+
+    public DetectionExecutor(String name, int capacity, Handler handler) {
+        this.name = name;
+        this.handler = handler;
+        this.queue = new Slot[Math.max(1, capacity)];
+        for (int i = 0; i < queue.length; i++) queue[i] = new Slot();
+    }
+
+    public void start() {
+        synchronized (lock) {
+            if (worker != null) return;
+            worker = new Thread(this::run, name);
+        }
+        worker.start();
+    }
+
+    /** Evaluate what is queued, then let the worker exit. Later submits are dropped. */
+    public void shutdown() {
+        synchronized (lock) {
+            shutdown = true;
+            lock.notifyAll();
+        }
+    }
+
+    // Wait for the worker to finish after shutdown; false if it is still running
+    public boolean awaitTermination(long timeoutMs) throws InterruptedException {
+        Thread t;
+        synchronized (lock) {
+            t = worker;
+        }
+        if (t == null) return true;
+        t.join(timeoutMs);
+        return !t.isAlive();
+    }
+
+    /**
+     * Queue a hypothesis for evaluation; text is copied before this returns.
+     *
+     * @return false if it was dropped because the queue was full or shut down
+     */
+    public boolean submit(int stream, CharSequence text, boolean partial) {
+        return submit(stream, text, partial, 0);
+    }
+
+    /** Like {@link #submit(int, CharSequence, boolean)}, with a stamp handed back to the handler. */
+    public boolean submit(int stream, CharSequence text, boolean partial, long stamp) {
+        return submit(stream, text, partial, stamp, stamp);
+    }
+
+    /** Like {@link #submit(int, CharSequence, boolean, long)}, also carrying when its audio was captured. */
+    public boolean submit(int stream, CharSequence text, boolean partial, long stamp, long capturedAt) {
+        synchronized (lock) {
+            submitted++;
+            if (shutdown) {
+                dropped++;
+                return false;
+            }
+            Slot slot = latest(stream);
+            if (slot != null && slot.partial) {
+                coalesced++;
+            } else if (size == queue.length) {
+                dropped++;
+                return false;
+            } else {
+                slot = queue[(head + size++) % queue.length];
+                slot.stream = stream;
+                if (size > maxDepth) maxDepth = size;
+                lock.notifyAll();
+            }
+            slot.text.setLength(0);
+            slot.text.append(text);
+            slot.partial = partial;
+            slot.stamp = stamp;
+            slot.capturedAt = capturedAt;
+            return true;
+        }
+    }
+
+    // The most recently queued slot of stream, or null
+    private Slot latest(int stream) {
+        for (int i = size - 1; i >= 0; i--) {
+            Slot s = queue[(head + i) % queue.length];
+            if (s.stream == stream) return s;
+        }
+        return null;
+    }
+
+    private void run() {
+        while (true) {
+            Slot slot;
+            synchronized (lock) {
+                while (size == 0 && !shutdown) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (size == 0) return;
+                slot = queue[head];
+                queue[head] = spare;
+                head = (head + 1) % queue.length;
+                size--;
+            }
+            try {
+                handler.onHypothesis(slot.stream, slot.text, slot.partial, slot.stamp, slot.capturedAt);
+            } catch (RuntimeException e) {
+                // one bad hypothesis shouldn't end detection for the rest of the call
+                failures++;
+            }
+            processed++;
+            spare = slot;
+        }
+    }
+
+    // Hypotheses waiting right now
+    public int depth() {
+        synchronized (lock) {
+            return size;
+        }
+    }
+
+    public int maxDepth() {
+        synchronized (lock) {
+            return maxDepth;
+        }
+    }
+
+    public long submitted() {
+        synchronized (lock) {
+            return submitted;
+        }
+    }
+
+    // Partials replaced by a newer hypothesis before they were evaluated
+    public long coalesced() {
+        synchronized (lock) {
+            return coalesced;
+        }
+    }
+
+    // Hypotheses lost because the queue was full of final results
+    public long dropped() {
+        synchronized (lock) {
+            return dropped;
+        }
+    }
+
+    public long processed() {
+        return processed;
+    }
+
+    // Hypotheses whose handler threw
+    public long failures() {
+        return failures;
+    }
+}
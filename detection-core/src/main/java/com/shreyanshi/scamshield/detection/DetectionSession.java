@@ -0,0 +1,150 @@
+package com.shreyanshi.scamshield.detection;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Everything one call needs to go from recognizer text to an alert decision: an
+ * incremental {@link MatchSession} and a {@link FuzzyMatcher} over the current hypothesis,
+ * a {@link ProximityMatcher} fed by the exact matches, and an {@link EntityScanner} over
+ * its {@link NumberNormalizer normalized} form, all feeding a {@link RiskScorer}.
+ *
+ * <p>{@link #commit()} after a final result carries the exact and proximity matching over
+ * into the next utterance, so phrases split between recognizer sessions still match.
+ * Fuzzy and entity matches stay within one hypothesis. Not thread-safe; callers that get results on several threads must synchronize.
+ */
+public final class DetectionSession {
+
+    private final RuleSet rules;
+    private final MatchSession matcher;
+    // Alternatives are matched from scratch, but through a session so proximity rules see word positions
+    private final MatchSession alternative;
+    private final FuzzyMatcher fuzzy;
+    private final ProximityMatcher proximity;
+    private final ProximityMatcher alternativeProximity;
+    private final NumberNormalizer numbers;
+    private final NumberNormalizer alternativeNumbers;
+    private final EntityScanner entities;
+    private final RiskScorer scorer;
+    private final MatchSet matches;
+    private final int[] active = new int[RiskScorer.CAPACITY];
+
+    private long now;
+    private boolean alert;
+    // Set by update until the first exact match undoes the proximity hits being reported again
+    private boolean proximityStale;
+    private final KeywordAutomaton.MatchListener matchListener = this::onMatch;
+    private final KeywordAutomaton.MatchListener exactListener = this::onExactMatch;
+    private final KeywordAutomaton.MatchListener alternativeListener = this::onAlternativeMatch;
+
+    public DetectionSession(RuleSet rules, RiskScorer scorer) {
+        this.rules = rules;
+        this.matcher = new MatchSession(rules.automaton());
+        this.alternative = new MatchSession(rules.automaton());
+        this.fuzzy = new FuzzyMatcher(rules);
+        this.proximity = new ProximityMatcher(rules);
+        this.alternativeProximity = new ProximityMatcher(rules);
+        this.numbers = new NumberNormalizer();
+        this.alternativeNumbers = new NumberNormalizer();
+        this.entities = new EntityScanner(rules);
+        this.scorer = scorer;
+        this.matches = new MatchSet(rules.size());
+    }
+
+    public RiskScorer scorer() {
+        return scorer;
+    }
+
+    // Rules matched by the last update; reused by the next one
+    public MatchSet matches() {
+        return matches;
+    }
+
+    /**
+     * Feed the recognizer's current best hypothesis.
+     *
+     * @return true if the call's risk just crossed the alert threshold
+     */
+    public boolean update(CharSequence hypothesis, long nowMs) {
+        now = nowMs;
+        alert = false;
+        matches.clear();
+        proximityStale = true;
+        matcher.update(hypothesis, exactListener);
+        if (proximityStale) proximity.rewind(matcher.streamDivergence());
+        fuzzy.scan(hypothesis, matcher.lastDivergence(), matchListener);
+        // entities are found in the hypothesis with spoken numbers turned into digits
+        numbers.update(hypothesis, matcher.lastDivergence());
+        entities.scan(numbers.text(), numbers.changedFrom(), matchListener);
+        return alert;
+    }
+
+    // The last hypothesis was final; the next one continues the call after it rather than replacing it
+    public void commit() {
+        matcher.commit();
+        numbers.reset();
+    }
+
+    // One-off text such as a recognizer alternative; scored without disturbing the session
+    public boolean updateAlternative(CharSequence text, long nowMs) {
+        now = nowMs;
+        alert = false;
+        matches.clear();
+        alternativeProximity.reset();
+        alternative.reset();
+        alternative.update(text, alternativeListener);
+        fuzzy.scan(text, 0, matchListener);
+        entities.scan(alternativeNumbers.update(text, 0), 0, matchListener);
+        return alert;
+    }
+
+    /**
+     * Rules behind the current score, highest weight first. Returns how many there are;
+     * read them with {@link #activeRule(int)} until the next call.
+     */
+    public int activeRules(long nowMs) {
+        return scorer.activeRules(nowMs, active);
+    }
+
+    public int activeRule(int i) {
+        return active[i];
+    }
+
+    // Phrases behind the current score, highest weight first. Allocates; call it only for an alert.
+    public List<String> alertPhrases(long nowMs) {
+        int n = activeRules(nowMs);
+        List<String> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) out.add(rules.phrase(active[i]));
+        return out;
+    }
+
+    // Exact matches are also the terms of proximity rules; fuzzy and entity hits are not
+    private void onExactMatch(int ruleId, int end) {
+        if (proximityStale) {
+            // the divergence is known once the matcher starts stepping
+            proximity.rewind(matcher.streamDivergence());
+            proximityStale = false;
+        }
+        proximity.onTerm(ruleId, matcher.tokenIndex(), end, matchListener);
+        onMatch(ruleId, end);
+    }
+
+    private void onAlternativeMatch(int ruleId, int end) {
+        alternativeProximity.onTerm(ruleId, alternative.tokenIndex(), end, matchListener);
+        onMatch(ruleId, end);
+    }
+
+    private void onMatch(int ruleId, int end) {
+        // the passes often find the same rule; score it once per update
+        if (!matches.add(ruleId)) return;
+        if (scorer.onMatch(ruleId, now)) alert = true;
+    }
+
+    public void reset() {
+        matcher.reset();
+        proximity.reset();
+        numbers.reset();
+        scorer.reset();
+        matches.clear();
+    }
+}
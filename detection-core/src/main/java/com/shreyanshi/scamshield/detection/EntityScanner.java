@@ -0,0 +1,340 @@
+package com.shreyanshi.scamshield.detection;
+
+/**
+ * Finds the secrets themselves rather than words about them: one-time codes read out
+ * digit by digit right after a word such as "code" or "otp", Luhn-valid card numbers,
+ * long account numbers, IFSC codes and UPI IDs ("name@okaxis", or spoken as "name at
+ * okaxis"). Each kind is a synthetic rule in the {@link RuleSet} (source
+ * {@link RuleSet#SOURCE_ENTITY}) and is reported to the same listener as phrase matches.
+ *
+ * <p>One hand-written pass over the tokens, classifying each with a small character DFA
+ * and folding consecutive digit groups into one run (with a running Luhn sum), so it costs
+ * about as much as keyword matching. Like {@link FuzzyMatcher} it restarts a few tokens
+ * before the changed text and only reports entities that end in it. Not thread-safe.
+ */
+public final class EntityScanner {
+
+    // Rule phrases for each kind; they name the hit in alerts and are never matched as text
+    public static final String OTP = "otp read out";
+    public static final String CARD = "card number read out";
+    public static final String ACCOUNT = "account number read out";
+    public static final String IFSC = "ifsc code read out";
+    public static final String UPI = "upi id shared";
+
+    private static final int MIN_OTP = 4;
+    private static final int MAX_OTP = 8;
+    private static final int MIN_CARD = 13;
+    private static final int MAX_CARD = 19;
+    private static final int MIN_ACCOUNT = 9;
+    private static final int MAX_ACCOUNT = 18;
+
+    // Words looked back over for a spoken UPI ID: "name at the rate of okaxis"
+    private static final int SPOKEN_UPI_WORDS = 5;
+    // A code word must be among the words this close before a run for it to be an OTP;
+    // restart looks back over SPOKEN_UPI_WORDS, so the scan always sees it
+    private static final int CODE_CONTEXT_WORDS = SPOKEN_UPI_WORDS;
+    // Without one of these, digits in pieces are a date, a price or a time far more often
+    private static final String[] CODE_WORDS = {
+            "otp", "code", "verification", "pin", "password", "passcode"
+    };
+    // Longest stretch of text looked back over for the start of a digit run
+    private static final int MAX_LOOKBACK = 160;
+
+    // UPI handles that are said after "at". Words like "paytm" and "upi" are left out: "paid
+    // at paytm" is ordinary speech, and "name@paytm" written out is still caught.
+    private static final String[] SPOKEN_HANDLES = {
+            "okaxis", "oksbi", "okhdfcbank", "okicici", "ybl", "ibl", "axl", "apl"
+    };
+
+    // Token classes
+    private static final int WORD = 0;
+    private static final int DIGITS = 1;
+    private static final int AMOUNT = 2;
+    private static final int IFSC_CODE = 3;
+    private static final int UPI_ID = 4;
+    private static final int OTHER = 5;
+
+    // Where we are in a spoken UPI ID
+    private static final int SAY_NONE = 0;
+    private static final int SAY_NAME = 1;
+    private static final int SAY_AT = 2;
+    private static final int SAY_THE = 3;
+    private static final int SAY_RATE = 4;
+
+    private final int otpRule;
+    private final int cardRule;
+    private final int accountRule;
+    private final int ifscRule;
+    private final int upiRule;
+
+    // Current run of digit groups
+    private int runDigits;
+    private int runGroups;
+    private int runFirst;
+    private int runSecond;
+    private int runEnd;
+    // Luhn sum of the run if its last digit is not doubled, and if it is
+    private int luhnPlain;
+    private int luhnDoubled;
+
+    // Digit groups in the last token classified as DIGITS
+    private int tokenGroups;
+
+    // Words since the last code word, and whether the current run follows one closely enough
+    private int sinceCodeWord;
+    private boolean runAfterCodeWord;
+
+    private int say;
+
+    private CharSequence text;
+    private KeywordAutomaton.MatchListener listener;
+    private int changedFrom;
+
+    public EntityScanner(RuleSet rules) {
+        otpRule = rules.idOf(OTP);
+        cardRule = rules.idOf(CARD);
+        accountRule = rules.idOf(ACCOUNT);
+        ifscRule = rules.idOf(IFSC);
+        upiRule = rules.idOf(UPI);
+    }
+
+    /**
+     * Report entities in text that end after changedFrom. Pass 0 to look at the whole text.
+     */
+    public void scan(CharSequence text, int changedFrom, KeywordAutomaton.MatchListener listener) {
+        if (text == null) return;
+        this.text = text;
+        this.listener = listener;
+        this.changedFrom = changedFrom;
+        int n = text.length();
+        int i = restart(text, Math.min(changedFrom, n));
+        runDigits = 0;
+        say = SAY_NONE;
+        sinceCodeWord = CODE_CONTEXT_WORDS;
+
+        while (i < n) {
+            while (i < n && Character.isWhitespace(text.charAt(i))) i++;
+            int start = i;
+            while (i < n && !Character.isWhitespace(text.charAt(i))) i++;
+            if (i == start) break;
+            int end = i;
+            // sentence punctuation after a token is not part of it
+            while (end > start && isTrailingPunctuation(text.charAt(end - 1))) end--;
+            if (end == start) {
+                endRun();
+                say = SAY_NONE;
+                continue;
+            }
+
+            int kind = classify(start, end);
+            if (kind == DIGITS) {
+                addToRun(start, end);
+                say = SAY_NONE;
+                // "1 2 3." ends the run at the full stop
+                if (end < i) endRun();
+                continue;
+            }
+            endRun();
+            sinceCodeWord = kind == WORD && isCodeWord(start, end) ? 0 : Math.min(sinceCodeWord + 1, CODE_CONTEXT_WORDS);
+            if (kind == IFSC_CODE) emit(ifscRule, end);
+            else if (kind == UPI_ID) emit(upiRule, end);
+            spoken(kind, start, end);
+        }
+        endRun();
+        this.text = null;
+        this.listener = null;
+    }
+
+    // Start of the token a few words before from, or of the digit run that reaches into it
+    private static int restart(CharSequence text, int from) {
+        int i = from;
+        while (i > 0 && !Character.isWhitespace(text.charAt(i - 1))) i--;
+        int limit = Math.max(0, from - MAX_LOOKBACK);
+        int words = 0;
+        while (i > limit) {
+            int end = i;
+            while (end > 0 && Character.isWhitespace(text.charAt(end - 1))) end--;
+            int start = end;
+            while (start > 0 && !Character.isWhitespace(text.charAt(start - 1))) start--;
+            if (start == end) return 0;
+            if (!isDigitGroup(text, start, end)) {
+                if (words == SPOKEN_UPI_WORDS) break;
+                words++;
+            }
+            i = start;
+        }
+        return i;
+    }
+
+    private static boolean isDigitGroup(CharSequence text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if ((c < '0' || c > '9') && c != '-') return false;
+        }
+        return true;
+    }
+
+    /**
+     * One DFA pass over a token. Digits with hyphens between them are DIGITS, with commas or
+     * points an AMOUNT (prices and "1,00,000" are not secrets); 4 letters, '0' and 6 letters
+     * or digits are an IFSC code; something@letters is a UPI ID.
+     */
+    private int classify(int start, int end) {
+        int len = end - start;
+        int letters = 0;
+        int digits = 0;
+        int groups = 0;
+        int at = -1;
+        boolean amount = false;
+        boolean ifsc = len == 11;
+        char prev = 0;
+
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            int p = i - start;
+            if (c >= '0' && c <= '9') {
+                if (!(prev >= '0' && prev <= '9')) groups++;
+                digits++;
+                if (p < 4 || (p == 4 && c != '0')) ifsc = false;
+            } else if (isAsciiLetter(c)) {
+                letters++;
+                if (p == 4) ifsc = false;
+            } else if (c == '@' && at < 0 && p > 0) {
+                at = p;
+                ifsc = false;
+            } else if ((c == '-' || c == ',' || c == '.' || c == '_') && p > 0 && p < len - 1) {
+                if (c == ',' || c == '.') amount = true;
+                ifsc = false;
+            } else {
+                return OTHER;
+            }
+            prev = c;
+        }
+
+        if (at > 0) return at >= 2 && upiDomain(start + at + 1, end) ? UPI_ID : OTHER;
+        if (ifsc && letters >= 4) return IFSC_CODE;
+        if (letters == 0 && digits > 0) {
+            if (amount) return AMOUNT;
+            tokenGroups = groups;
+            return DIGITS;
+        }
+        return letters > 0 && !amount ? WORD : OTHER;
+    }
+
+    private boolean upiDomain(int start, int end) {
+        if (end - start < 2) return false;
+        for (int i = start; i < end; i++) {
+            if (!isAsciiLetter(text.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    private void addToRun(int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') continue;
+            int d = c - '0';
+            if (runDigits == 0) {
+                runFirst = d;
+                runAfterCodeWord = sinceCodeWord < CODE_CONTEXT_WORDS;
+            }
+            else if (runDigits == 1) runSecond = d;
+            int doubled = d < 5 ? 2 * d : 2 * d - 9;
+            int plain = luhnDoubled + d;
+            luhnDoubled = luhnPlain + doubled;
+            luhnPlain = plain;
+            runDigits++;
+        }
+        runGroups += tokenGroups;
+        runEnd = end;
+    }
+
+    private void endRun() {
+        int digits = runDigits;
+        if (digits == 0) return;
+        runDigits = 0;
+        int groups = runGroups;
+        runGroups = 0;
+        int plain = luhnPlain;
+        luhnPlain = 0;
+        luhnDoubled = 0;
+
+        if (digits >= MIN_CARD && digits <= MAX_CARD && plain % 10 == 0) {
+            emit(cardRule, runEnd);
+        } else if (isPhoneNumber(digits)) {
+            // people read out their own numbers all the time
+        } else if (digits >= MIN_ACCOUNT && digits <= MAX_ACCOUNT) {
+            emit(accountRule, runEnd);
+        } else if (digits >= MIN_OTP && digits <= MAX_OTP && groups > 1 && runAfterCodeWord) {
+            // a single group of 4 to 8 digits is a year, an amount or a PIN code far more
+            // often than a one-time code; codes get read out in pieces, and said to be codes
+            emit(otpRule, runEnd);
+        }
+    }
+
+    // Indian mobile numbers: 10 digits starting 6 to 9, optionally after 91 or 0
+    private boolean isPhoneNumber(int digits) {
+        if (digits == 10) return runFirst >= 6;
+        if (digits == 11) return runFirst == 0 && runSecond >= 6;
+        return digits == 12 && runFirst == 9 && runSecond == 1;
+    }
+
+    // Spoken UPI IDs: name, "at" or "at the rate (of)", then a known handle
+    private void spoken(int kind, int start, int end) {
+        if (kind != WORD) {
+            say = SAY_NONE;
+            return;
+        }
+        if (say == SAY_NAME && is(start, end, "at")) {
+            say = SAY_AT;
+        } else if (say == SAY_AT && is(start, end, "the")) {
+            say = SAY_THE;
+        } else if (say == SAY_THE && is(start, end, "rate")) {
+            say = SAY_RATE;
+        } else if (say == SAY_RATE && is(start, end, "of")) {
+            say = SAY_RATE;
+        } else if ((say == SAY_AT || say == SAY_RATE) && isHandle(start, end)) {
+            emit(upiRule, end);
+            say = SAY_NONE;
+        } else {
+            say = SAY_NAME;
+        }
+    }
+
+    private boolean isCodeWord(int start, int end) {
+        for (String w : CODE_WORDS) {
+            if (is(start, end, w)) return true;
+        }
+        return false;
+    }
+
+    private boolean isHandle(int start, int end) {
+        for (String h : SPOKEN_HANDLES) {
+            if (is(start, end, h)) return true;
+        }
+        return false;
+    }
+
+    // Case-insensitive comparison of a token with a lowercase word
+    private boolean is(int start, int end, String word) {
+        if (end - start != word.length()) return false;
+        for (int i = 0; i < word.length(); i++) {
+            char c = text.charAt(start + i);
+            if (c >= 'A' && c <= 'Z') c = (char) (c + ('a' - 'A'));
+            if (c != word.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private void emit(int ruleId, int end) {
+        if (ruleId >= 0 && end > changedFrom) listener.onMatch(ruleId, end);
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isTrailingPunctuation(char c) {
+        return c == '.' || c == ',' || c == '?' || c == '!' || c == ';' || c == ':';
+    }
+}
@@ -0,0 +1,190 @@
+package com.shreyanshi.scamshield.detection;
+
+/**
+ * Catches rule phrases the recognizer garbled, which exact matching misses:
+ * <ul>
+ *   <li>spelled-out letters such as "o t p" or "oh tee pee", matched exactly against the rules</li>
+ *   <li>words split or misheard, such as "any desk" or "team viewers", matched by phonetic
+ *       key within a small edit distance</li>
+ * </ul>
+ * Looks at n-grams of up to {@link #MAX_WORDS} tokens. Like {@link MatchSession} it only
+ * evaluates n-grams that end in text that changed since the last update, so the cost per
+ * partial result stays proportional to the new text. One instance per session; not thread-safe.
+ */
+public final class FuzzyMatcher {
+
+    static final int MAX_WORDS = 3;
+    // Longer tokens are not words we look for; they break the n-gram window
+    private static final int MAX_TOKEN = 24;
+    // How far before the first changed character we look for the start of an n-gram
+    private static final int LOOKBACK = MAX_WORDS * (MAX_TOKEN + 1);
+
+    // Spoken names of letters, as recognizers write them when someone spells a word
+    private static final String[][] LETTER_NAMES = {
+            {"a", "ay", "eh"}, {"b", "bee", "be"}, {"c", "see", "sea", "cee"}, {"d", "dee"},
+            {"e", "ee"}, {"f", "ef", "eff"}, {"g", "gee", "ji"}, {"h", "aitch", "ach"},
+            {"i", "eye", "aye"}, {"j", "jay"}, {"k", "kay"}, {"l", "el", "ell"}, {"m", "em"},
+            {"n", "en"}, {"o", "oh"}, {"p", "pee"}, {"q", "queue", "cue"}, {"r", "ar", "are"},
+            {"s", "es", "ess"}, {"t", "tee", "tea"}, {"u", "you"}, {"v", "vee"}, {"w"},
+            {"x", "ex"}, {"y", "why"}, {"z", "zee", "zed"}
+    };
+    // The same names bucketed by their first character, with the letter each one stands for
+    private static final String[][] NAMES_BY_FIRST = new String[26][];
+    private static final char[][] LETTERS_BY_FIRST = new char[26][];
+    static {
+        for (int f = 0; f < 26; f++) {
+            int count = 0;
+            for (String[] names : LETTER_NAMES) for (String name : names) if (name.charAt(0) == 'a' + f) count++;
+            NAMES_BY_FIRST[f] = new String[count];
+            LETTERS_BY_FIRST[f] = new char[count];
+            int k = 0;
+            for (String[] names : LETTER_NAMES) {
+                for (String name : names) {
+                    if (name.charAt(0) != 'a' + f) continue;
+                    NAMES_BY_FIRST[f][k] = name;
+                    LETTERS_BY_FIRST[f][k++] = names[0].charAt(0);
+                }
+            }
+        }
+    }
+
+    private final RuleSet rules;
+    private final PhoneticIndex index;
+
+    // Ring of the last MAX_WORDS tokens
+    private final int[] tokenStart = new int[MAX_WORDS];
+    private final int[] tokenEnd = new int[MAX_WORDS];
+    private final char[] tokenLetter = new char[MAX_WORDS];
+    private int tokens;
+
+    private final char[] joined = new char[MAX_WORDS * MAX_TOKEN];
+    private final char[] spelled = new char[MAX_WORDS];
+    private final char[] key = new char[Phonetic.maxKeyLength(MAX_WORDS * MAX_TOKEN)];
+    private final int[] stack;
+    private final int[] row0;
+    private final int[] row1;
+
+    private CharSequence text;
+    private KeywordAutomaton.MatchListener listener;
+    private int matchEnd;
+    private int spelledLength;
+    private final KeywordAutomaton.MatchListener spelledListener = this::onSpelledMatch;
+
+    public FuzzyMatcher(RuleSet rules) {
+        this.rules = rules;
+        this.index = rules.phoneticIndex();
+        this.stack = new int[Math.max(1, index.size)];
+        this.row0 = new int[index.maxKeyLength + 1];
+        this.row1 = new int[index.maxKeyLength + 1];
+    }
+
+    /**
+     * Report rules found in n-grams of text whose last token ends after changedFrom.
+     * Pass 0 to look at the whole text.
+     */
+    public void scan(CharSequence text, int changedFrom, KeywordAutomaton.MatchListener listener) {
+        if (text == null) return;
+        this.text = text;
+        this.listener = listener;
+        int n = text.length();
+        int i = Math.max(0, changedFrom - LOOKBACK);
+        // don't start in the middle of a token
+        if (i > 0) {
+            while (i < n && Character.isLetter(text.charAt(i - 1)) && Character.isLetter(text.charAt(i))) i++;
+        }
+
+        tokens = 0;
+        while (i < n) {
+            while (i < n && !Character.isLetter(text.charAt(i))) {
+                // digits and other symbols break the window
+                if (!Character.isWhitespace(text.charAt(i)) && text.charAt(i) != '-') tokens = 0;
+                i++;
+            }
+            int start = i;
+            while (i < n && Character.isLetter(text.charAt(i))) i++;
+            if (i == start) break;
+            if (i - start > MAX_TOKEN) {
+                tokens = 0;
+                continue;
+            }
+            int k = tokens++ % MAX_WORDS;
+            tokenStart[k] = start;
+            tokenEnd[k] = i;
+            tokenLetter[k] = letterOf(text, start, i);
+            if (i > changedFrom) evaluate(i);
+        }
+        this.text = null;
+        this.listener = null;
+    }
+
+    // Every n-gram ending with the newest token
+    private void evaluate(int end) {
+        matchEnd = end;
+        int words = Math.min(tokens, MAX_WORDS);
+        for (int w = 1; w <= words; w++) {
+            int len = 0;
+            boolean allLetters = true;
+            for (int t = tokens - w; t < tokens; t++) {
+                int k = t % MAX_WORDS;
+                for (int j = tokenStart[k]; j < tokenEnd[k]; j++) joined[len++] = fold(text.charAt(j));
+                allLetters &= tokenLetter[k] != 0;
+                spelled[t - (tokens - w)] = tokenLetter[k];
+            }
+            if (w > 1 && allLetters) matchSpelled(w);
+            if (len >= PhoneticIndex.MIN_LETTERS) matchPhonetic(len, w);
+        }
+    }
+
+    // A run of spelled letters that is exactly a rule phrase, e.g. "o t p"
+    private void matchSpelled(int letters) {
+        spelledLength = letters;
+        int state = KeywordAutomaton.ROOT;
+        KeywordAutomaton automaton = rules.automaton();
+        for (int i = 0; i < letters; i++) state = automaton.step(state, spelled[i]);
+        if (automaton.hasOutput(state)) automaton.emit(state, letters, spelledListener);
+    }
+
+    private void onSpelledMatch(int ruleId, int end) {
+        if (rules.phrase(ruleId).length() == spelledLength) listener.onMatch(ruleId, matchEnd);
+    }
+
+    private void matchPhonetic(int letters, int words) {
+        if (index.size == 0) return;
+        int keyLength = Phonetic.encode(joined, letters, key);
+        if (keyLength < PhoneticIndex.MIN_KEY) return;
+        // short keys and long n-grams must match exactly, or "pass the word" would find "password"
+        int maxDistance = keyLength >= 6 && words <= 2 ? 1 : 0;
+
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            int d = index.distance(key, 0, keyLength, node, row0, row1);
+            if (d <= maxDistance) listener.onMatch(index.rule[node], matchEnd);
+            for (int c = index.firstChild[node]; c != -1; c = index.nextSibling[c]) {
+                if (index.edge[c] >= d - maxDistance && index.edge[c] <= d + maxDistance) stack[top++] = c;
+            }
+        }
+    }
+
+    // The letter a token stands for when someone spells a word, or 0
+    private static char letterOf(CharSequence text, int start, int end) {
+        int len = end - start;
+        if (len > 5) return 0;
+        char first = fold(text.charAt(start));
+        if (first < 'a' || first > 'z') return 0;
+        String[] names = NAMES_BY_FIRST[first - 'a'];
+        for (int n = 0; n < names.length; n++) {
+            String name = names[n];
+            if (name.length() != len) continue;
+            boolean same = true;
+            for (int i = 1; i < len && same; i++) same = fold(text.charAt(start + i)) == name.charAt(i);
+            if (same) return LETTERS_BY_FIRST[first - 'a'][n];
+        }
+        return 0;
+    }
+
+    private static char fold(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : Character.toLowerCase(c);
+    }
+}
@@ -0,0 +1,351 @@
+package com.shreyanshi.scamshield.detection;
+
+/**
+ * Reads a Vosk result straight from its JSON into reused buffers, without building a
+ * JSON tree. Only the fields the detector needs are kept:
+ * <pre>
+ *   {"partial" : "share the otp"}
+ *   {"result" : [{"conf" : 0.93, "end" : 1.02, "start" : 0.6, "word" : "share"}, ...],
+ *    "text" : "share the otp"}
+ * </pre>
+ * The per-word {@code result} (or {@code partial_result}) array is read only when
+ * {@link #setWords(boolean)} is on; everything else is skipped. Words past
+ * {@link #MAX_WORDS} are dropped. Does not allocate; not thread-safe.
+ */
+public final class HypothesisParser {
+
+    public static final int MAX_WORDS = 256;
+
+    // Keys we keep
+    private static final int KEY_OTHER = 0;
+    private static final int KEY_TEXT = 1;
+    private static final int KEY_PARTIAL = 2;
+    private static final int KEY_RESULT = 3;
+    private static final int KEY_PARTIAL_RESULT = 4;
+    private static final int KEY_WORD = 5;
+    private static final int KEY_CONF = 6;
+    private static final int KEY_START = 7;
+    private static final int KEY_END = 8;
+    private static final String[] KEYS = {
+            null, "text", "partial", "result", "partial_result", "word", "conf", "start", "end"
+    };
+
+    private final StringBuilder text = new StringBuilder(256);
+    private final StringBuilder words = new StringBuilder(256);
+    private final int[] wordStart = new int[MAX_WORDS];
+    private final int[] wordEnd = new int[MAX_WORDS];
+    private final float[] confidence = new float[MAX_WORDS];
+    private final float[] startTime = new float[MAX_WORDS];
+    private final float[] endTime = new float[MAX_WORDS];
+    private int wordCount;
+    private boolean readWords;
+    private boolean partial;
+
+    private CharSequence in;
+    private int pos;
+
+    public void setWords(boolean readWords) {
+        this.readWords = readWords;
+    }
+
+    /**
+     * Parse one result; the previous one's values are replaced.
+     *
+     * @return false if json is not an object with a "partial" or "text" string
+     */
+    public boolean parse(CharSequence json) {
+        text.setLength(0);
+        words.setLength(0);
+        wordCount = 0;
+        partial = false;
+        if (json == null) return false;
+        in = json;
+        pos = 0;
+        boolean found;
+        try {
+            found = object();
+        } finally {
+            in = null;
+        }
+        return found;
+    }
+
+    /** The "partial" or "text" value of the last parse; reused by the next one. */
+    public CharSequence text() {
+        return text;
+    }
+
+    // True if the last result was a partial one that the recognizer may still revise
+    public boolean isPartial() {
+        return partial;
+    }
+
+    public int wordCount() {
+        return wordCount;
+    }
+
+    /** Word i is words().subSequence(wordStart(i), wordEnd(i)). */
+    public CharSequence words() {
+        return words;
+    }
+
+    public int wordStart(int i) {
+        return wordStart[i];
+    }
+
+    public int wordEnd(int i) {
+        return wordEnd[i];
+    }
+
+    // Recognizer confidence in word i, 0 to 1
+    public float confidence(int i) {
+        return confidence[i];
+    }
+
+    // Start and end of word i, in seconds since the recognizer started
+    public float startTime(int i) {
+        return startTime[i];
+    }
+
+    public float endTime(int i) {
+        return endTime[i];
+    }
+
+    // The top-level object; true if it had the text
+    private boolean object() {
+        if (!expect('{')) return false;
+        boolean found = false;
+        if (peek() == '}') {
+            pos++;
+            return false;
+        }
+        do {
+            int key = key();
+            if (key < 0 || !expect(':')) return false;
+            if (key == KEY_TEXT || key == KEY_PARTIAL) {
+                text.setLength(0);
+                if (peek() != '"' || !string(text)) return false;
+                partial = key == KEY_PARTIAL;
+                found = true;
+            } else if ((key == KEY_RESULT || key == KEY_PARTIAL_RESULT) && readWords) {
+                if (!wordArray()) return false;
+            } else if (!skipValue()) {
+                return false;
+            }
+        } while (comma());
+        return expect('}') && found;
+    }
+
+    private boolean wordArray() {
+        if (!expect('[')) return false;
+        if (peek() == ']') {
+            pos++;
+            return true;
+        }
+        do {
+            if (!word()) return false;
+        } while (comma());
+        return expect(']');
+    }
+
+    private boolean word() {
+        if (!expect('{')) return false;
+        boolean keep = wordCount < MAX_WORDS;
+        int i = wordCount;
+        if (keep) {
+            if (words.length() > 0) words.append(' ');
+            wordStart[i] = words.length();
+            wordEnd[i] = words.length();
+            confidence[i] = 1f;
+            startTime[i] = 0f;
+            endTime[i] = 0f;
+        }
+        if (peek() == '}') {
+            pos++;
+            if (keep) wordCount++;
+            return true;
+        }
+        do {
+            int key = key();
+            if (key < 0 || !expect(':')) return false;
+            if (!keep) {
+                if (!skipValue()) return false;
+            } else if (key == KEY_WORD) {
+                if (peek() != '"') return false;
+                words.setLength(wordStart[i]);
+                if (!string(words)) return false;
+                wordEnd[i] = words.length();
+            } else if (key == KEY_CONF || key == KEY_START || key == KEY_END) {
+                float v = number();
+                if (Float.isNaN(v)) return false;
+                if (key == KEY_CONF) confidence[i] = v;
+                else if (key == KEY_START) startTime[i] = v;
+                else endTime[i] = v;
+            } else if (!skipValue()) {
+                return false;
+            }
+        } while (comma());
+        if (!expect('}')) return false;
+        if (keep) wordCount++;
+        return true;
+    }
+
+    // Reads a quoted key and returns its KEY_ constant, or -1 if malformed
+    private int key() {
+        if (!expect('"')) return -1;
+        int start = pos;
+        int n = in.length();
+        while (pos < n && in.charAt(pos) != '"') {
+            if (in.charAt(pos) == '\\') pos++;
+            pos++;
+        }
+        if (pos >= n) return -1;
+        int end = pos++;
+        for (int k = 1; k < KEYS.length; k++) {
+            if (regionEquals(start, end, KEYS[k])) return k;
+        }
+        return KEY_OTHER;
+    }
+
+    private boolean regionEquals(int start, int end, String s) {
+        if (end - start != s.length()) return false;
+        for (int i = 0; i < s.length(); i++) {
+            if (in.charAt(start + i) != s.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    // Appends the unescaped string at pos to out
+    private boolean string(StringBuilder out) {
+        if (!expect('"')) return false;
+        int n = in.length();
+        while (pos < n) {
+            char c = in.charAt(pos++);
+            if (c == '"') return true;
+            if (c != '\\') {
+                out.append(c);
+                continue;
+            }
+            if (pos >= n) return false;
+            char e = in.charAt(pos++);
+            switch (e) {
+                case 'n': out.append('\n'); break;
+                case 't': out.append('\t'); break;
+                case 'r': out.append('\r'); break;
+                case 'b': out.append('\b'); break;
+                case 'f': out.append('\f'); break;
+                case 'u': {
+                    if (pos + 4 > n) return false;
+                    int code = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int d = Character.digit(in.charAt(pos++), 16);
+                        if (d < 0) return false;
+                        code = code * 16 + d;
+                    }
+                    out.append((char) code);
+                    break;
+                }
+                default: out.append(e); // \" \\ \/
+            }
+        }
+        return false;
+    }
+
+    // A JSON number as a float, or NaN if there is none at pos
+    private float number() {
+        skipSpace();
+        int n = in.length();
+        boolean negative = pos < n && in.charAt(pos) == '-';
+        if (negative) pos++;
+        double value = 0;
+        int digits = 0;
+        while (pos < n && isDigit(in.charAt(pos))) {
+            value = value * 10 + (in.charAt(pos++) - '0');
+            digits++;
+        }
+        if (pos < n && in.charAt(pos) == '.') {
+            pos++;
+            double scale = 0.1;
+            while (pos < n && isDigit(in.charAt(pos))) {
+                value += (in.charAt(pos++) - '0') * scale;
+                scale /= 10;
+                digits++;
+            }
+        }
+        if (digits == 0) return Float.NaN;
+        if (pos < n && (in.charAt(pos) == 'e' || in.charAt(pos) == 'E')) {
+            pos++;
+            boolean negativeExponent = pos < n && in.charAt(pos) == '-';
+            if (pos < n && (in.charAt(pos) == '-' || in.charAt(pos) == '+')) pos++;
+            int exponent = 0;
+            while (pos < n && isDigit(in.charAt(pos))) exponent = exponent * 10 + (in.charAt(pos++) - '0');
+            value *= Math.pow(10, negativeExponent ? -exponent : exponent);
+        }
+        return (float) (negative ? -value : value);
+    }
+
+    // Skips any value, nested or not
+    private boolean skipValue() {
+        skipSpace();
+        int n = in.length();
+        if (pos >= n) return false;
+        char c = in.charAt(pos);
+        if (c == '"') {
+            pos++;
+            while (pos < n && in.charAt(pos) != '"') {
+                if (in.charAt(pos) == '\\') pos++;
+                pos++;
+            }
+            if (pos >= n) return false;
+            pos++;
+            return true;
+        }
+        if (c == '{' || c == '[') {
+            pos++;
+            if (peek() == (c == '{' ? '}' : ']')) {
+                pos++;
+                return true;
+            }
+            do {
+                if (c == '{' && (key() < 0 || !expect(':'))) return false;
+                if (!skipValue()) return false;
+            } while (comma());
+            return expect(c == '{' ? '}' : ']');
+        }
+        // number, true, false or null
+        int start = pos;
+        while (pos < n && "{}[],: \t\r\n\"".indexOf(in.charAt(pos)) < 0) pos++;
+        return pos > start;
+    }
+
+    private boolean comma() {
+        if (peek() != ',') return false;
+        pos++;
+        return true;
+    }
+
+    private boolean expect(char c) {
+        if (peek() != c) return false;
+        pos++;
+        return true;
+    }
+
+    // Next non-space character without consuming it, or 0 at the end
+    private char peek() {
+        skipSpace();
+        return pos < in.length() ? in.charAt(pos) : 0;
+    }
+
+    private void skipSpace() {
+        int n = in.length();
+        while (pos < n) {
+            char c = in.charAt(pos);
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') return;
+            pos++;
+        }
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,189 @@
+package com.shreyanshi.scamshield.detection;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Aho-Corasick automaton over every scam phrase we look for. Built once, then a
+ * transcript is matched in a single left-to-right pass whatever the number of phrases.
+ * Matching is case-insensitive: input characters are folded one at a time, so callers
+ * don't need a lowercased copy of the transcript.
+ */
+public final class KeywordAutomaton {
+
+    public static final int ROOT = 0;
+
+    private static final int NONE = -1;
+    private static final int ASCII = 128;
+
+    public interface MatchListener {
+        // end is the exclusive end offset of the match in the scanned text
+        void onMatch(int patternId, int end);
+    }
+
+    // Dense transitions out of the root for ASCII; most steps from a mismatch land here
+    private final int[] rootNext = new int[ASCII];
+
+    // Edges of state s live in [edgeStart[s], edgeStart[s + 1]), sorted by character
+    private final int[] edgeStart;
+    private final char[] edgeChar;
+    private final int[] edgeTarget;
+
+    private final int[] fail;
+    // Pattern ending exactly at a state, and the next state down the fail chain that has one
+    private final int[] output;
+    private final int[] outputLink;
+
+    private final int patternCount;
+    private final int maxPatternLength;
+
+    private KeywordAutomaton(List<Map<Character, Integer>> trie, int[] output, int patternCount,
+                             int maxPatternLength) {
+        int states = trie.size();
+        this.output = output;
+        this.patternCount = patternCount;
+        this.maxPatternLength = maxPatternLength;
+
+        int edges = 0;
+        for (Map<Character, Integer> children : trie) edges += children.size();
+        edgeStart = new int[states + 1];
+        edgeChar = new char[edges];
+        edgeTarget = new int[edges];
+        int e = 0;
+        for (int s = 0; s < states; s++) {
+            edgeStart[s] = e;
+            for (Map.Entry<Character, Integer> child : trie.get(s).entrySet()) {
+                edgeChar[e] = child.getKey();
+                edgeTarget[e] = child.getValue();
+                e++;
+            }
+        }
+        edgeStart[states] = e;
+
+        Arrays.fill(rootNext, ROOT);
+        for (int i = edgeStart[ROOT]; i < edgeStart[ROOT + 1]; i++) {
+            if (edgeChar[i] < ASCII) rootNext[edgeChar[i]] = edgeTarget[i];
+        }
+
+        fail = new int[states];
+        outputLink = new int[states];
+        Arrays.fill(outputLink, NONE);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int i = edgeStart[ROOT]; i < edgeStart[ROOT + 1]; i++) {
+            fail[edgeTarget[i]] = ROOT;
+            queue.add(edgeTarget[i]);
+        }
+        while (!queue.isEmpty()) {
+            int u = queue.poll();
+            for (int i = edgeStart[u]; i < edgeStart[u + 1]; i++) {
+                int v = edgeTarget[i];
+                int f = fail[u];
+                int next;
+                while ((next = goTo(f, edgeChar[i])) == NONE && f != ROOT) f = fail[f];
+                fail[v] = next == NONE ? ROOT : next;
+                outputLink[v] = output[fail[v]] != NONE ? fail[v] : outputLink[fail[v]];
+                queue.add(v);
+            }
+        }
+    }
+
+    public static KeywordAutomaton build(List<String> patterns) {
+        List<Map<Character, Integer>> trie = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        List<Integer> outputs = new ArrayList<>();
+        outputs.add(NONE);
+        int maxLength = 0;
+
+        for (int id = 0; id < patterns.size(); id++) {
+            String p = patterns.get(id).toLowerCase(Locale.ROOT);
+            if (p.isEmpty()) continue;
+            maxLength = Math.max(maxLength, p.length());
+            int s = ROOT;
+            for (int i = 0; i < p.length(); i++) {
+                Integer next = trie.get(s).get(p.charAt(i));
+                if (next == null) {
+                    next = trie.size();
+                    trie.add(new TreeMap<>());
+                    outputs.add(NONE);
+                    trie.get(s).put(p.charAt(i), next);
+                }
+                s = next;
+            }
+            // keep the first id if a phrase is listed twice
+            if (outputs.get(s) == NONE) outputs.set(s, id);
+        }
+
+        int[] output = new int[outputs.size()];
+        for (int i = 0; i < output.length; i++) output[i] = outputs.get(i);
+        return new KeywordAutomaton(trie, output, patterns.size(), maxLength);
+    }
+
+    public int patternCount() {
+        return patternCount;
+    }
+
+    public int maxPatternLength() {
+        return maxPatternLength;
+    }
+
+    public int stateCount() {
+        return fail.length;
+    }
+
+    // Advance one character from the given state
+    public int step(int state, char c) {
+        c = fold(c);
+        while (true) {
+            int next = state == ROOT && c < ASCII ? rootNext[c] : goTo(state, c);
+            if (next != NONE) return next;
+            if (state == ROOT) return ROOT;
+            state = fail[state];
+        }
+    }
+
+    // Report every pattern that ends in the given state
+    public void emit(int state, int end, MatchListener listener) {
+        int s = output[state] != NONE ? state : outputLink[state];
+        while (s != NONE) {
+            listener.onMatch(output[s], end);
+            s = outputLink[s];
+        }
+    }
+
+    public boolean hasOutput(int state) {
+        return output[state] != NONE || outputLink[state] != NONE;
+    }
+
+    // Single pass over text, reporting every occurrence of every pattern
+    public void scan(CharSequence text, MatchListener listener) {
+        if (text == null) return;
+        int state = ROOT;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            state = step(state, text.charAt(i));
+            if (hasOutput(state)) emit(state, i + 1, listener);
+        }
+    }
+
+    private int goTo(int state, char c) {
+        int lo = edgeStart[state];
+        int hi = edgeStart[state + 1] - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            char m = edgeChar[mid];
+            if (m < c) lo = mid + 1;
+            else if (m > c) hi = mid - 1;
+            else return edgeTarget[mid];
+        }
+        return NONE;
+    }
+
+    private static char fold(char c) {
+        if (c < ASCII) return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        return Character.toLowerCase(c);
+    }
+}
@@ -0,0 +1,53 @@
+package com.shreyanshi.scamshield.detection;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Builds a Vosk grammar, a JSON array of phrases, from a {@link RuleSet}. A recognizer
+ * held to these phrases decodes much faster than a free-form one and only ever hears the
+ * words the rules are looking for; everything else comes out as "[unk]". Rules found by
+ * EntityScanner have no phrase to listen for, so when there are any the grammar also
+ * takes spoken digits for the codes and numbers they look for.
+ */
+public final class KeywordGrammar {
+
+    // What a code or card number is read out with, in the model's language
+    private static final String[] NUMBER_WORDS = {
+            "zero", "oh", "one", "two", "three", "four", "five", "six", "seven", "eight", "nine",
+            "ten", "eleven", "twelve", "thirteen", "fourteen", "fifteen", "sixteen", "seventeen",
+            "eighteen", "nineteen", "twenty", "thirty", "forty", "fifty", "sixty", "seventy",
+            "eighty", "ninety", "hundred", "double", "triple"
+    };
+
+    private KeywordGrammar() {}
+
+    public static String of(RuleSet rules) {
+        Set<String> phrases = new LinkedHashSet<>();
+        boolean entities = false;
+        for (int id = 0; id < rules.size(); id++) {
+            if (rules.hasSource(id, RuleSet.SOURCE_ENTITY)) entities = true;
+            if (rules.isDerived(id)) continue;
+            String p = words(rules.phrase(id));
+            if (!p.isEmpty()) phrases.add(p);
+        }
+        if (entities) {
+            for (String w : NUMBER_WORDS) phrases.add(w);
+        }
+        StringBuilder json = new StringBuilder(phrases.size() * 12).append('[');
+        for (String p : phrases) json.append('"').append(p).append("\", ");
+        return json.append("\"[unk]\"]").toString();
+    }
+
+    // The phrase as the recognizer would write it: lowercase words split on anything else
+    static String words(String phrase) {
+        StringBuilder out = new StringBuilder(phrase.length());
+        for (String w : phrase.toLowerCase(Locale.ROOT).split("[^a-z']+")) {
+            if (w.isEmpty()) continue;
+            if (out.length() > 0) out.append(' ');
+            out.append(w);
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,242 @@
+package com.shreyanshi.scamshield.detection;
+
+/**
+ * Per-call matcher for recognizers that keep resending a growing hypothesis.
+ * The session remembers the automaton state and how much of the hypothesis it has
+ * already consumed, so each update only walks the newly appended characters.
+ * When the recognizer revises earlier words, the session rewinds to the start of the
+ * first changed word and continues from there instead of rescanning everything.
+ *
+ * <p>Recognizers also start over with every utterance or session. {@link #commit()}
+ * marks the current hypothesis final, and later ones are matched as if they followed it
+ * after a space, so a phrase split across the boundary ("please share your" / "otp now")
+ * still matches. Match ends and {@link #streamDivergence()} count from the start of that
+ * joined stream. When a new session starts by repeating the last words of the committed
+ * text, as overlapping sessions do, those words are skipped rather than matched twice.
+ *
+ * Memory is fixed however long the call: only the last {@link #WINDOW} characters, the
+ * last {@link #CHECKPOINTS} word starts and {@link #TAIL} committed characters are kept.
+ * Not thread-safe.
+ */
+public final class MatchSession {
+
+    // Trailing characters compared against each new hypothesis to spot revisions
+    static final int WINDOW = 256;
+    // Word starts we can rewind to
+    static final int CHECKPOINTS = 64;
+    // Leading characters compared to tell a brand new utterance from a longer one
+    private static final int HEAD = 16;
+    // Committed characters kept to spot a new session repeating them
+    static final int TAIL = 64;
+    // Most repeated words skipped at the start of a session
+    static final int MAX_OVERLAP_WORDS = 4;
+
+    private final KeywordAutomaton automaton;
+
+    private final char[] recent = new char[WINDOW];
+    private final char[] head = new char[HEAD];
+    private final int[] checkpointOffset = new int[CHECKPOINTS];
+    private final int[] checkpointState = new int[CHECKPOINTS];
+    private int checkpoints; // total recorded; the live ones are the last CHECKPOINTS
+
+    private final char[] tail = new char[TAIL];
+    private int tailLength;
+
+    // Stream offsets: everything before base is committed; consumed is where matching stopped
+    private int base;
+    private int baseCheckpoints;
+    private int baseState = KeywordAutomaton.ROOT;
+    private int consumed;
+    private int divergence;
+    // Leading characters of the current hypothesis skipped as a repeat of the committed tail
+    private int skip;
+    private int textDivergence;
+    private int state = KeywordAutomaton.ROOT;
+
+    public MatchSession(KeywordAutomaton automaton) {
+        this.automaton = automaton;
+    }
+
+    public void reset() {
+        consumed = 0;
+        divergence = 0;
+        checkpoints = 0;
+        state = KeywordAutomaton.ROOT;
+        base = 0;
+        baseCheckpoints = 0;
+        baseState = KeywordAutomaton.ROOT;
+        tailLength = 0;
+        skip = 0;
+        textDivergence = 0;
+    }
+
+    public int consumed() {
+        return consumed;
+    }
+
+    // Offset in the last hypothesis of the first character the last update found new or changed
+    public int lastDivergence() {
+        return textDivergence;
+    }
+
+    // The same as an offset in the joined stream, which is what match ends count from
+    int streamDivergence() {
+        return divergence;
+    }
+
+    /**
+     * The last hypothesis is final: the next one starts a new utterance that continues
+     * the stream after a space instead of replacing it.
+     */
+    public void commit() {
+        if (consumed == base) return;
+        keepTail();
+        recent[consumed % WINDOW] = ' ';
+        state = automaton.step(state, ' ');
+        consumed++;
+        base = consumed;
+        baseCheckpoints = checkpoints;
+        baseState = state;
+        skip = 0;
+    }
+
+    // Keep the last TAIL committed characters, from a word start, with the utterance just committed at the end
+    private void keepTail() {
+        int length = consumed - base;
+        boolean cut;
+        if (length >= TAIL) {
+            for (int i = 0; i < TAIL; i++) tail[i] = recent[(consumed - TAIL + i) % WINDOW];
+            tailLength = TAIL;
+            cut = !Character.isWhitespace(recent[(consumed - TAIL - 1) % WINDOW]);
+        } else {
+            int old = tailLength > 0 ? Math.min(tailLength, TAIL - length - 1) : 0;
+            cut = old < tailLength;
+            System.arraycopy(tail, tailLength - old, tail, 0, old);
+            int n = old;
+            if (old > 0) tail[n++] = ' ';
+            for (int i = base; i < consumed; i++) tail[n++] = recent[i % WINDOW];
+            tailLength = n;
+        }
+        if (!cut) return;
+        // drop the partial word at the front
+        int start = 0;
+        while (start < tailLength && !Character.isWhitespace(tail[start])) start++;
+        while (start < tailLength && Character.isWhitespace(tail[start])) start++;
+        System.arraycopy(tail, start, tail, 0, tailLength - start);
+        tailLength -= start;
+    }
+
+    // Index of the word the last stepped character belongs to; during update, of the word being matched
+    public int tokenIndex() {
+        return checkpoints - 1;
+    }
+
+    /**
+     * Feed the recognizer's current hypothesis. Matches that were already reported for
+     * an unchanged prefix are not reported again.
+     *
+     * @return how many characters were stepped through the automaton
+     */
+    public int update(CharSequence text, KeywordAutomaton.MatchListener listener) {
+        if (text == null) return 0;
+        int from = overlap(text);
+        int length = text.length() - from;
+        int n = base + length;
+
+        // if the repeat being skipped changed, so did everything after it
+        int diverge = base + (from == skip ? divergence(text, from, length) : 0);
+        skip = from;
+        divergence = diverge;
+        textDivergence = diverge == base ? 0 : from + diverge - base;
+        int resume = diverge;
+        if (diverge < consumed) resume = rewind(diverge);
+
+        for (int i = resume; i < n; i++) {
+            char c = text.charAt(from + i - base);
+            // the utterance starts a word, as if after the space that joins it to the last
+            if (!Character.isWhitespace(c) && (i == base || Character.isWhitespace(text.charAt(from + i - base - 1)))) {
+                int k = checkpoints++ % CHECKPOINTS;
+                checkpointOffset[k] = i;
+                checkpointState[k] = state;
+            }
+            recent[i % WINDOW] = c;
+            if (i - base < HEAD) head[i - base] = c;
+            state = automaton.step(state, c);
+            // matches ending inside the unchanged prefix were reported by an earlier update
+            if (i >= diverge && automaton.hasOutput(state)) automaton.emit(state, i + 1, listener);
+        }
+        consumed = n;
+        return Math.max(0, n - resume);
+    }
+
+    // How far into this utterance text first differs from what we consumed, looking only at the head and the trailing window
+    private int divergence(CharSequence text, int from, int length) {
+        int consumedHere = consumed - base;
+        int limit = Math.min(consumedHere, length);
+        for (int i = 0; i < Math.min(limit, HEAD); i++) {
+            if (text.charAt(from + i) != head[i]) return i;
+        }
+        for (int i = Math.max(HEAD, consumedHere - WINDOW); i < limit; i++) {
+            if (text.charAt(from + i) != recent[(base + i) % WINDOW]) return i;
+        }
+        return limit;
+    }
+
+    /**
+     * Characters at the start of text that repeat the last words of the committed text,
+     * including the space after them; up to {@link #MAX_OVERLAP_WORDS} words. Skipping
+     * them loses nothing: a phrase that starts with them continues from the committed copy.
+     */
+    private int overlap(CharSequence text) {
+        if (tailLength == 0) return 0;
+        int best = 0;
+        int end = 0;
+        for (int words = 1; words <= MAX_OVERLAP_WORDS; words++) {
+            // the first words of text, up to the end of word number words
+            int start = end;
+            while (start < text.length() && Character.isWhitespace(text.charAt(start))) start++;
+            if (start == text.length()) break;
+            end = start;
+            while (end < text.length() && !Character.isWhitespace(text.charAt(end))) end++;
+            // a last word still being spoken may grow into another one; it is then matched after all
+            if (endsWith(text, end, words)) best = end;
+        }
+        while (best > 0 && best < text.length() && Character.isWhitespace(text.charAt(best))) best++;
+        return best;
+    }
+
+    // Whether the first words of text, ending at end, are the last words of the tail
+    private boolean endsWith(CharSequence text, int end, int words) {
+        int t = tailLength;
+        int i = end;
+        for (int w = 0; w < words; w++) {
+            while (i > 0 && Character.isWhitespace(text.charAt(i - 1))) i--;
+            while (t > 0 && Character.isWhitespace(tail[t - 1])) t--;
+            while (i > 0 && !Character.isWhitespace(text.charAt(i - 1))) {
+                if (t == 0 || Character.toLowerCase(tail[t - 1]) != Character.toLowerCase(text.charAt(i - 1))) return false;
+                i--;
+                t--;
+            }
+            // the tail word must end here too
+            if (t > 0 && !Character.isWhitespace(tail[t - 1])) return false;
+        }
+        return true;
+    }
+
+    // Restore the latest checkpoint at or before offset in this utterance; returns the offset to resume from
+    private int rewind(int offset) {
+        int oldest = Math.max(baseCheckpoints, checkpoints - CHECKPOINTS);
+        for (int k = checkpoints - 1; k >= oldest; k--) {
+            int slot = k % CHECKPOINTS;
+            if (checkpointOffset[slot] <= offset) {
+                checkpoints = k;
+                state = checkpointState[slot];
+                return checkpointOffset[slot];
+            }
+        }
+        // start the utterance over
+        checkpoints = baseCheckpoints;
+        state = baseState;
+        return base;
+    }
+}
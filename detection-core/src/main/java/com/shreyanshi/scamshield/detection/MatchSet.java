@@ -0,0 +1,50 @@
+package com.shreyanshi.scamshield.detection;
+
+/**
+ * Reusable set of rule ids: a bitset for membership plus the ids in the order they were
+ * added. Clearing costs as much as the number of ids in the set, so it can be reused for
+ * every partial result without allocating. Not thread-safe.
+ */
+public final class MatchSet {
+
+    private final long[] bits;
+    private final int[] ids;
+    private int size;
+
+    public MatchSet(int ruleCount) {
+        bits = new long[(ruleCount + 63) >>> 6];
+        ids = new int[ruleCount];
+    }
+
+    // Returns false if the id was already present
+    public boolean add(int id) {
+        long mask = 1L << id;
+        int word = id >>> 6;
+        if ((bits[word] & mask) != 0) return false;
+        bits[word] |= mask;
+        ids[size++] = id;
+        return true;
+    }
+
+    public boolean contains(int id) {
+        return (bits[id >>> 6] & (1L << id)) != 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // i-th id in insertion order
+    public int get(int i) {
+        return ids[i];
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) bits[ids[i] >>> 6] = 0;
+        size = 0;
+    }
+}
@@ -0,0 +1,305 @@
+package com.shreyanshi.scamshield.detection;
+
+/**
+ * Rewrites spoken numbers in a hypothesis as digits, so that {@link EntityScanner} can
+ * see a code or card number that the recognizer wrote out as words: "four five two one"
+ * becomes "4 5 2 1", "double seven" becomes "7 7", "twenty five" becomes "25", and Hindi
+ * readouts such as "ek do teen" work the same way. Everything else is copied unchanged.
+ *
+ * <p>A small finite-state transducer over tokens. Words that are also ordinary words
+ * ("oh", Hindi "do" and "teen") only become digits next to another number, so the
+ * transducer holds them back until the next token decides. Like {@link MatchSession} it
+ * keeps checkpoints at token starts where nothing is held back, and on each partial result
+ * rewinds to the last one before the changed text instead of redoing the whole hypothesis.
+ * The output buffer is reused, so it does not allocate per token. Not thread-safe.
+ */
+public final class NumberNormalizer {
+
+    // Token starts we can rewind to
+    static final int CHECKPOINTS = 64;
+    // Ambiguous words held back at once ("do teen" before a digit)
+    private static final int MAX_PENDING = 4;
+
+    // Word kinds, in the high bits of a table value; the low byte is the number
+    private static final int DIGIT = 1 << 8;
+    // A digit or number only when next to another number
+    private static final int AMBIGUOUS = 2 << 8;
+    // Ten to nineteen, and Hindi round tens; complete two-digit numbers
+    private static final int TEEN = 3 << 8;
+    // Twenty to ninety; may take a unit after it
+    private static final int TENS = 4 << 8;
+    // "double", "triple": the next digit is repeated
+    private static final int REPEAT = 5 << 8;
+    private static final int KIND = 0xff00;
+    private static final int VALUE = 0xff;
+
+    private static final String[] WORDS = {
+            "zero", "one", "two", "three", "four", "five", "six", "seven", "eight", "nine",
+            "oh", "o",
+            "ten", "eleven", "twelve", "thirteen", "fourteen", "fifteen", "sixteen", "seventeen",
+            "eighteen", "nineteen",
+            "twenty", "thirty", "forty", "fifty", "sixty", "seventy", "eighty", "ninety",
+            "double", "triple",
+            // Hindi / Hinglish, in the spellings recognizers use
+            "shunya", "shoonya", "sunya", "ek", "do", "teen", "char", "chaar", "paanch", "panch",
+            "chhe", "chhah", "saat", "aath", "nau",
+            "das", "gyarah", "barah", "terah", "chaudah", "pandrah", "solah", "satrah", "atharah",
+            "unnis", "bees", "tees", "chalis", "pachas", "pachaas", "saath", "sattar", "assi", "nabbe"
+    };
+    private static final int[] VALUES = {
+            DIGIT, DIGIT | 1, DIGIT | 2, DIGIT | 3, DIGIT | 4, DIGIT | 5, DIGIT | 6, DIGIT | 7, DIGIT | 8, DIGIT | 9,
+            AMBIGUOUS, AMBIGUOUS,
+            TEEN | 10, TEEN | 11, TEEN | 12, TEEN | 13, TEEN | 14, TEEN | 15, TEEN | 16, TEEN | 17,
+            TEEN | 18, TEEN | 19,
+            TENS | 2, TENS | 3, TENS | 4, TENS | 5, TENS | 6, TENS | 7, TENS | 8, TENS | 9,
+            REPEAT | 2, REPEAT | 3,
+            DIGIT, DIGIT, DIGIT, DIGIT | 1, AMBIGUOUS | 2, AMBIGUOUS | 3, AMBIGUOUS | 4, DIGIT | 4, DIGIT | 5, DIGIT | 5,
+            DIGIT | 6, DIGIT | 6, DIGIT | 7, DIGIT | 8, DIGIT | 9,
+            TEEN | 10, TEEN | 11, TEEN | 12, TEEN | 13, TEEN | 14, TEEN | 15, TEEN | 16, TEEN | 17, TEEN | 18,
+            TEEN | 19, AMBIGUOUS | 20, TEEN | 30, TEEN | 40, TEEN | 50, TEEN | 50, AMBIGUOUS | 60, TEEN | 70,
+            TEEN | 80, TEEN | 90
+    };
+
+    // Open-addressed table of WORDS keyed by String.hashCode, so tokens are looked up in place
+    private static final int TABLE = 256;
+    private static final String[] TABLE_WORDS = new String[TABLE];
+    private static final int[] TABLE_VALUES = new int[TABLE];
+    private static final int MAX_WORD;
+    static {
+        int longest = 0;
+        for (int w = 0; w < WORDS.length; w++) {
+            longest = Math.max(longest, WORDS[w].length());
+            int slot = WORDS[w].hashCode() & (TABLE - 1);
+            while (TABLE_WORDS[slot] != null) slot = (slot + 1) & (TABLE - 1);
+            TABLE_WORDS[slot] = WORDS[w];
+            TABLE_VALUES[slot] = VALUES[w];
+        }
+        MAX_WORD = longest;
+    }
+
+    private final StringBuilder out = new StringBuilder(256);
+    private int changedFrom;
+
+    private final int[] checkpointInput = new int[CHECKPOINTS];
+    private final int[] checkpointOutput = new int[CHECKPOINTS];
+    private final boolean[] checkpointAfterNumber = new boolean[CHECKPOINTS];
+    private int checkpoints; // total recorded; the live ones are the last CHECKPOINTS
+
+    private CharSequence text;
+
+    // Transducer state
+    private boolean afterNumber;
+    private int tens;
+    private int repeat;
+    private int repeatStart;
+    private int repeatEnd;
+    private final int[] pendingStart = new int[MAX_PENDING];
+    private final int[] pendingEnd = new int[MAX_PENDING];
+    private final int[] pendingValue = new int[MAX_PENDING];
+    private int pending;
+
+    public void reset() {
+        out.setLength(0);
+        changedFrom = 0;
+        checkpoints = 0;
+    }
+
+    /** The normalized text of the last update; reused by the next one. */
+    public CharSequence text() {
+        return out;
+    }
+
+    /** Offset in {@link #text()} of the first character the last update rewrote. */
+    public int changedFrom() {
+        return changedFrom;
+    }
+
+    /**
+     * Normalize a new hypothesis.
+     *
+     * @param changedFrom offset of the first character that differs from the previous
+     *                    hypothesis, as reported by {@link MatchSession#lastDivergence()};
+     *                    0 to start over
+     */
+    public CharSequence update(CharSequence text, int changedFrom) {
+        if (text == null) {
+            reset();
+            return out;
+        }
+        this.text = text;
+        int i = rewind(changedFrom);
+        this.changedFrom = out.length();
+        tens = -1;
+        repeat = 0;
+        pending = 0;
+
+        int n = text.length();
+        while (i < n) {
+            while (i < n && Character.isWhitespace(text.charAt(i))) i++;
+            int start = i;
+            while (i < n && !Character.isWhitespace(text.charAt(i))) i++;
+            if (i == start) break;
+            if (pending == 0 && repeat == 0 && tens < 0) {
+                int k = checkpoints++ % CHECKPOINTS;
+                checkpointInput[k] = start;
+                checkpointOutput[k] = out.length();
+                checkpointAfterNumber[k] = afterNumber;
+            }
+            int core = i;
+            while (core > start && isTrailingPunctuation(text.charAt(core - 1))) core--;
+            token(start, core, i);
+        }
+        flush();
+        this.text = null;
+        return out;
+    }
+
+    // Restore the output and state at the last checkpoint at or before from; returns where to resume
+    private int rewind(int from) {
+        int oldest = Math.max(0, checkpoints - CHECKPOINTS);
+        for (int c = checkpoints - 1; c >= oldest; c--) {
+            int k = c % CHECKPOINTS;
+            if (checkpointInput[k] <= from) {
+                // the checkpoint is recorded again when its token is read
+                checkpoints = c;
+                afterNumber = checkpointAfterNumber[k];
+                out.setLength(checkpointOutput[k]);
+                return checkpointInput[k];
+            }
+        }
+        checkpoints = 0;
+        afterNumber = false;
+        out.setLength(0);
+        return 0;
+    }
+
+    private void token(int start, int core, int end) {
+        int value = core > start ? lookup(start, core) : 0;
+        int kind = value & KIND;
+        int number = value & VALUE;
+
+        if (kind == AMBIGUOUS && !afterNumber && repeat == 0 && tens < 0) {
+            if (pending == MAX_PENDING) flushPending(false);
+            pendingStart[pending] = start;
+            pendingEnd[pending] = end;
+            pendingValue[pending] = number;
+            pending++;
+            // a full stop right after it settles it now
+            if (core < end) flush();
+            return;
+        }
+
+        if (kind == DIGIT || kind == AMBIGUOUS) {
+            flushPending(true);
+            if (tens >= 0 && number > 0 && number < 10) {
+                emitNumber(tens * 10 + number);
+                tens = -1;
+            } else {
+                flushTens();
+                for (int r = Math.max(1, repeat); r > 0; r--) emitNumber(number);
+                repeat = 0;
+            }
+            afterNumber = true;
+        } else if (kind == TEEN) {
+            flushPending(true);
+            flushTens();
+            flushRepeat();
+            emitNumber(number);
+            afterNumber = true;
+        } else if (kind == TENS) {
+            flushPending(true);
+            flushTens();
+            flushRepeat();
+            tens = number;
+            afterNumber = true;
+        } else if (kind == REPEAT) {
+            flushTens();
+            flushRepeat();
+            repeat = number;
+            repeatStart = start;
+            repeatEnd = end;
+            return;
+        } else {
+            flush();
+            copy(start, end);
+            afterNumber = false;
+            return;
+        }
+        // punctuation after a number ends the run
+        if (core < end) {
+            flushTens();
+            append(core, end);
+            afterNumber = false;
+        }
+    }
+
+    // Settle everything held back: the next token didn't continue the number
+    private void flush() {
+        flushPending(false);
+        flushTens();
+        flushRepeat();
+    }
+
+    private void flushPending(boolean asDigits) {
+        for (int p = 0; p < pending; p++) {
+            if (asDigits) emitNumber(pendingValue[p]);
+            else copy(pendingStart[p], pendingEnd[p]);
+        }
+        pending = 0;
+    }
+
+    private void flushTens() {
+        if (tens < 0) return;
+        emitNumber(tens * 10);
+        tens = -1;
+    }
+
+    private void flushRepeat() {
+        if (repeat == 0) return;
+        copy(repeatStart, repeatEnd);
+        repeat = 0;
+    }
+
+    private void emitNumber(int n) {
+        space();
+        if (n >= 10) out.append((char) ('0' + n / 10));
+        out.append((char) ('0' + n % 10));
+    }
+
+    private void copy(int start, int end) {
+        space();
+        append(start, end);
+    }
+
+    private void append(int start, int end) {
+        for (int i = start; i < end; i++) out.append(text.charAt(i));
+    }
+
+    private void space() {
+        if (out.length() > 0) out.append(' ');
+    }
+
+    // Table value of the token's word, or 0
+    private int lookup(int start, int end) {
+        int len = end - start;
+        if (len > MAX_WORD) return 0;
+        int h = 0;
+        for (int i = start; i < end; i++) h = 31 * h + fold(text.charAt(i));
+        for (int slot = h & (TABLE - 1); TABLE_WORDS[slot] != null; slot = (slot + 1) & (TABLE - 1)) {
+            String w = TABLE_WORDS[slot];
+            if (w.length() != len) continue;
+            boolean same = true;
+            for (int i = 0; i < len && same; i++) same = fold(text.charAt(start + i)) == w.charAt(i);
+            if (same) return TABLE_VALUES[slot];
+        }
+        return 0;
+    }
+
+    private static char fold(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    private static boolean isTrailingPunctuation(char c) {
+        return c == '.' || c == ',' || c == '?' || c == '!' || c == ';' || c == ':';
+    }
+}
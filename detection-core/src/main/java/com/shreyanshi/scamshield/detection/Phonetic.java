@@ -0,0 +1,147 @@
+package com.shreyanshi.scamshield.detection;
+
+/**
+ * Metaphone-style phonetic key, close enough to original Metaphone that words a
+ * recognizer confuses ("team viewer" / "teamviewer", "any desk" / "anydesk") share a key.
+ * Works on caller-provided buffers so it can run per token without allocating.
+ */
+final class Phonetic {
+
+    private Phonetic() {}
+
+    // Longest key encode can produce for n input letters
+    static int maxKeyLength(int n) {
+        return 2 * n;
+    }
+
+    /**
+     * Encode the lowercase ASCII letters s[0, n) into out.
+     *
+     * @return the key length
+     */
+    static int encode(char[] s, int n, char[] out) {
+        if (n == 0) return 0;
+        int o = 0;
+        int i = 0;
+        if (n > 1) {
+            char a = s[0];
+            char b = s[1];
+            if ((b == 'n' && (a == 'k' || a == 'g' || a == 'p')) || (a == 'a' && b == 'e') || (a == 'w' && b == 'r')) {
+                i = 1;
+            } else if (a == 'w' && b == 'h') {
+                out[o++] = 'W';
+                i = 2;
+            }
+        }
+        if (i == 0 && s[0] == 'x') {
+            out[o++] = 'S';
+            i = 1;
+        }
+
+        for (; i < n; i++) {
+            char c = s[i];
+            char prev = i > 0 ? s[i - 1] : 0;
+            char next = i + 1 < n ? s[i + 1] : 0;
+            char next2 = i + 2 < n ? s[i + 2] : 0;
+            if (c == prev && c != 'c') continue;
+
+            switch (c) {
+                case 'a': case 'e': case 'i': case 'o': case 'u':
+                    // only a leading vowel is kept
+                    if (o == 0) out[o++] = 'A';
+                    break;
+                case 'b':
+                    if (!(prev == 'm' && i == n - 1)) out[o++] = 'B';
+                    break;
+                case 'c':
+                    if (next == 'i' && next2 == 'a') {
+                        out[o++] = 'X';
+                    } else if (next == 'h') {
+                        out[o++] = prev == 's' ? 'K' : 'X';
+                        i++;
+                    } else if (next == 'i' || next == 'e' || next == 'y') {
+                        if (prev != 's') out[o++] = 'S';
+                    } else {
+                        out[o++] = 'K';
+                    }
+                    break;
+                case 'd':
+                    if (next == 'g' && (next2 == 'e' || next2 == 'i' || next2 == 'y')) {
+                        out[o++] = 'J';
+                        i++;
+                    } else {
+                        out[o++] = 'T';
+                    }
+                    break;
+                case 'g':
+                    if (next == 'h' && !isVowel(next2)) break;
+                    if (next == 'n' && (i + 2 == n || (next2 == 'e' && i + 4 == n && s[i + 3] == 'd'))) break;
+                    out[o++] = next == 'i' || next == 'e' || next == 'y' ? 'J' : 'K';
+                    break;
+                case 'h':
+                    if (isVowel(next) && prev != 'c' && prev != 's' && prev != 'p' && prev != 't' && prev != 'g') {
+                        out[o++] = 'H';
+                    }
+                    break;
+                case 'k':
+                    if (prev != 'c') out[o++] = 'K';
+                    break;
+                case 'p':
+                    if (next == 'h') {
+                        out[o++] = 'F';
+                        i++;
+                    } else {
+                        out[o++] = 'P';
+                    }
+                    break;
+                case 'q':
+                    out[o++] = 'K';
+                    break;
+                case 's':
+                    if (next == 'h') {
+                        out[o++] = 'X';
+                        i++;
+                    } else if (next == 'i' && (next2 == 'o' || next2 == 'a')) {
+                        out[o++] = 'X';
+                    } else {
+                        out[o++] = 'S';
+                    }
+                    break;
+                case 't':
+                    if (next == 'i' && (next2 == 'a' || next2 == 'o')) {
+                        out[o++] = 'X';
+                    } else if (next == 'h') {
+                        out[o++] = '0';
+                        i++;
+                    } else if (!(next == 'c' && next2 == 'h')) {
+                        out[o++] = 'T';
+                    }
+                    break;
+                case 'v':
+                    out[o++] = 'F';
+                    break;
+                case 'w':
+                case 'y':
+                    if (isVowel(next)) out[o++] = Character.toUpperCase(c);
+                    break;
+                case 'x':
+                    out[o++] = 'K';
+                    out[o++] = 'S';
+                    break;
+                case 'z':
+                    out[o++] = 'S';
+                    break;
+                case 'f': case 'j': case 'l': case 'm': case 'n': case 'r':
+                    out[o++] = Character.toUpperCase(c);
+                    break;
+                default:
+                    break;
+            }
+        }
+        return o;
+    }
+
+    private static boolean isVowel(char c) {
+        return c == 'a' || c == 'e' || c == 'i' || c == 'o' || c == 'u';
+    }
+}
@@ -0,0 +1,126 @@
+package com.shreyanshi.scamshield.detection;
+
+import java.util.Arrays;
+
+/**
+ * BK-tree over the phonetic keys of every rule phrase, for finding rules whose key is
+ * within a small edit distance of what the recognizer produced. Built once with the
+ * {@link RuleSet}; lookups are done by {@link FuzzyMatcher} with its own scratch space.
+ */
+final class PhoneticIndex {
+
+    // Phrases shorter than this (letters only) are too easy to hit by accident
+    static final int MIN_LETTERS = 5;
+    // Shorter keys collide with everyday words ("police" and "please" are both PLS)
+    static final int MIN_KEY = 4;
+
+    private static final int NONE = -1;
+
+    // Node n's key is keyPool[keyStart[n], keyStart[n + 1])
+    final char[] keyPool;
+    final int[] keyStart;
+    final int[] rule;
+    // Children of a node are a linked list; edge[child] is its distance to the parent
+    final int[] firstChild;
+    final int[] nextSibling;
+    final int[] edge;
+    final int size;
+    final int maxKeyLength;
+
+    PhoneticIndex(RuleSet rules) {
+        int n = rules.size();
+        char[] pool = new char[64];
+        int[] starts = new int[n + 1];
+        int[] ruleOf = new int[n];
+        char[] letters = new char[16];
+        char[] key = new char[Phonetic.maxKeyLength(letters.length)];
+        int nodes = 0;
+        int poolUsed = 0;
+        int maxKey = 0;
+
+        for (int id = 0; id < n; id++) {
+            // derived rules have no text, and terms only count inside their proximity rules
+            if (rules.isDerived(id) || !rules.hasSource(id, ~RuleSet.SOURCE_TERM)) continue;
+            String phrase = rules.phrase(id);
+            if (letters.length < phrase.length()) {
+                letters = new char[phrase.length()];
+                key = new char[Phonetic.maxKeyLength(letters.length)];
+            }
+            int len = compactLetters(phrase, letters);
+            if (len < MIN_LETTERS) continue;
+            int k = Phonetic.encode(letters, len, key);
+            if (k < MIN_KEY) continue;
+            if (pool.length < poolUsed + k) pool = Arrays.copyOf(pool, Math.max(pool.length * 2, poolUsed + k));
+            System.arraycopy(key, 0, pool, poolUsed, k);
+            starts[nodes] = poolUsed;
+            ruleOf[nodes] = id;
+            poolUsed += k;
+            maxKey = Math.max(maxKey, k);
+            nodes++;
+            starts[nodes] = poolUsed;
+        }
+
+        keyPool = pool;
+        keyStart = starts;
+        rule = ruleOf;
+        size = nodes;
+        maxKeyLength = maxKey;
+        firstChild = new int[nodes];
+        nextSibling = new int[nodes];
+        edge = new int[nodes];
+        Arrays.fill(firstChild, NONE);
+        Arrays.fill(nextSibling, NONE);
+
+        int[] row0 = new int[maxKey + 1];
+        int[] row1 = new int[maxKey + 1];
+        for (int node = 1; node < nodes; node++) {
+            int parent = 0;
+            while (true) {
+                int d = distance(pool, keyStart[node], keyLength(node), parent, row0, row1);
+                int child = firstChild[parent];
+                while (child != NONE && edge[child] != d) child = nextSibling[child];
+                if (child == NONE) {
+                    edge[node] = d;
+                    nextSibling[node] = firstChild[parent];
+                    firstChild[parent] = node;
+                    break;
+                }
+                parent = child;
+            }
+        }
+    }
+
+    int keyLength(int node) {
+        return keyStart[node + 1] - keyStart[node];
+    }
+
+    // Levenshtein distance between q[qStart, qStart + qLen) and the key of node; rows must hold keyLength + 1
+    int distance(char[] q, int qStart, int qLen, int node, int[] row0, int[] row1) {
+        int kStart = keyStart[node];
+        int kLen = keyLength(node);
+        for (int j = 0; j <= kLen; j++) row0[j] = j;
+        for (int i = 1; i <= qLen; i++) {
+            row1[0] = i;
+            char c = q[qStart + i - 1];
+            for (int j = 1; j <= kLen; j++) {
+                int cost = keyPool[kStart + j - 1] == c ? 0 : 1;
+                row1[j] = Math.min(Math.min(row1[j - 1] + 1, row0[j] + 1), row0[j - 1] + cost);
+            }
+            int[] t = row0;
+            row0 = row1;
+            row1 = t;
+        }
+        return row0[kLen];
+    }
+
+    // Lowercase letters of a phrase with spaces and hyphens dropped; -1 if it has anything else
+    static int compactLetters(String phrase, char[] out) {
+        int n = 0;
+        for (int i = 0; i < phrase.length(); i++) {
+            char c = phrase.charAt(i);
+            if (c >= 'a' && c <= 'z') out[n++] = c;
+            else if (c != ' ' && c != '-') return -1;
+        }
+        return n;
+    }
+}
@@ -0,0 +1,97 @@
+package com.shreyanshi.scamshield.detection;
+
+import java.util.Arrays;
+
+/**
+ * Per-call state of the {@link ProximityRules}: for every slot, the latest token position
+ * at which the rule is satisfied up to that slot. A term hit updates only the slots of the
+ * rules that use the term, so the cost is proportional to the number of hits, whatever
+ * the number of rules.
+ *
+ * <p>Term hits come from {@link MatchSession}, which rewinds when the recognizer revises
+ * earlier words. Every slot write is journaled with the end offset of the hit that caused
+ * it, so {@link #rewind(int)} can undo exactly the hits that are about to be reported
+ * again. Not thread-safe.
+ */
+public final class ProximityMatcher {
+
+    // Slot writes that can be undone; older ones are forgotten
+    static final int JOURNAL = 256;
+    private static final int NONE = Integer.MIN_VALUE / 2;
+
+    private final ProximityRules rules;
+    private final int[] slotPos;
+
+    private final int[] journalSlot = new int[JOURNAL];
+    private final int[] journalOld = new int[JOURNAL];
+    private final int[] journalEnd = new int[JOURNAL];
+    private int journaled; // total recorded; the live ones are the last JOURNAL
+    // End offset of the newest write that fell out of the journal
+    private int forgottenEnd = -1;
+
+    public ProximityMatcher(RuleSet rules) {
+        this.rules = rules.proximity();
+        this.slotPos = new int[this.rules.slotCount()];
+        reset();
+    }
+
+    public void reset() {
+        Arrays.fill(slotPos, NONE);
+        journaled = 0;
+        forgottenEnd = -1;
+    }
+
+    /**
+     * Undo every hit that ended after offset, because the matcher will report the text
+     * from there again. If some of them have already fallen out of the journal, all
+     * state is dropped instead.
+     */
+    public void rewind(int offset) {
+        int oldest = Math.max(0, journaled - JOURNAL);
+        while (journaled > oldest) {
+            int k = (journaled - 1) % JOURNAL;
+            if (journalEnd[k] <= offset) return;
+            slotPos[journalSlot[k]] = journalOld[k];
+            journaled--;
+        }
+        if (forgottenEnd > offset) reset();
+    }
+
+    /**
+     * A rule id was matched, ending in token number token at character offset end.
+     * Reports every proximity rule it completes to listener.
+     */
+    public void onTerm(int termId, int token, int end, KeywordAutomaton.MatchListener listener) {
+        ProximityRules r = rules;
+        for (int i = r.termStart[termId]; i < r.termStart[termId + 1]; i++) {
+            int slot = r.termSlot[i];
+            int rule = r.slotRule[slot];
+            int first = r.slotStart[rule];
+            int last = r.slotStart[rule + 1] - 1;
+
+            if (r.near[rule]) {
+                int other = slot == first ? last : first;
+                if (token - slotPos[other] <= r.slotDistance[slot]) listener.onMatch(r.ruleId[rule], end);
+                set(slot, token, end);
+            } else if (slot == first) {
+                set(slot, token, end);
+            } else {
+                int prev = slotPos[slot - 1];
+                if (token > prev && token - prev <= r.slotDistance[slot]) {
+                    if (slot == last) listener.onMatch(r.ruleId[rule], end);
+                    else set(slot, token, end);
+                }
+            }
+        }
+    }
+
+    private void set(int slot, int token, int end) {
+        if (slotPos[slot] == token) return;
+        int k = journaled++ % JOURNAL;
+        if (journaled > JOURNAL) forgottenEnd = Math.max(forgottenEnd, journalEnd[k]);
+        journalSlot[k] = slot;
+        journalOld[k] = slotPos[slot];
+        journalEnd[k] = end;
+        slotPos[slot] = token;
+    }
+}
@@ -0,0 +1,138 @@
+package com.shreyanshi.scamshield.detection;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compiled proximity and sequence rules, built once with the {@link RuleSet}:
+ * <ul>
+ *   <li>{@code a NEAR/n b}: a and b within n tokens of each other, in either order</li>
+ *   <li>{@code a THEN/n b THEN/m c}: b at most n tokens after a, then c at most m after b</li>
+ * </ul>
+ * Terms are phrases of one or more words, matched by the automaton like any other rule;
+ * a term's position is the token its match ends in. Every (rule, term position) pair is a
+ * slot, and each term id lists the slots it feeds, so a term hit touches only the rules
+ * that mention it. The per-call state lives in {@link ProximityMatcher}.
+ */
+final class ProximityRules {
+
+    // Parsed form of one rule expression
+    static final class Expression {
+        final List<String> terms = new ArrayList<>();
+        final List<Integer> distances = new ArrayList<>();
+        boolean near;
+    }
+
+    // RuleSet id fired by each proximity rule
+    final int[] ruleId;
+    // Slots of rule r are [slotStart[r], slotStart[r + 1])
+    final int[] slotStart;
+    final boolean[] near;
+    // Most tokens between this slot's term and the previous one (for NEAR, the other one)
+    final int[] slotDistance;
+    final int[] slotRule;
+    // Slots fed by term id t are termSlot[termStart[t], termStart[t + 1]), later slots of a rule first
+    final int[] termStart;
+    final int[] termSlot;
+
+    ProximityRules(int ruleCount, List<Integer> ids, List<Expression> expressions, Map<String, Integer> index) {
+        int count = ids.size();
+        ruleId = new int[count];
+        slotStart = new int[count + 1];
+        near = new boolean[count];
+        int slots = 0;
+        for (int r = 0; r < count; r++) {
+            ruleId[r] = ids.get(r);
+            near[r] = expressions.get(r).near;
+            slotStart[r] = slots;
+            slots += expressions.get(r).terms.size();
+        }
+        slotStart[count] = slots;
+
+        slotDistance = new int[slots];
+        slotRule = new int[slots];
+        int[] slotTerm = new int[slots];
+        termStart = new int[ruleCount + 1];
+        for (int r = 0; r < count; r++) {
+            Expression e = expressions.get(r);
+            for (int i = 0; i < e.terms.size(); i++) {
+                int s = slotStart[r] + i;
+                slotRule[s] = r;
+                slotTerm[s] = index.get(e.terms.get(i));
+                slotDistance[s] = i == 0 ? (e.near ? e.distances.get(0) : 0) : e.distances.get(i - 1);
+                termStart[slotTerm[s] + 1]++;
+            }
+        }
+        for (int t = 0; t < ruleCount; t++) termStart[t + 1] += termStart[t];
+        termSlot = new int[slots];
+        int[] fill = new int[ruleCount];
+        // walk slots backwards so each term lists a rule's later slots first
+        for (int s = slots - 1; s >= 0; s--) {
+            int t = slotTerm[s];
+            termSlot[termStart[t] + fill[t]++] = s;
+        }
+    }
+
+    int size() {
+        return ruleId.length;
+    }
+
+    int slotCount() {
+        return termSlot.length;
+    }
+
+    /**
+     * Parse "a NEAR/n b" or "a THEN/n b [THEN/m c ...]"; operators are case-insensitive.
+     *
+     * @throws IllegalArgumentException if the expression is not one of those forms
+     */
+    static Expression parse(String expression) {
+        Expression e = new Expression();
+        StringBuilder term = new StringBuilder();
+        String op = null;
+        for (String word : expression.trim().toLowerCase(Locale.ROOT).split("\\s+")) {
+            int slash = word.indexOf('/');
+            String name = slash > 0 ? word.substring(0, slash) : null;
+            if (!"near".equals(name) && !"then".equals(name)) {
+                if (term.length() > 0) term.append(' ');
+                term.append(word);
+                continue;
+            }
+            if (term.length() == 0) throw new IllegalArgumentException("Missing term before " + word + " in: " + expression);
+            if (op != null && (!op.equals(name) || name.equals("near"))) {
+                throw new IllegalArgumentException("Only THEN can be chained: " + expression);
+            }
+            int distance;
+            try {
+                distance = Integer.parseInt(word.substring(slash + 1));
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Bad distance in " + word + ": " + expression);
+            }
+            if (distance < 1) throw new IllegalArgumentException("Distance must be positive: " + expression);
+            op = name;
+            e.terms.add(term.toString());
+            e.distances.add(distance);
+            term.setLength(0);
+        }
+        if (op == null || term.length() == 0) {
+            throw new IllegalArgumentException("Expected a NEAR/n b or a THEN/n b: " + expression);
+        }
+        e.terms.add(term.toString());
+        e.near = op.equals("near");
+        if (e.near && e.terms.get(0).equals(e.terms.get(1))) {
+            throw new IllegalArgumentException("Use THEN to find a repeated term: " + expression);
+        }
+        return e;
+    }
+
+    // The expression written the way RuleSet stores it, so weights and messages can find it
+    static String canonical(Expression e) {
+        StringBuilder sb = new StringBuilder(e.terms.get(0));
+        for (int i = 1; i < e.terms.size(); i++) {
+            sb.append(e.near ? " near/" : " then/").append(e.distances.get(i - 1)).append(' ').append(e.terms.get(i));
+        }
+        return sb.toString();
+    }
+}
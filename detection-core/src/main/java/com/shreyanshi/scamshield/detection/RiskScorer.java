@@ -0,0 +1,137 @@
+package com.shreyanshi.scamshield.detection;
+
+import java.util.Arrays;
+
+/**
+ * Per-call risk score built from recent rule hits. Each rule contributes its weight once
+ * (for its latest hit), halved every {@code halfLifeMs} and dropped after {@code windowMs},
+ * so a lone "bank" never alerts but several strong phrases in quick succession do.
+ *
+ * Hits are kept in fixed-size primitive ring buffers, so memory does not grow with the
+ * length of the call. An alert fires when the score crosses the threshold and the scorer
+ * re-arms only after the score has decayed below half of it, which keeps a burst of
+ * partial results from raising one alert per partial. Not thread-safe.
+ */
+public final class RiskScorer {
+
+    // Hits remembered per call; older ones fall out even if they are inside the window
+    static final int CAPACITY = 32;
+    private static final float REARM_FRACTION = 0.5f;
+
+    private final RuleSet rules;
+    private final float threshold;
+    private final long halfLifeMs;
+    private final long windowMs;
+
+    private final int[] hitRule = new int[CAPACITY];
+    private final long[] hitTime = new long[CAPACITY];
+    private int hits; // total recorded; the live ones are the last CAPACITY
+
+    // seenStamp[rule] == stamp marks a rule already counted in the current pass
+    private final int[] seenStamp;
+    private int stamp;
+
+    private boolean armed = true;
+    private float lastScore;
+
+    public RiskScorer(RuleSet rules, float threshold, long halfLifeMs, long windowMs) {
+        this.rules = rules;
+        this.threshold = threshold;
+        this.halfLifeMs = halfLifeMs;
+        this.windowMs = windowMs;
+        this.seenStamp = new int[rules.size()];
+    }
+
+    public void reset() {
+        hits = 0;
+        armed = true;
+        lastScore = 0f;
+    }
+
+    public float threshold() {
+        return threshold;
+    }
+
+    // Score as of the last call to onMatch or score
+    public float lastScore() {
+        return lastScore;
+    }
+
+    /**
+     * Record a rule hit at nowMs (monotonic clock).
+     *
+     * @return true if this hit pushed the score over the threshold and an alert should fire
+     */
+    public boolean onMatch(int ruleId, long nowMs) {
+        // proximity terms and other weightless rules would only take a slot
+        if (rules.weight(ruleId) <= 0f) return false;
+        if (!armed && score(nowMs) < threshold * REARM_FRACTION) armed = true;
+        int k = hits++ % CAPACITY;
+        hitRule[k] = ruleId;
+        hitTime[k] = nowMs;
+        float s = score(nowMs);
+        if (armed && s >= threshold) {
+            armed = false;
+            return true;
+        }
+        return false;
+    }
+
+    // Decayed sum of the weights of distinct rules hit within the window
+    public float score(long nowMs) {
+        nextStamp();
+        float sum = 0f;
+        int oldest = Math.max(0, hits - CAPACITY);
+        for (int i = hits - 1; i >= oldest; i--) {
+            int k = i % CAPACITY;
+            long age = nowMs - hitTime[k];
+            if (age > windowMs) continue;
+            int rule = hitRule[k];
+            if (seenStamp[rule] == stamp) continue;
+            seenStamp[rule] = stamp;
+            sum += rules.weight(rule) * decay(Math.max(0, age));
+        }
+        lastScore = sum;
+        return sum;
+    }
+
+    /**
+     * Distinct rules currently contributing to the score, highest weight first.
+     * Fills out and returns how many ids were written.
+     */
+    public int activeRules(long nowMs, int[] out) {
+        nextStamp();
+        int n = 0;
+        int oldest = Math.max(0, hits - CAPACITY);
+        for (int i = hits - 1; i >= oldest && n < out.length; i--) {
+            int k = i % CAPACITY;
+            if (nowMs - hitTime[k] > windowMs) continue;
+            int rule = hitRule[k];
+            if (seenStamp[rule] == stamp) continue;
+            seenStamp[rule] = stamp;
+            out[n++] = rule;
+        }
+        // insertion sort by weight, descending; n is at most CAPACITY
+        for (int i = 1; i < n; i++) {
+            int id = out[i];
+            int j = i - 1;
+            while (j >= 0 && rules.weight(out[j]) < rules.weight(id)) {
+                out[j + 1] = out[j];
+                j--;
+            }
+            out[j + 1] = id;
+        }
+        return n;
+    }
+
+    private float decay(long ageMs) {
+        return (float) Math.pow(0.5, (double) ageMs / halfLifeMs);
+    }
+
+    private void nextStamp() {
+        if (++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(seenStamp, 0);
+            stamp = 1;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.shreyanshi.scamshield.detection;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Every scam phrase we know about, merged from all rule sources into one id space.
+ * A phrase listed by several sources gets a single id with all of their source bits set,
+ * and the whole set is compiled into one {@link KeywordAutomaton}.
+ */
+public final class RuleSet {
+
+    // ScamDetector.KEYWORDS (two or more of these flag a transcript as a scam)
+    public static final int SOURCE_KEYWORD = 1;
+    // ScamDetector.RULES (phrases with a user-facing explanation)
+    public static final int SOURCE_RULE = 1 << 1;
+    // Phrases the live call monitor alerts on
+    public static final int SOURCE_LIVE = 1 << 2;
+    // Values found by EntityScanner; the phrase only names them and is never matched as text
+    public static final int SOURCE_ENTITY = 1 << 3;
+    // "a NEAR/n b" and "a THEN/n b" rules, fired by ProximityMatcher
+    public static final int SOURCE_PROXIMITY = 1 << 4;
+    // Terms of proximity rules; on their own they weigh nothing unless another source lists them
+    public static final int SOURCE_TERM = 1 << 5;
+
+    // Weight of a phrase nobody gave an explicit weight; two of them make an alert
+    public static final float DEFAULT_WEIGHT = 0.5f;
+
+    private final String[] phrases;
+    private final int[] sources;
+    private final float[] weights;
+    private final String[] messages;
+    private final KeywordAutomaton automaton;
+    private final PhoneticIndex phoneticIndex;
+    private final ProximityRules proximity;
+
+    private RuleSet(Builder b) {
+        int n = b.phrases.size();
+        phrases = b.phrases.toArray(new String[n]);
+        messages = b.messages.toArray(new String[n]);
+        sources = new int[n];
+        weights = new float[n];
+        for (int i = 0; i < n; i++) {
+            sources[i] = b.sources.get(i);
+            Float w = b.weights.get(phrases[i]);
+            weights[i] = w != null ? w : sources[i] == SOURCE_TERM ? 0f : DEFAULT_WEIGHT;
+        }
+        List<String> patterns = new ArrayList<>(b.phrases);
+        List<Integer> proximityIds = new ArrayList<>();
+        List<ProximityRules.Expression> expressions = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (!isDerived(i)) continue;
+            // an empty pattern keeps the id but never matches
+            patterns.set(i, "");
+            if (hasSource(i, SOURCE_PROXIMITY)) {
+                proximityIds.add(i);
+                expressions.add(b.expressions.get(phrases[i]));
+            }
+        }
+        automaton = KeywordAutomaton.build(patterns);
+        phoneticIndex = new PhoneticIndex(this);
+        proximity = new ProximityRules(n, proximityIds, expressions, b.index);
+    }
+
+    public int size() {
+        return phrases.length;
+    }
+
+    public String phrase(int id) {
+        return phrases[id];
+    }
+
+    public boolean hasSource(int id, int source) {
+        return (sources[id] & source) != 0;
+    }
+
+    // Rules fired by a scanner or by other rules rather than by matching their phrase
+    boolean isDerived(int id) {
+        return hasSource(id, SOURCE_ENTITY | SOURCE_PROXIMITY);
+    }
+
+    // Contribution of one hit of this rule to a call's risk score
+    public float weight(int id) {
+        return weights[id];
+    }
+
+    // May be null for phrases that only come from keyword lists
+    public String message(int id) {
+        return messages[id];
+    }
+
+    public int idOf(String phrase) {
+        String p = phrase.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < phrases.length; i++) {
+            if (phrases[i].equals(p)) return i;
+        }
+        return -1;
+    }
+
+    public KeywordAutomaton automaton() {
+        return automaton;
+    }
+
+    PhoneticIndex phoneticIndex() {
+        return phoneticIndex;
+    }
+
+    ProximityRules proximity() {
+        return proximity;
+    }
+
+    public static class Builder {
+        private final Map<String, Integer> index = new HashMap<>();
+        private final List<String> phrases = new ArrayList<>();
+        private final List<Integer> sources = new ArrayList<>();
+        private final List<String> messages = new ArrayList<>();
+        private final Map<String, Float> weights = new HashMap<>();
+        private final Map<String, ProximityRules.Expression> expressions = new HashMap<>();
+
+        public Builder add(String phrase, int source) {
+            return add(phrase, source, null);
+        }
+
+        public Builder add(String phrase, int source, String message) {
+            String p = phrase.trim().toLowerCase(Locale.ROOT);
+            if (p.isEmpty()) return this;
+            Integer id = index.get(p);
+            if (id == null) {
+                index.put(p, phrases.size());
+                phrases.add(p);
+                sources.add(source);
+                messages.add(message);
+            } else {
+                sources.set(id, sources.get(id) | source);
+                if (messages.get(id) == null) messages.set(id, message);
+            }
+            return this;
+        }
+
+        /**
+         * Add a proximity or sequence rule such as "share NEAR/8 otp" or
+         * "remote THEN/5 install"; its terms are added as {@link #SOURCE_TERM} phrases.
+         * Weights and messages are looked up by the expression in lowercase.
+         *
+         * @throws IllegalArgumentException if the expression can't be parsed
+         */
+        public Builder addProximity(String expression, String message) {
+            ProximityRules.Expression e = ProximityRules.parse(expression);
+            for (String term : e.terms) add(term, SOURCE_TERM);
+            String canonical = ProximityRules.canonical(e);
+            expressions.put(canonical, e);
+            return add(canonical, SOURCE_PROXIMITY, message);
+        }
+
+        public Builder addProximity(Map<String, String> rules) {
+            for (Map.Entry<String, String> e : rules.entrySet()) addProximity(e.getKey(), e.getValue());
+            return this;
+        }
+
+        public Builder addAll(List<String> list, int source) {
+            for (String p : list) add(p, source);
+            return this;
+        }
+
+        public Builder addAll(Map<String, String> rules, int source) {
+            for (Map.Entry<String, String> e : rules.entrySet()) add(e.getKey(), source, e.getValue());
+            return this;
+        }
+
+        // Weights for phrases that are not part of the set are ignored
+        public Builder weights(Map<String, Float> phraseWeights) {
+            for (Map.Entry<String, Float> e : phraseWeights.entrySet()) {
+                weights.put(e.getKey().trim().toLowerCase(Locale.ROOT), e.getValue());
+            }
+            return this;
+        }
+
+        public RuleSet build() {
+            return new RuleSet(this);
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.shreyanshi.scamshield.detection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
+
+public class ScamDetector {
+
+    private static final List<String> KEYWORDS =
+            Arrays.asList("otp", "bank", "urgent", "account", "blocked", "kyc");
+
+    // New rule map for user-friendly messages
+    private static final Map<String, String> RULES = new HashMap<>();
+    static {
+        RULES.put("otp", "Caller asked for an OTP (one-time password). Never share OTP with anyone.");
+        RULES.put("one-time password", "Caller asked for an OTP (one-time password). Never share OTP with anyone.");
+        RULES.put("password", "Caller requested your password/PIN. Do not disclose passwords.");
+        RULES.put("pin", "Caller requested your password/PIN. Do not disclose passwords.");
+        RULES.put("account number", "Caller asked for your bank account details. Banks do not ask for these by phone.");
+        RULES.put("bank account", "Caller asked for your bank account details. Banks do not ask for these by phone.");
+        RULES.put("social security", "Caller asked for Social Security / national ID. This is suspicious.");
+        RULES.put("ssn", "Caller asked for Social Security / national ID. This is suspicious.");
+        RULES.put("prize", "Prize/lottery scam language detected. Do not pay or share personal data.");
+        RULES.put("winner", "Prize/lottery scam language detected. Do not pay or share personal data.");
+        RULES.put("warrant", "Threatening legal consequences detected. Verify with official channels.");
+        RULES.put("police", "Threatening legal consequences detected. Verify with official channels.");
+        RULES.put("tax", "Tax-related scam language detected. Authorities do not demand immediate payment by phone.");
+        RULES.put("remote access", "Caller asked to install remote access software. Do not allow remote access.");
+        RULES.put("teamviewer", "Caller asked to install TeamViewer/AnyDesk. Do not allow remote access.");
+        RULES.put("anydesk", "Caller asked to install TeamViewer/AnyDesk. Do not allow remote access.");
+        RULES.put("western union", "Request to send money via wire transfer detected. This is a common scam.");
+        RULES.put("send money", "Request to send money via wire transfer detected. This is a common scam.");
+    }
+
+    // Secrets read out on the call, found by EntityScanner rather than by phrase matching
+    private static final Map<String, String> ENTITY_RULES = new HashMap<>();
+    static {
+        ENTITY_RULES.put(EntityScanner.OTP, "A one-time code was read out on the call. Never share OTP with anyone.");
+        ENTITY_RULES.put(EntityScanner.CARD, "A card number was read out on the call. Never share card details by phone.");
+        ENTITY_RULES.put(EntityScanner.ACCOUNT, "An account or ID number was read out on the call. Banks do not ask for these by phone.");
+        ENTITY_RULES.put(EntityScanner.IFSC, "Bank branch (IFSC) details were read out on the call. Banks do not ask for these by phone.");
+        ENTITY_RULES.put(EntityScanner.UPI, "A UPI ID was given on the call. Do not send money to it or approve its requests.");
+    }
+
+    // Words that are harmless alone but not together: "a NEAR/n b" within n words either way,
+    // "a THEN/n b" with b at most n words after a. Terms nobody else lists weigh nothing.
+    private static final Map<String, String> PROXIMITY_RULES = new HashMap<>();
+    static {
+        PROXIMITY_RULES.put("share NEAR/8 otp", "Caller asked you to share an OTP. Never share OTP with anyone.");
+        PROXIMITY_RULES.put("share NEAR/6 pin", "Caller asked you to share your PIN. Do not disclose passwords.");
+        PROXIMITY_RULES.put("install NEAR/6 remote", "Caller asked to install remote access software. Do not allow remote access.");
+        PROXIMITY_RULES.put("download THEN/6 app", "Caller asked you to download an app. Do not install apps a caller asks for.");
+        PROXIMITY_RULES.put("account THEN/4 blocked", "Caller claims your account is blocked. Verify with your bank's official number.");
+        PROXIMITY_RULES.put("pay THEN/6 processing fee", "Caller asked for a fee to release money. Prizes and loans never need an upfront fee.");
+        PROXIMITY_RULES.put("gift card THEN/8 code", "Caller asked for gift card codes. No real agency takes payment in gift cards.");
+        PROXIMITY_RULES.put("arrest NEAR/10 pay", "Caller threatened arrest unless you pay. Police do not collect payments by phone.");
+    }
+
+    // Phrases the live call monitor alerts on, most specific first
+    public static final List<String> LIVE_KEYWORDS = Collections.unmodifiableList(Arrays.asList(
+            "otp", "one time password", "pin", "password", "account blocked", "verify your account",
+            "bank", "transfer", "money", "verify", "card number", "upi", "paytm", "netbanking",
+            "reset password", "remote access", "confirm code", "lottery", "gift card", "customer care",
+            "blocked", "locked", "account"
+    ));
+
+    // Risk each phrase adds to a call; anything not listed gets RuleSet.DEFAULT_WEIGHT.
+    // A phrase that contains other phrases also scores them, e.g. "bank account" adds
+    // "bank" and "account" on top of its own weight.
+    private static final Map<String, Float> WEIGHTS = new HashMap<>();
+    static {
+        // asking for a secret or for remote control is enough on its own
+        WEIGHTS.put("otp", 1.0f);
+        WEIGHTS.put("one-time password", 1.0f);
+        WEIGHTS.put("one time password", 1.0f);
+        WEIGHTS.put("password", 1.0f);
+        WEIGHTS.put("remote access", 1.0f);
+        WEIGHTS.put("teamviewer", 1.0f);
+        WEIGHTS.put("anydesk", 1.0f);
+        WEIGHTS.put("western union", 1.0f);
+        WEIGHTS.put("gift card", 1.0f);
+        WEIGHTS.put("social security", 0.8f);
+        WEIGHTS.put("ssn", 0.8f);
+        WEIGHTS.put("confirm code", 0.8f);
+        WEIGHTS.put("card number", 0.7f);
+        WEIGHTS.put("pin", 0.6f);
+        WEIGHTS.put("send money", 0.6f);
+        WEIGHTS.put("account blocked", 0.6f);
+        WEIGHTS.put("verify your account", 0.6f);
+        WEIGHTS.put("bank account", 0.4f);
+        WEIGHTS.put("prize", 0.4f);
+        WEIGHTS.put("winner", 0.4f);
+        WEIGHTS.put("upi", 0.4f);
+        WEIGHTS.put("netbanking", 0.4f);
+        WEIGHTS.put("paytm", 0.3f);
+        WEIGHTS.put("customer care", 0.3f);
+        // the secret itself being read out
+        WEIGHTS.put(EntityScanner.OTP, 1.0f);
+        WEIGHTS.put(EntityScanner.CARD, 1.0f);
+        WEIGHTS.put(EntityScanner.UPI, 1.0f);
+        WEIGHTS.put(EntityScanner.ACCOUNT, 0.8f);
+        WEIGHTS.put(EntityScanner.IFSC, 0.8f);
+        // words that only count together, see PROXIMITY_RULES
+        WEIGHTS.put("share near/8 otp", 1.0f);
+        WEIGHTS.put("share near/6 pin", 1.0f);
+        WEIGHTS.put("install near/6 remote", 1.0f);
+        WEIGHTS.put("download then/6 app", 0.4f);
+        WEIGHTS.put("account then/4 blocked", 0.4f);
+        WEIGHTS.put("pay then/6 processing fee", 0.8f);
+        WEIGHTS.put("gift card then/8 code", 1.0f);
+        WEIGHTS.put("arrest near/10 pay", 0.8f);
+        // everyday words that only matter in combination
+        WEIGHTS.put("bank", 0.2f);
+        WEIGHTS.put("account", 0.2f);
+        WEIGHTS.put("blocked", 0.2f);
+        WEIGHTS.put("locked", 0.2f);
+        WEIGHTS.put("verify", 0.2f);
+        WEIGHTS.put("money", 0.2f);
+        WEIGHTS.put("transfer", 0.2f);
+        WEIGHTS.put("urgent", 0.2f);
+        WEIGHTS.put("tax", 0.2f);
+        WEIGHTS.put("police", 0.2f);
+    }
+
+    // Score at which a call is treated as a scam
+    public static final float ALERT_THRESHOLD = 1.0f;
+    // A hit counts half as much after this long and not at all after the window
+    public static final long SCORE_HALF_LIFE_MS = 20_000;
+    public static final long SCORE_WINDOW_MS = 60_000;
+
+    // All the phrase lists compiled into one automaton so a transcript is scanned once
+    private static final RuleSet RULE_SET = new RuleSet.Builder()
+            .addAll(KEYWORDS, RuleSet.SOURCE_KEYWORD)
+            .addAll(RULES, RuleSet.SOURCE_RULE)
+            .addAll(LIVE_KEYWORDS, RuleSet.SOURCE_LIVE)
+            .addAll(ENTITY_RULES, RuleSet.SOURCE_ENTITY)
+            .addProximity(PROXIMITY_RULES)
+            .weights(WEIGHTS)
+            .build();
+    private static final int[] KEYWORD_IDS = idsOf(KEYWORDS);
+
+    private static int[] idsOf(List<String> phrases) {
+        int[] ids = new int[phrases.size()];
+        for (int i = 0; i < ids.length; i++) ids[i] = RULE_SET.idOf(phrases.get(i));
+        return ids;
+    }
+
+    public static RuleSet rules() {
+        return RULE_SET;
+    }
+
+    // Matcher plus time-decayed scorer for one call
+    public static DetectionSession newDetection(float threshold) {
+        return new DetectionSession(RULE_SET,
+                new RiskScorer(RULE_SET, threshold, SCORE_HALF_LIFE_MS, SCORE_WINDOW_MS));
+    }
+
+    private static final ThreadLocal<TextScanner> SCANNER =
+            ThreadLocal.withInitial(() -> new TextScanner(RULE_SET));
+
+    /**
+     * Every rule id found in the text by the exact, proximity, fuzzy and entity passes. Does
+     * not allocate; the returned set belongs to the calling thread and is reused by its next call.
+     */
+    public static MatchSet scan(CharSequence text) {
+        return SCANNER.get().scan(text);
+    }
+
+    // No timing for a one-off text, so every rule in it counts at full weight
+    public static boolean isScam(MatchSet matches) {
+        float score = 0f;
+        for (int i = 0; i < matches.size(); i++) score += RULE_SET.weight(matches.get(i));
+        return score >= ALERT_THRESHOLD;
+    }
+
+    public static class ScamResult {
+        public boolean isScam;
+        public List<String> matchedKeywords;
+
+        ScamResult(boolean s, List<String> k) {
+            isScam = s;
+            matchedKeywords = k;
+        }
+    }
+
+    public static ScamResult detect(String text) {
+        List<String> found = new ArrayList<>();
+        if (text == null) return new ScamResult(false, found);
+        MatchSet seen = scan(text);
+        for (int id : KEYWORD_IDS) {
+            if (seen.contains(id)) found.add(RULE_SET.phrase(id));
+        }
+        return new ScamResult(isScam(seen), found);
+    }
+
+    // New: return list of matched keywords (for backward compatibility with service code)
+    public static List<String> detectKeywords(String transcript) {
+        List<String> matches = new ArrayList<>();
+        if (transcript == null) return matches;
+        MatchSet seen = scan(transcript);
+        for (int i = 0; i < seen.size(); i++) {
+            int id = seen.get(i);
+            if (RULE_SET.hasSource(id, RuleSet.SOURCE_RULE)) matches.add(RULE_SET.phrase(id));
+        }
+        return matches;
+    }
+
+    // New: build an aggregated alert message from matched rules
+    public static String buildAlertMessage(List<String> matches, String transcript) {
+        if (matches == null || matches.isEmpty()) return "Potential scam detected";
+        StringBuilder sb = new StringBuilder();
+        for (String k : matches) {
+            String msg = RULES.get(k);
+            if (msg != null) {
+                sb.append(msg).append(" ");
+            }
+        }
+        String out = sb.toString().trim();
+        return out.isEmpty() ? "Potential scam detected" : out;
+    }
+
+    /**
+     * Alert text for the rules behind a session's current score, for the overlay, the
+     * notification and the alert screen. Rules without a message of their own are plain
+     * words and are listed as such. Only call this when an alert fires.
+     */
+    public static String buildAlertMessage(DetectionSession session, long nowMs) {
+        int n = session.activeRules(nowMs);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            String msg = RULE_SET.message(session.activeRule(i));
+            // several phrases share a message
+            if (msg != null && sb.indexOf(msg) < 0) sb.append(msg).append(" ");
+        }
+        String out = sb.toString().trim();
+        if (!out.isEmpty()) return out;
+        List<String> words = alertReasons(session, nowMs);
+        return words.isEmpty() ? "Potential scam detected" : "Suspicious words: " + String.join(", ", words);
+    }
+
+    // What to show for each rule behind the current score: its message, or the words it matches
+    public static List<String> alertReasons(DetectionSession session, long nowMs) {
+        int n = session.activeRules(nowMs);
+        List<String> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            int id = session.activeRule(i);
+            String msg = RULE_SET.message(id);
+            // proximity and entity phrases are rule syntax; they always have a message
+            String reason = msg != null ? msg : RULE_SET.phrase(id);
+            if (!out.contains(reason)) out.add(reason);
+        }
+        return out;
+    }
+}
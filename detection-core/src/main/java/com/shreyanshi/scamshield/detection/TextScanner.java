@@ -0,0 +1,43 @@
+package com.shreyanshi.scamshield.detection;
+
+/**
+ * Exact, proximity, fuzzy and entity matching of one complete text into a reused
+ * {@link MatchSet}. For a growing hypothesis use {@link DetectionSession} instead.
+ * Not thread-safe.
+ */
+public final class TextScanner {
+
+    private final MatchSession exact;
+    private final ProximityMatcher proximity;
+    private final FuzzyMatcher fuzzy;
+    private final NumberNormalizer numbers = new NumberNormalizer();
+    private final EntityScanner entities;
+    private final MatchSet matches;
+    private final KeywordAutomaton.MatchListener collect;
+    private final KeywordAutomaton.MatchListener collectExact;
+
+    public TextScanner(RuleSet rules) {
+        this.exact = new MatchSession(rules.automaton());
+        this.proximity = new ProximityMatcher(rules);
+        this.fuzzy = new FuzzyMatcher(rules);
+        this.entities = new EntityScanner(rules);
+        this.matches = new MatchSet(rules.size());
+        this.collect = (id, end) -> matches.add(id);
+        this.collectExact = (id, end) -> {
+            proximity.onTerm(id, exact.tokenIndex(), end, collect);
+            matches.add(id);
+        };
+    }
+
+    // The returned set is reused by the next call
+    public MatchSet scan(CharSequence text) {
+        matches.clear();
+        if (text == null) return matches;
+        exact.reset();
+        proximity.reset();
+        exact.update(text, collectExact);
+        fuzzy.scan(text, 0, collect);
+        entities.scan(numbers.update(text, 0), 0, collect);
+        return matches;
+    }
+}
@@ -0,0 +1,101 @@
+package com.shreyanshi.scamshield.metrics;
+
+import java.util.Locale;
+
+/**
+ * How long each stage between speech and the user seeing an alert takes, one
+ * {@link LatencyHistogram} per stage. Times are milliseconds on one monotonic clock, such
+ * as SystemClock.elapsedRealtime(). Only the latest dispatched alert is followed to the
+ * screen; one replaced before it was shown counts in {@link #DISPATCH} only.
+ * Thread-safe.
+ */
+public final class DetectionLatency {
+
+    // Audio captured to a recognizer hypothesis containing it; only for recognizers fed by our own capture
+    public static final int CAPTURE = 0;
+    // Hypothesis to a match in it, including the wait in the detection queue
+    public static final int MATCH = 1;
+    // Match that crossed the threshold to the alert being sent
+    public static final int DISPATCH = 2;
+    // Alert sent to the overlay drawn or the notification posted
+    public static final int DISPLAY = 3;
+    // From the earliest stamp we have for the alert, capture or hypothesis, to the screen
+    public static final int TOTAL = 4;
+    public static final int STAGES = 5;
+
+    private static final String[] NAMES = {"capture", "match", "dispatch", "display", "total"};
+
+    private final LatencyHistogram[] stages = new LatencyHistogram[STAGES];
+    private long pendingStartMs = -1;
+    private long pendingDispatchMs = -1;
+
+    public DetectionLatency() {
+        for (int i = 0; i < STAGES; i++) stages[i] = new LatencyHistogram();
+    }
+
+    public static String name(int stage) {
+        return NAMES[stage];
+    }
+
+    public synchronized void record(int stage, long ms) {
+        stages[stage].record(ms);
+    }
+
+    /** An alert went out at dispatchedMs for speech first seen at startMs. */
+    public synchronized void onAlertDispatched(long startMs, long matchedMs, long dispatchedMs) {
+        stages[DISPATCH].record(dispatchedMs - matchedMs);
+        pendingStartMs = startMs;
+        pendingDispatchMs = dispatchedMs;
+    }
+
+    /** The alert dispatched at dispatchedMs reached the screen at nowMs. */
+    public synchronized void onAlertDisplayed(long dispatchedMs, long nowMs) {
+        stages[DISPLAY].record(nowMs - dispatchedMs);
+        if (dispatchedMs != pendingDispatchMs) return;
+        stages[TOTAL].record(nowMs - pendingStartMs);
+        pendingDispatchMs = -1;
+    }
+
+    // A copy of one stage's histogram
+    public synchronized LatencyHistogram stage(int stage) {
+        LatencyHistogram copy = new LatencyHistogram();
+        copy.add(stages[stage]);
+        return copy;
+    }
+
+    public synchronized void add(DetectionLatency other) {
+        for (int i = 0; i < STAGES; i++) stages[i].add(other.stage(i));
+    }
+
+    public synchronized void reset() {
+        for (LatencyHistogram h : stages) h.reset();
+        pendingDispatchMs = -1;
+    }
+
+    /** One line per stage: count, p50, p90, p99 and max in milliseconds. */
+    public synchronized void dump(StringBuilder out) {
+        for (int i = 0; i < STAGES; i++) {
+            LatencyHistogram h = stages[i];
+            out.append(String.format(Locale.ROOT, "%-9s n=%-6d p50=%-6d p90=%-6d p99=%-6d max=%d%n",
+                    NAMES[i], h.count(), h.percentile(50), h.percentile(90), h.percentile(99), h.max()));
+        }
+    }
+
+    // Stages' encoded histograms, one per line, for storage
+    public synchronized String encode() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < STAGES; i++) {
+            if (i > 0) sb.append('\n');
+            sb.append(stages[i].encode());
+        }
+        return sb.toString();
+    }
+
+    public static DetectionLatency decode(String s) {
+        DetectionLatency latency = new DetectionLatency();
+        if (s == null) return latency;
+        String[] lines = s.split("\n");
+        for (int i = 0; i < Math.min(STAGES, lines.length); i++) latency.stages[i] = LatencyHistogram.decode(lines[i]);
+        return latency;
+    }
+}
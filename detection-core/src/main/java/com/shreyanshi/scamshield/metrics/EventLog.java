@@ -0,0 +1,227 @@
+package com.shreyanshi.scamshield.metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A ring of the last few thousand pipeline events, as fixed-size binary records: an event
+ * code, two numbers and the wall-clock time. Logging one writes 32 bytes in place, with no
+ * formatting and no allocation, so it is cheap enough for every partial result.
+ *
+ * <p>{@link #open} maps the ring from a file. What is written to the mapping is in the
+ * kernel's page cache the moment it is written, so it outlives the process: after a crash,
+ * the next start (or {@link EventLogDump}, on a copy of the file) reads the events that led
+ * up to it. It does not survive the phone losing power. Records are numbered, and the number
+ * is written last; one being written when the process died is skipped.
+ *
+ * <p>Log and {@link #tail} from any thread. The buffer's plain puts aren't ordered for other
+ * threads, so in-process each slot is also numbered in an atomic array, and a writer or
+ * reader owns the slot while it touches the bytes. A writer that finds its slot being read
+ * loses that event rather than wait, and counts it in {@link #lost()}.
+ */
+public final class EventLog {
+
+    // A call started or ended
+    public static final int CALL_START = 1;
+    public static final int CALL_END = 2;
+    // a: engine, 0 Vosk or 1 Google
+    public static final int RECOGNIZER_START = 3;
+    public static final int RECOGNIZER_STOP = 4;
+    public static final int RECOGNIZER_UNAVAILABLE = 5;
+    // a: stream, b: characters in the hypothesis
+    public static final int PARTIAL = 6;
+    public static final int FINAL = 7;
+    // a: rule id, b: stream
+    public static final int MATCH = 8;
+    // a: stream, b: ms from the speech behind it to the alert
+    public static final int ALERT = 9;
+    public static final int ALERT_THROTTLED = 10;
+    // b: ms from the alert being raised to its first frame
+    public static final int ALERT_SHOWN = 11;
+    // b: id of the thread that threw
+    public static final int CRASH = 12;
+
+    private static final String[] NAMES = {"?", "call_start", "call_end", "recognizer_start",
+            "recognizer_stop", "recognizer_unavailable", "partial", "final", "match", "alert",
+            "alert_throttled", "alert_shown", "crash"};
+
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    static final int MAGIC = 0x5353454c; // "SSEL"
+    static final int VERSION = 1;
+    static final int HEADER = 32;
+    // seq, time, event, a, b
+    static final int RECORD = 32;
+    // In seqs while a thread is writing or reading the slot
+    private static final long BUSY = -1;
+
+    /** One decoded event. */
+    public static final class Record {
+        // Numbered from 1 in the order they were logged, across restarts
+        public final long seq;
+        public final long timeMs;
+        public final int event;
+        public final int a;
+        public final long b;
+
+        Record(long seq, long timeMs, int event, int a, long b) {
+            this.seq = seq;
+            this.timeMs = timeMs;
+            this.event = event;
+            this.a = a;
+            this.b = b;
+        }
+
+        @Override
+        public String toString() {
+            SimpleDateFormat format = new SimpleDateFormat("MM-dd HH:mm:ss.SSS", Locale.US);
+            return String.format(Locale.US, "%8d %s %-22s %6d %8d", seq, format.format(new Date(timeMs)), name(event), a, b);
+        }
+    }
+
+    private final ByteBuffer buffer;
+    private final int capacity;
+    private final AtomicLong next;
+    // The number of the record in each slot; the set after writing publishes it to readers
+    private final AtomicLongArray seqs;
+    private final AtomicLong lost = new AtomicLong();
+
+    EventLog(ByteBuffer buffer) {
+        this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+        this.capacity = (buffer.capacity() - HEADER) / RECORD;
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(8) != RECORD
+                || buffer.getInt(12) != capacity) {
+            // new, or written by another version: start over
+            for (int i = 0; i < buffer.capacity(); i += 8) buffer.putLong(i, 0);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, RECORD);
+            buffer.putInt(12, capacity);
+        }
+        // carry on numbering after what an earlier process logged
+        long last = 0;
+        seqs = new AtomicLongArray(capacity);
+        for (int slot = 0; slot < capacity; slot++) {
+            long seq = buffer.getLong(HEADER + slot * RECORD);
+            // a number that doesn't belong in its slot would block it for good
+            if (seq <= 0 || seq % capacity != slot) continue;
+            seqs.set(slot, seq);
+            last = Math.max(last, seq);
+        }
+        next = new AtomicLong(last + 1);
+    }
+
+    /** A ring mapped from file, created with room for capacity events or reopened as it was left. */
+    public static EventLog open(File file, int capacity) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            // the mapping stays valid once the channel is closed
+            return new EventLog(raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, HEADER + (long) capacity * RECORD));
+        }
+    }
+
+    // A ring in memory only, for when the file can't be opened
+    public static EventLog inMemory(int capacity) {
+        return new EventLog(ByteBuffer.allocateDirect(HEADER + capacity * RECORD));
+    }
+
+    public static String name(int event) {
+        return event > 0 && event < NAMES.length ? NAMES[event] : "event_" + event;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public void log(int event, int a, long b) {
+        long seq = next.getAndIncrement();
+        int slot = (int) (seq % capacity);
+        long held = seqs.get(slot);
+        // tail() is reading the slot, or a writer a whole ring ahead of us has it
+        if (held < 0 || held > seq || !seqs.compareAndSet(slot, held, BUSY)) {
+            lost.incrementAndGet();
+            return;
+        }
+        int at = HEADER + slot * RECORD;
+        // invalid in the file until the number goes back in last
+        buffer.putLong(at, 0);
+        buffer.putLong(at + 8, System.currentTimeMillis());
+        buffer.putInt(at + 16, event);
+        buffer.putInt(at + 20, a);
+        buffer.putLong(at + 24, b);
+        buffer.putLong(at, seq);
+        seqs.set(slot, seq);
+    }
+
+    public void log(int event) {
+        log(event, 0, 0);
+    }
+
+    // Events not logged because their slot was busy
+    public long lost() {
+        return lost.get();
+    }
+
+    // The last n events, oldest first
+    public List<Record> tail(int n) {
+        List<Record> records = new ArrayList<>();
+        for (int slot = 0; slot < capacity; slot++) {
+            long seq = seqs.get(slot);
+            if (seq <= 0 || seq % capacity != slot || !seqs.compareAndSet(slot, seq, BUSY)) continue;
+            try {
+                records.add(record(buffer, HEADER + slot * RECORD));
+            } finally {
+                seqs.set(slot, seq);
+            }
+        }
+        return last(records, n);
+    }
+
+    /** Decode every event in a copy of the ring, oldest first. */
+    public static List<Record> read(ByteBuffer bytes) throws IOException {
+        bytes.order(ByteOrder.LITTLE_ENDIAN);
+        if (bytes.capacity() < HEADER || bytes.getInt(0) != MAGIC) throw new IOException("Not an event log");
+        if (bytes.getInt(4) != VERSION || bytes.getInt(8) != RECORD) {
+            throw new IOException("Unsupported event log version " + bytes.getInt(4));
+        }
+        int capacity = Math.min(bytes.getInt(12), (bytes.capacity() - HEADER) / RECORD);
+        return read(bytes, capacity, capacity);
+    }
+
+    // Only for a copy no one is writing to
+    private static List<Record> read(ByteBuffer bytes, int capacity, int n) {
+        List<Record> records = new ArrayList<>();
+        for (int slot = 0; slot < capacity; slot++) {
+            int at = HEADER + slot * RECORD;
+            long seq = bytes.getLong(at);
+            if (seq > 0 && seq % capacity == slot) records.add(record(bytes, at));
+        }
+        return last(records, n);
+    }
+
+    private static Record record(ByteBuffer bytes, int at) {
+        return new Record(bytes.getLong(at), bytes.getLong(at + 8), bytes.getInt(at + 16), bytes.getInt(at + 20), bytes.getLong(at + 24));
+    }
+
+    // Sorted oldest first, then the last n
+    private static List<Record> last(List<Record> records, int n) {
+        Collections.sort(records, (x, y) -> Long.compare(x.seq, y.seq));
+        return records.size() > n ? new ArrayList<>(records.subList(records.size() - n, records.size())) : records;
+    }
+
+    // One line per record
+    public static void dump(List<Record> records, StringBuilder out) {
+        for (Record r : records) out.append(r).append('\n');
+    }
+}
@@ -0,0 +1,35 @@
+package com.shreyanshi.scamshield.metrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Prints an {@link EventLog} file pulled off a phone, oldest event first:
+ *
+ * <pre>
+ * adb pull /sdcard/Android/data/com.shreyanshi.scamshield/files/logs/events.bin
+ * java -cp detection-core.jar com.shreyanshi.scamshield.metrics.EventLogDump events.bin [last n]
+ * </pre>
+ */
+public final class EventLogDump {
+
+    private EventLogDump() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("usage: EventLogDump <events.bin> [last n]");
+            System.exit(2);
+        }
+        List<EventLog.Record> records = EventLog.read(ByteBuffer.wrap(Files.readAllBytes(Paths.get(args[0]))));
+        if (args.length > 1) {
+            int n = Integer.parseInt(args[1]);
+            if (records.size() > n) records = records.subList(records.size() - n, records.size());
+        }
+        StringBuilder out = new StringBuilder();
+        EventLog.dump(records, out);
+        System.out.print(out);
+    }
+}
@@ -0,0 +1,134 @@
+package com.shreyanshi.scamshield.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Latencies in milliseconds, counted in log-linear buckets: exact below 16 ms, then eight
+ * buckets per power of two, so any value is known to within 12.5%. Memory is fixed at
+ * {@link #BUCKETS} counters however many values are recorded; values past
+ * {@link #MAX_VALUE} count as that. Not thread-safe.
+ */
+public final class LatencyHistogram {
+
+    // Values below this get a bucket each
+    private static final int LINEAR = 16;
+    // Buckets per power of two above that
+    private static final int SUB_BITS = 3;
+    private static final int SUB = 1 << SUB_BITS;
+    private static final int MAX_BIT = 20;
+    public static final long MAX_VALUE = (1L << MAX_BIT) - 1;
+    static final int BUCKETS = LINEAR + (MAX_BIT - 4) * SUB;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long sum;
+    private long max;
+
+    public void record(long ms) {
+        long v = Math.max(0, Math.min(MAX_VALUE, ms));
+        counts[index(v)]++;
+        count++;
+        sum += v;
+        if (v > max) max = v;
+    }
+
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) counts[i] += other.counts[i];
+        count += other.count;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        max = 0;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public long max() {
+        return max;
+    }
+
+    public long mean() {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    /** The value at or below which percent of the values fall, rounded up to its bucket's top; 0 if empty. */
+    public long percentile(double percent) {
+        if (count == 0) return 0;
+        long target = Math.max(1, (long) Math.ceil(percent / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= target) return Math.min(highest(i), max);
+        }
+        return max;
+    }
+
+    // A histogram with these bucket counts, e.g. copied from a concurrent one
+    static LatencyHistogram of(long[] counts, long sum, long max) {
+        LatencyHistogram h = new LatencyHistogram();
+        for (int i = 0; i < BUCKETS; i++) {
+            h.counts[i] = counts[i];
+            h.count += counts[i];
+        }
+        h.sum = sum;
+        h.max = max;
+        return h;
+    }
+
+    static int index(long v) {
+        if (v < LINEAR) return (int) v;
+        int bit = 63 - Long.numberOfLeadingZeros(v);
+        return LINEAR + (bit - 4) * SUB + (int) ((v >> (bit - SUB_BITS)) & (SUB - 1));
+    }
+
+    static long lowest(int index) {
+        if (index < LINEAR) return index;
+        int bit = (index - LINEAR) / SUB + 4;
+        return (long) (SUB + (index - LINEAR) % SUB) << (bit - SUB_BITS);
+    }
+
+    static long highest(int index) {
+        return index == BUCKETS - 1 ? MAX_VALUE : lowest(index + 1) - 1;
+    }
+
+    /** Compact text form for storage: sum, max, then the non-empty buckets. */
+    public String encode() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(sum).append(' ').append(max);
+        for (int i = 0; i < BUCKETS; i++) {
+            if (counts[i] != 0) sb.append(' ').append(i).append(':').append(counts[i]);
+        }
+        return sb.toString();
+    }
+
+    /** Parse what {@link #encode()} wrote; anything malformed gives an empty histogram. */
+    public static LatencyHistogram decode(String s) {
+        LatencyHistogram h = new LatencyHistogram();
+        if (s == null || s.isEmpty()) return h;
+        try {
+            String[] parts = s.split(" ");
+            long sum = Long.parseLong(parts[0]);
+            long max = Long.parseLong(parts[1]);
+            for (int i = 2; i < parts.length; i++) {
+                int colon = parts[i].indexOf(':');
+                int index = Integer.parseInt(parts[i].substring(0, colon));
+                long n = Long.parseLong(parts[i].substring(colon + 1));
+                if (index < 0 || index >= BUCKETS || n < 0) return new LatencyHistogram();
+                h.counts[index] += n;
+                h.count += n;
+            }
+            h.sum = sum;
+            h.max = max;
+        } catch (RuntimeException e) {
+            return new LatencyHistogram();
+        }
+        return h;
+    }
+}
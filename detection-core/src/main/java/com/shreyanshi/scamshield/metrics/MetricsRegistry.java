@@ -0,0 +1,195 @@
+package com.shreyanshi.scamshield.metrics;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Named counters, gauges, meters and histograms for one process. Look a metric up once,
+ * off the hot path, and keep it: recording is a few atomic operations and allocates
+ * nothing. Lookups get or create, and are synchronized; recording is lock-free from any
+ * thread. {@link #dump(StringBuilder)} prints everything, sorted by name.
+ */
+public final class MetricsRegistry {
+
+    /** A count that only goes up. */
+    public static final class Counter {
+        private final AtomicLong value = new AtomicLong();
+
+        public void inc() {
+            value.incrementAndGet();
+        }
+
+        public void add(long n) {
+            value.addAndGet(n);
+        }
+
+        public long get() {
+            return value.get();
+        }
+    }
+
+    /** The latest value of something, set by whoever knows it. */
+    public static final class Gauge {
+        private volatile long value;
+
+        public void set(long value) {
+            this.value = value;
+        }
+
+        public long get() {
+            return value;
+        }
+    }
+
+    /**
+     * Events per second over the last minute, in one-second slots. Two threads starting a
+     * new second at once may lose a count; it is a rate, not a ledger.
+     */
+    public static final class Meter {
+        static final int SECONDS = 60;
+        private final AtomicLong total = new AtomicLong();
+        private final AtomicLongArray counts = new AtomicLongArray(SECONDS);
+        private final AtomicLongArray seconds = new AtomicLongArray(SECONDS);
+
+        Meter() {
+            for (int i = 0; i < SECONDS; i++) seconds.set(i, Long.MIN_VALUE);
+        }
+
+        public void mark() {
+            mark(nowMs());
+        }
+
+        void mark(long nowMs) {
+            total.incrementAndGet();
+            long second = Math.floorDiv(nowMs, 1000);
+            int i = Math.floorMod(second, SECONDS);
+            long seen = seconds.get(i);
+            if (seen != second && seconds.compareAndSet(i, seen, second)) counts.set(i, 0);
+            counts.incrementAndGet(i);
+        }
+
+        public long total() {
+            return total.get();
+        }
+
+        // Average over the complete seconds of the last minute
+        public double rate() {
+            return rate(nowMs());
+        }
+
+        double rate(long nowMs) {
+            long second = Math.floorDiv(nowMs, 1000);
+            long n = 0;
+            for (int i = 0; i < SECONDS; i++) {
+                long s = seconds.get(i);
+                if (s < second && s > second - SECONDS) n += counts.get(i);
+            }
+            return n / (double) (SECONDS - 1);
+        }
+    }
+
+    /** Values such as latencies in milliseconds, in {@link LatencyHistogram}'s buckets. */
+    public static final class Histogram {
+        private final AtomicLongArray counts = new AtomicLongArray(LatencyHistogram.BUCKETS);
+        private final AtomicLong sum = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        public void record(long value) {
+            long v = Math.max(0, Math.min(LatencyHistogram.MAX_VALUE, value));
+            counts.incrementAndGet(LatencyHistogram.index(v));
+            sum.addAndGet(v);
+            long m;
+            while (v > (m = max.get()) && !max.compareAndSet(m, v)) {
+                // another thread raised it; try again against the new maximum
+            }
+        }
+
+        // A copy to read percentiles from; allocates
+        public LatencyHistogram snapshot() {
+            long[] c = new long[LatencyHistogram.BUCKETS];
+            for (int i = 0; i < c.length; i++) c[i] = counts.get(i);
+            return LatencyHistogram.of(c, sum.get(), max.get());
+        }
+    }
+
+    private static long nowMs() {
+        return System.nanoTime() / 1_000_000;
+    }
+
+    // Guarded by this
+    private final Map<String, Object> metrics = new TreeMap<>();
+
+    public synchronized Counter counter(String name) {
+        return get(name, Counter.class, Counter::new);
+    }
+
+    public synchronized Gauge gauge(String name) {
+        return get(name, Gauge.class, Gauge::new);
+    }
+
+    public synchronized Meter meter(String name) {
+        return get(name, Meter.class, Meter::new);
+    }
+
+    public synchronized Histogram histogram(String name) {
+        return get(name, Histogram.class, Histogram::new);
+    }
+
+    /** A gauge read from value when dumped, e.g. a queue's depth; replaces an earlier one of that name. */
+    public synchronized void gauge(String name, LongSupplier value) {
+        Object existing = metrics.get(name);
+        if (existing != null && !(existing instanceof LongSupplier)) {
+            throw new IllegalArgumentException(name + " is already a " + existing.getClass().getSimpleName());
+        }
+        metrics.put(name, value);
+    }
+
+    /** Replace the sampled gauges named prefix... with their current values, e.g. before what they read goes away. */
+    public synchronized void freeze(String prefix) {
+        for (Map.Entry<String, Object> e : metrics.entrySet()) {
+            if (!e.getKey().startsWith(prefix) || !(e.getValue() instanceof LongSupplier)) continue;
+            long value = ((LongSupplier) e.getValue()).getAsLong();
+            e.setValue((LongSupplier) () -> value);
+        }
+    }
+
+    private <T> T get(String name, Class<T> type, Supplier<T> create) {
+        Object m = metrics.get(name);
+        if (m == null) {
+            m = create.get();
+            metrics.put(name, m);
+        } else if (!type.isInstance(m)) {
+            throw new IllegalArgumentException(name + " is already a " + m.getClass().getSimpleName());
+        }
+        return type.cast(m);
+    }
+
+    /** One line per metric, sorted by name. */
+    public synchronized void dump(StringBuilder out) {
+        for (Map.Entry<String, Object> e : metrics.entrySet()) {
+            out.append(e.getKey()).append(' ');
+            Object m = e.getValue();
+            if (m instanceof Counter) {
+                out.append(((Counter) m).get());
+            } else if (m instanceof Gauge) {
+                out.append(((Gauge) m).get());
+            } else if (m instanceof LongSupplier) {
+                out.append(((LongSupplier) m).getAsLong());
+            } else if (m instanceof Meter) {
+                Meter meter = (Meter) m;
+                out.append(meter.total()).append(String.format(Locale.ROOT, " (%.2f/s)", meter.rate()));
+            } else {
+                LatencyHistogram h = ((Histogram) m).snapshot();
+                out.append("n=").append(h.count()).append(" p50=").append(h.percentile(50))
+                        .append(" p90=").append(h.percentile(90)).append(" p99=").append(h.percentile(99))
+                        .append(" max=").append(h.max());
+            }
+            out.append('\n');
+        }
+    }
+}
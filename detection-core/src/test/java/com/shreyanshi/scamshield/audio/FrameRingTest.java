@@ -0,0 +1,69 @@
+package com.shreyanshi.scamshield.audio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+public class FrameRingTest {
+
+    @Test
+    public void fullRingDropsAndCounts() {
+        FrameRing ring = new FrameRing(3, 8);
+        assertEquals(4, ring.capacity());
+        for (int i = 0; i < 4; i++) {
+            ring.claim().putInt(i);
+            ring.publish(100 + i);
+        }
+        assertNull(ring.claim());
+        assertEquals(1, ring.overruns());
+        assertEquals(4, ring.depth());
+
+        ByteBuffer first = ring.take(0);
+        assertEquals(4, first.remaining());
+        assertEquals(0, first.getInt());
+        assertEquals(100, ring.stamp());
+        ring.release();
+        assertNotNull(ring.claim());
+        assertEquals(4, ring.maxDepth());
+    }
+
+    @Test
+    public void emptyRingTimesOut() {
+        assertNull(new FrameRing(4, 8).take(1_000_000));
+    }
+
+    @Test
+    public void framesArriveInOrderAcrossThreads() throws InterruptedException {
+        FrameRing ring = new FrameRing(8, 8);
+        int frames = 200_000;
+        long[] lastSeen = {-1};
+        long[] received = {0};
+        boolean[] ordered = {true};
+        Thread consumer = new Thread(() -> {
+            while (received[0] + ring.overruns() < frames || ring.depth() > 0) {
+                ByteBuffer b = ring.take(1_000_000);
+                if (b == null) continue;
+                long seq = b.getLong();
+                if (seq <= lastSeen[0]) ordered[0] = false;
+                lastSeen[0] = seq;
+                received[0]++;
+                ring.release();
+            }
+        });
+        consumer.start();
+        for (long i = 0; i < frames; i++) {
+            ByteBuffer b = ring.claim();
+            if (b == null) continue;
+            b.putLong(i);
+            ring.publish();
+        }
+        consumer.join(10_000);
+        assertEquals(true, ordered[0]);
+        assertEquals(frames, received[0] + ring.overruns());
+        assertEquals(received[0], ring.published());
+    }
+}
@@ -0,0 +1,166 @@
+package com.shreyanshi.scamshield.audio;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class RecognizerSupervisorTest {
+
+    // Manual clock and task queue standing in for SystemClock and a Handler
+    private static final class FakeHost implements RecognizerSupervisor.Host {
+        long now;
+        final List<Runnable> tasks = new ArrayList<>();
+        final List<Long> due = new ArrayList<>();
+
+        @Override
+        public long nowMs() {
+            return now;
+        }
+
+        @Override
+        public void postDelayed(Runnable task, long delayMs) {
+            tasks.add(task);
+            due.add(now + delayMs);
+        }
+
+        @Override
+        public void removeCallbacks(Runnable task) {
+            for (int i = tasks.size() - 1; i >= 0; i--) {
+                if (tasks.get(i) == task) {
+                    tasks.remove(i);
+                    due.remove(i);
+                }
+            }
+        }
+
+        void advance(long ms) {
+            long end = now + ms;
+            while (true) {
+                int first = -1;
+                for (int i = 0; i < due.size(); i++) {
+                    if (due.get(i) <= end && (first < 0 || due.get(i) < due.get(first))) first = i;
+                }
+                if (first < 0) break;
+                now = due.remove(first);
+                tasks.remove(first).run();
+            }
+            now = end;
+        }
+    }
+
+    // Counts starts; busy makes it refuse while the other one is finishing
+    private static final class FakeRecognizer implements RecognizerSupervisor.Recognizer {
+        int starts;
+        int cancels;
+
+        @Override
+        public void startListening() {
+            starts++;
+        }
+
+        @Override
+        public void cancel() {
+            cancels++;
+        }
+    }
+
+    private final FakeHost host = new FakeHost();
+    private final FakeRecognizer a = new FakeRecognizer();
+    private final FakeRecognizer b = new FakeRecognizer();
+    private final RecognizerSupervisor supervisor = new RecognizerSupervisor(a, b,
+            new RestartPacer(new VoiceActivityDetector(16_000)), host);
+
+    // A session on index that hears a few seconds of speech
+    private void speak(int index) {
+        supervisor.onReadyForSpeech(index);
+        for (int i = 0; i < 40; i++) {
+            supervisor.onRmsChanged(index, i >= 10 && i < 30 ? 8f : -2f + (i % 2) * 0.5f);
+            host.advance(50);
+        }
+    }
+
+    @Test
+    public void nextSessionStartsAtEndOfSpeech() {
+        supervisor.start();
+        assertEquals(1, a.starts);
+        host.advance(300);
+        speak(0);
+        supervisor.onEndOfSpeech(0);
+        // b takes over before a has its results
+        assertEquals(1, b.starts);
+        host.advance(40);
+        speak(1);
+        supervisor.onResults(0);
+        assertEquals(1, a.starts);
+        supervisor.onEndOfSpeech(1);
+        host.advance(60);
+        supervisor.onReadyForSpeech(0);
+        assertEquals(2, a.starts);
+
+        assertEquals(3, supervisor.gaps());
+        assertEquals(400, supervisor.uncoveredMs());
+        assertEquals(300, supervisor.maxGapMs());
+        assertEquals(2, supervisor.handoffs());
+        supervisor.stop();
+        assertEquals(1, a.cancels);
+        assertEquals(1, b.cancels);
+    }
+
+    @Test
+    public void busyRetriesUntilTheOtherIsDone() {
+        supervisor.start();
+        speak(0);
+        supervisor.onEndOfSpeech(0);
+        supervisor.onError(1, true);
+        host.advance(RecognizerSupervisor.BUSY_RETRY_MS);
+        assertEquals(2, b.starts);
+        supervisor.onError(1, true);
+        // a's results come first; it starts again without waiting for the retry
+        supervisor.onResults(0);
+        assertEquals(2, a.starts);
+        host.advance(RecognizerSupervisor.BUSY_RETRY_MS);
+        assertEquals(2, b.starts);
+    }
+
+    @Test
+    public void silentLineBacksOffAndCountsAsPaused() {
+        supervisor.start();
+        supervisor.onReadyForSpeech(0);
+        for (int i = 0; i < 100; i++) {
+            supervisor.onRmsChanged(0, -2f + (i % 2) * 0.5f);
+            host.advance(50);
+        }
+        // speech timeout
+        supervisor.onError(0, false);
+        host.advance(RestartPacer.SILENT_DELAY_MS - 1);
+        assertEquals(1, a.starts + b.starts);
+        host.advance(1);
+        assertEquals(2, a.starts + b.starts);
+        assertEquals(RestartPacer.SILENT_DELAY_MS, supervisor.pausedMs());
+        assertEquals(RestartPacer.SILENT_DELAY_MS, supervisor.uncoveredMs());
+    }
+
+    @Test
+    public void failedStartsBackOff() {
+        RecognizerSupervisor.Recognizer broken = new RecognizerSupervisor.Recognizer() {
+            @Override
+            public void startListening() {
+                throw new IllegalStateException("no recognition service");
+            }
+
+            @Override
+            public void cancel() {
+            }
+        };
+        RecognizerSupervisor s = new RecognizerSupervisor(broken, broken,
+                new RestartPacer(new VoiceActivityDetector(16_000)), host);
+        s.start();
+        assertEquals(1, host.tasks.size());
+        assertEquals(500L, (long) host.due.get(0));
+        host.advance(500);
+        assertEquals(1_500L, (long) host.due.get(0));
+    }
+}
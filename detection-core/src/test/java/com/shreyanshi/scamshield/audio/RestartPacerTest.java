@@ -0,0 +1,44 @@
+package com.shreyanshi.scamshield.audio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class RestartPacerTest {
+
+    private static void session(RestartPacer pacer, boolean speech) {
+        pacer.onSessionStart();
+        for (int i = 0; i < 40; i++) {
+            float db = speech && i >= 20 && i < 30 ? 8f : -2f + (i % 2) * 0.5f;
+            pacer.onLevel(db, i * 50L);
+        }
+    }
+
+    @Test
+    public void silentSessionsPauseBrieflyAndSpeechDoesNot() {
+        RestartPacer pacer = new RestartPacer(new VoiceActivityDetector(16_000));
+        for (int i = 0; i < 5; i++) {
+            session(pacer, false);
+            assertEquals(RestartPacer.SILENT_DELAY_MS, pacer.nextDelayMs(0));
+        }
+        session(pacer, false);
+        // a longer normal delay wins
+        assertEquals(300, pacer.nextDelayMs(300));
+        session(pacer, true);
+        assertEquals(0, pacer.nextDelayMs(0));
+        assertEquals(6, pacer.silentSessions());
+        assertEquals(7, pacer.sessions());
+        assertEquals(5 * RestartPacer.SILENT_DELAY_MS, pacer.deferredMs());
+    }
+
+    @Test
+    public void aSilentLineIsNeverLeftUnheardLongerThanOnePause() {
+        RestartPacer pacer = new RestartPacer(new VoiceActivityDetector(16_000));
+        for (int i = 0; i < 200; i++) {
+            session(pacer, false);
+            long delay = pacer.nextDelayMs(0);
+            assertTrue("delay " + delay + " after " + (i + 1) + " silent sessions", delay <= RestartPacer.SILENT_DELAY_MS);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.shreyanshi.scamshield.audio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+public class VoiceActivityDetectorTest {
+
+    private static final int RATE = 16_000;
+    // 100 ms frames, as AudioPipeline delivers them
+    private static final int FRAME = RATE / 10;
+
+    private final Random random = new Random(3);
+
+    // Line noise plus, depending on kind, a voice-like or steady signal
+    private byte[] frame(String kind, int index) {
+        byte[] pcm = new byte[FRAME * 2];
+        for (int i = 0; i < FRAME; i++) {
+            double t = (index * FRAME + i) / (double) RATE;
+            double s = random.nextGaussian() * 30;
+            if (kind.equals("speech")) {
+                // harmonics of a 140 Hz voice, four syllables a second with gaps between them
+                double envelope = Math.max(0, Math.sin(2 * Math.PI * 4 * t));
+                for (int k = 1; k <= 8; k++) s += envelope * 3000 / k * Math.sin(2 * Math.PI * 140 * k * t);
+            } else if (kind.equals("tone")) {
+                s += 4000 * Math.sin(2 * Math.PI * 425 * t);
+            } else if (kind.equals("hiss")) {
+                s += random.nextGaussian() * 150;
+            } else if (kind.equals("static")) {
+                s += random.nextGaussian() * 1000;
+            }
+            int v = (int) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, s));
+            pcm[2 * i] = (byte) v;
+            pcm[2 * i + 1] = (byte) (v >> 8);
+        }
+        return pcm;
+    }
+
+    // How many of count frames of kind the detector passes
+    private int speechFrames(VoiceActivityDetector vad, String kind, int count) {
+        int speech = 0;
+        for (int i = 0; i < count; i++) {
+            if (vad.process(frame(kind, i), FRAME * 2)) speech++;
+        }
+        return speech;
+    }
+
+    @Test
+    public void silenceAndHissAreSkipped() {
+        VoiceActivityDetector vad = new VoiceActivityDetector(RATE);
+        assertEquals(0, speechFrames(vad, "silence", 30));
+        assertEquals(0, speechFrames(vad, "hiss", 30));
+        // loud enough to pass as a fricative, but too steady to be a voice
+        speechFrames(vad, "static", 20);
+        assertEquals(0, speechFrames(vad, "static", 30));
+    }
+
+    @Test
+    public void speechOpensAndHangoverCloses() {
+        VoiceActivityDetector vad = new VoiceActivityDetector(RATE);
+        speechFrames(vad, "silence", 10);
+        assertTrue(vad.process(frame("speech", 0), FRAME * 2));
+        // syllable gaps are shorter than the hangover
+        assertEquals(19, speechFrames(vad, "speech", 19));
+        int open = 0;
+        while (vad.process(frame("silence", open), FRAME * 2)) open++;
+        assertTrue(open * 100 <= VoiceActivityDetector.HANGOVER_MS + 100);
+        assertFalse(vad.isSpeech());
+    }
+
+    @Test
+    public void steadyToneIsNotSpeech() {
+        VoiceActivityDetector vad = new VoiceActivityDetector(RATE);
+        speechFrames(vad, "silence", 10);
+        // a second to tell it from speech, then the gate stays shut
+        speechFrames(vad, "tone", 20);
+        assertEquals(0, speechFrames(vad, "tone", 30));
+    }
+
+    @Test
+    public void recognizerLevels() {
+        VoiceActivityDetector vad = new VoiceActivityDetector(RATE);
+        for (int i = 0; i < 20; i++) assertFalse(vad.onLevel(-2f + (i % 2) * 0.5f, 50));
+        vad.onLevel(7f, 50);
+        assertTrue(vad.onLevel(8f, 50));
+    }
+}
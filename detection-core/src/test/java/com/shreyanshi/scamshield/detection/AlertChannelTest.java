@@ -0,0 +1,52 @@
+package com.shreyanshi.scamshield.detection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+public class AlertChannelTest {
+
+    private final AlertChannel channel = new AlertChannel();
+    private final ArrayDeque<Runnable> posted = new ArrayDeque<>();
+    private final List<String> shown = new ArrayList<>();
+    private final AlertChannel.Subscriber subscriber = (keywords, raisedAtMs) -> shown.add(keywords + "@" + raisedAtMs);
+
+    private void runPosted() {
+        while (!posted.isEmpty()) posted.poll().run();
+    }
+
+    @Test
+    public void burstIsDeliveredOnceWithTheLatestAlert() {
+        channel.subscribe(subscriber, posted::add);
+        assertTrue(channel.publish("otp", 1));
+        assertTrue(channel.publish("otp, pin", 2));
+        assertTrue(channel.publish("otp, pin, bank account", 3));
+        assertEquals(1, posted.size());
+        runPosted();
+        assertEquals(List.of("otp, pin, bank account@3"), shown);
+        assertEquals(3, channel.published());
+        assertEquals(2, channel.coalesced());
+        assertEquals(1, channel.delivered());
+
+        channel.publish("pin", 4);
+        runPosted();
+        assertEquals(List.of("otp, pin, bank account@3", "pin@4"), shown);
+    }
+
+    @Test
+    public void withoutSubscriberPublishFails() {
+        assertFalse(channel.publish("otp", 1));
+        channel.subscribe(subscriber, posted::add);
+        channel.publish("otp", 2);
+        channel.unsubscribe(subscriber);
+        runPosted();
+        assertTrue(shown.isEmpty());
+        assertFalse(channel.publish("otp", 3));
+    }
+}
@@ -0,0 +1,58 @@
+package com.shreyanshi.scamshield.detection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class DetectionExecutorTest {
+
+    @Test
+    public void stalePartialsCoalesceAndFinalsStay() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> seen = new ArrayList<>();
+        DetectionExecutor executor = new DetectionExecutor("detection-test", 3, (stream, text, partial, stamp, capturedAt) -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            seen.add(stream + ":" + text + (partial ? "" : ".") + (stamp != 0 ? "@" + stamp : "")
+                    + (capturedAt != stamp ? "<" + capturedAt : ""));
+        });
+        executor.start();
+        executor.submit(0, "your", true);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // the worker is stuck on "your"; these wait
+        StringBuilder reused = new StringBuilder("your otp");
+        executor.submit(0, reused, true);
+        reused.append(" is");
+        executor.submit(0, reused, true);
+        executor.submit(1, "otp", true);
+        executor.submit(0, "your otp is four", false);
+        executor.submit(0, "share", true, 5, 3);
+        assertEquals(3, executor.depth());
+        // a full queue still takes the newer version of a waiting partial, stamps and all
+        assertTrue(executor.submit(0, "share it", false, 6, 4));
+        assertFalse(executor.submit(2, "bank", false));
+
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5_000));
+        assertEquals(Arrays.asList("0:your", "0:your otp is four.", "1:otp", "0:share it.@6<4"), seen);
+        assertEquals(3, executor.coalesced());
+        assertEquals(1, executor.dropped());
+        assertEquals(3, executor.maxDepth());
+        assertEquals(4, executor.processed());
+    }
+}
@@ -0,0 +1,77 @@
+package com.shreyanshi.scamshield.detection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * The per-partial path must not allocate: a call produces thousands of partial results
+ * and any garbage there turns into GC pauses on the audio thread. Measured with the
+ * HotSpot per-thread allocation counter, so it is skipped on VMs that don't have one.
+ */
+public class DetectionSessionAllocationTest {
+
+    private static final String CALL = "hello sir this is calling from your bank we noticed some activity "
+            + "on the account please confirm details and share the o t p with any desk now "
+            + "the code is four eight double two one six";
+
+    private static com.sun.management.ThreadMXBean threads() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) return null;
+        com.sun.management.ThreadMXBean sun = (com.sun.management.ThreadMXBean) bean;
+        if (!sun.isThreadAllocatedMemorySupported()) return null;
+        sun.setThreadAllocatedMemoryEnabled(true);
+        return sun;
+    }
+
+    // Every prefix at a word boundary, as a recognizer resends its growing hypothesis
+    private static String[] partials() {
+        String[] words = CALL.split(" ");
+        String[] out = new String[words.length];
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words.length; i++) {
+            if (i > 0) sb.append(' ');
+            sb.append(words[i]);
+            out[i] = sb.toString();
+        }
+        return out;
+    }
+
+    private static long allocatedBy(com.sun.management.ThreadMXBean bean, Runnable r) {
+        long tid = Thread.currentThread().getId();
+        // the counter call itself may allocate; measure it with an empty run and subtract
+        long before = bean.getThreadAllocatedBytes(tid);
+        long empty = bean.getThreadAllocatedBytes(tid) - before;
+        before = bean.getThreadAllocatedBytes(tid);
+        r.run();
+        return bean.getThreadAllocatedBytes(tid) - before - empty;
+    }
+
+    @Test
+    public void sessionUpdateDoesNotAllocate() {
+        com.sun.management.ThreadMXBean bean = threads();
+        assumeTrue(bean != null);
+        String[] partials = partials();
+        DetectionSession session = ScamDetector.newDetection(ScamDetector.ALERT_THRESHOLD);
+        Runnable call = () -> {
+            session.reset();
+            long t = 0;
+            for (String p : partials) session.update(p, t += 100);
+        };
+        // let the JIT settle so interpreter and compiler allocations don't count
+        for (int i = 0; i < 20_000; i++) call.run();
+        assertEquals(0, allocatedBy(bean, call));
+    }
+
+    @Test
+    public void scanDoesNotAllocate() {
+        com.sun.management.ThreadMXBean bean = threads();
+        assumeTrue(bean != null);
+        Runnable scan = () -> ScamDetector.isScam(ScamDetector.scan(CALL));
+        for (int i = 0; i < 20_000; i++) scan.run();
+        assertEquals(0, allocatedBy(bean, scan));
+    }
+}
@@ -0,0 +1,102 @@
+package com.shreyanshi.scamshield.detection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class EntityScannerTest {
+
+    private final RuleSet rules = new RuleSet.Builder()
+            .add(EntityScanner.OTP, RuleSet.SOURCE_ENTITY)
+            .add(EntityScanner.CARD, RuleSet.SOURCE_ENTITY)
+            .add(EntityScanner.ACCOUNT, RuleSet.SOURCE_ENTITY)
+            .add(EntityScanner.IFSC, RuleSet.SOURCE_ENTITY)
+            .add(EntityScanner.UPI, RuleSet.SOURCE_ENTITY)
+            .add("otp", RuleSet.SOURCE_RULE)
+            .build();
+
+    private List<String> entities(String text) {
+        List<String> out = new ArrayList<>();
+        new EntityScanner(rules).scan(text, 0, (id, end) -> out.add(rules.phrase(id)));
+        return out;
+    }
+
+    @Test
+    public void otpReadOutInPieces() {
+        assertEquals(List.of(EntityScanner.OTP), entities("the code is 4 8 2 9 1 6 okay"));
+        assertEquals(List.of(EntityScanner.OTP), entities("otp is 482 916."));
+        // read as pairs of numbers; the normalizer keeps each pair a group of its own
+        String paired = new NumberNormalizer().update("the code is forty five twenty one", 0).toString();
+        assertEquals(List.of(EntityScanner.OTP), entities(paired));
+    }
+
+    @Test
+    public void codesNeedACodeWordNearby() {
+        assertEquals(List.of(EntityScanner.OTP), entities("your otp for the transaction is 4 8 2 9"));
+        assertTrue(entities("it is 482 916.").isEmpty());
+        assertTrue(entities("my code got lost so long ago, now it is 4 8 2 9").isEmpty());
+    }
+
+    @Test
+    public void yearsPricesAndDatesAreNotCodes() {
+        String[] texts = {
+                "in nineteen ninety five we moved",
+                "it costs ninety nine ninety nine",
+                "the party is on twelve oh five twenty twenty four",
+                "happy birthday, see you at 7 30 on 12 05 2024"
+        };
+        for (String text : texts) {
+            assertTrue(text, entities(new NumberNormalizer().update(text, 0).toString()).isEmpty());
+            assertFalse(text, ScamDetector.isScam(ScamDetector.scan(text)));
+        }
+    }
+
+    @Test
+    public void singleNumbersAreNotCodes() {
+        assertTrue(entities("see you in 2024 with 5000 rupees").isEmpty());
+        assertTrue(entities("it costs 1,00,000 or 2.50 lakh").isEmpty());
+        assertTrue(entities("my number is 98765 43210").isEmpty());
+    }
+
+    @Test
+    public void cardNeedsLuhn() {
+        assertEquals(List.of(EntityScanner.CARD), entities("card 4111 1111 1111 1111 expiry"));
+        assertEquals(List.of(EntityScanner.CARD), entities("4111-1111-1111-1111"));
+        // one digit off: a long number, but not a card
+        assertEquals(List.of(EntityScanner.ACCOUNT), entities("card 4111 1111 1111 1112 expiry"));
+    }
+
+    @Test
+    public void accountIfscAndUpi() {
+        assertEquals(List.of(EntityScanner.ACCOUNT, EntityScanner.IFSC),
+                entities("account 50100234567 ifsc HDFC0001234."));
+        assertEquals(List.of(EntityScanner.UPI), entities("send it to ramesh.k@okaxis now"));
+        assertEquals(List.of(EntityScanner.UPI), entities("ramesh at the rate okaxis"));
+        assertTrue(entities("i paid at paytm yesterday").isEmpty());
+    }
+
+    @Test
+    public void entityPhrasesAreNotMatchedAsText() {
+        List<String> out = new ArrayList<>();
+        rules.automaton().scan("otp read out", (id, end) -> out.add(rules.phrase(id)));
+        assertEquals(List.of("otp"), out);
+    }
+
+    @Test
+    public void growingHypothesis() {
+        List<String> out = new ArrayList<>();
+        EntityScanner s = new EntityScanner(rules);
+        String before = "the code is 4 8";
+        String after = "the code is 4 8 2 9";
+        s.scan(before, 0, (id, end) -> out.add(rules.phrase(id)));
+        assertTrue(out.isEmpty());
+        // only "2 9" is new, but the run started before it
+        s.scan(after, before.length(), (id, end) -> out.add(rules.phrase(id)));
+        assertEquals(List.of(EntityScanner.OTP), out);
+    }
+}
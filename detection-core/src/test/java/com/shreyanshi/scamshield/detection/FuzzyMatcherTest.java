@@ -0,0 +1,59 @@
+package com.shreyanshi.scamshield.detection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class FuzzyMatcherTest {
+
+    private final RuleSet rules = new RuleSet.Builder()
+            .add("otp", RuleSet.SOURCE_RULE)
+            .add("pin", RuleSet.SOURCE_RULE)
+            .add("password", RuleSet.SOURCE_RULE)
+            .add("teamviewer", RuleSet.SOURCE_RULE)
+            .add("anydesk", RuleSet.SOURCE_RULE)
+            .build();
+
+    private List<String> fuzzy(String text) {
+        List<String> out = new ArrayList<>();
+        new FuzzyMatcher(rules).scan(text, 0, (id, end) -> {
+            if (!out.contains(rules.phrase(id))) out.add(rules.phrase(id));
+        });
+        return out;
+    }
+
+    @Test
+    public void spelledLetters() {
+        assertEquals(List.of("otp"), fuzzy("please read the o t p to me"));
+        assertEquals(List.of("otp"), fuzzy("tell me the oh tee pee"));
+    }
+
+    @Test
+    public void splitAndMisheardWords() {
+        assertEquals(List.of("anydesk"), fuzzy("install any desk now"));
+        assertEquals(List.of("teamviewer"), fuzzy("open team viewer"));
+        assertEquals(List.of("teamviewer"), fuzzy("download team viewers"));
+        assertEquals(List.of("password"), fuzzy("what is your pass word"));
+    }
+
+    @Test
+    public void shortWordsAreNotFuzzed() {
+        assertTrue(fuzzy("i need a pen and a pan").isEmpty());
+        assertTrue(fuzzy("the top of the hour").isEmpty());
+    }
+
+    @Test
+    public void onlyLooksAtChangedTail() {
+        List<String> out = new ArrayList<>();
+        FuzzyMatcher m = new FuzzyMatcher(rules);
+        String text = "open team viewer and then some more words";
+        m.scan(text, text.indexOf("and"), (id, end) -> out.add(rules.phrase(id)));
+        assertTrue(out.isEmpty());
+        m.scan(text, text.indexOf("viewer") + 2, (id, end) -> out.add(rules.phrase(id)));
+        assertEquals(List.of("teamviewer"), out);
+    }
+}
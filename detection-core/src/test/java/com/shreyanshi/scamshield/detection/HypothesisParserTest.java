@@ -0,0 +1,69 @@
+package com.shreyanshi.scamshield.detection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class HypothesisParserTest {
+
+    private static final String FINAL = "{\n"
+            + "  \"result\" : [{\n"
+            + "      \"conf\" : 1.000000,\n"
+            + "      \"end\" : 1.02,\n"
+            + "      \"start\" : 0.6,\n"
+            + "      \"word\" : \"share\"\n"
+            + "    }, {\n"
+            + "      \"conf\" : 0.482,\n"
+            + "      \"end\" : 1.5,\n"
+            + "      \"start\" : 1.02,\n"
+            + "      \"word\" : \"otp\"\n"
+            + "    }],\n"
+            + "  \"text\" : \"share otp\"\n"
+            + "}";
+
+    @Test
+    public void partialAndFinalText() {
+        HypothesisParser p = new HypothesisParser();
+        assertTrue(p.parse("{\n  \"partial\" : \"share the\"\n}"));
+        assertEquals("share the", p.text().toString());
+        assertTrue(p.isPartial());
+        assertTrue(p.parse(FINAL));
+        assertEquals("share otp", p.text().toString());
+        assertFalse(p.isPartial());
+        // words are skipped unless asked for
+        assertEquals(0, p.wordCount());
+    }
+
+    @Test
+    public void wordsWithConfidence() {
+        HypothesisParser p = new HypothesisParser();
+        p.setWords(true);
+        assertTrue(p.parse(FINAL));
+        assertEquals(2, p.wordCount());
+        assertEquals("otp", p.words().subSequence(p.wordStart(1), p.wordEnd(1)).toString());
+        assertEquals(0.482f, p.confidence(1), 1e-6f);
+        assertEquals(1.02f, p.startTime(1), 1e-6f);
+        assertEquals(1.5f, p.endTime(1), 1e-6f);
+    }
+
+    @Test
+    public void escapesAndUnknownFields() {
+        HypothesisParser p = new HypothesisParser();
+        assertTrue(p.parse("{\"alternatives\" : [{\"confidence\" : 1e2, \"text\" : \"x\"}], "
+                + "\"spk\" : null, \"text\" : \"a \\\"b\\\" \\u0915\"}"));
+        assertEquals("a \"b\" \u0915", p.text().toString());
+    }
+
+    @Test
+    public void malformedInput() {
+        HypothesisParser p = new HypothesisParser();
+        assertFalse(p.parse("{\"text\" : \"unterminated}"));
+        assertFalse(p.parse("{\"other\" : 1}"));
+        assertFalse(p.parse("[\"text\"]"));
+        assertFalse(p.parse(""));
+        assertFalse(p.parse(null));
+        assertEquals(0, p.text().length());
+    }
+}
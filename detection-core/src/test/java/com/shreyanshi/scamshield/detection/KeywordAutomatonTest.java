@@ -0,0 +1,45 @@
+package com.shreyanshi.scamshield.detection;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class KeywordAutomatonTest {
+
+    private static List<String> matches(KeywordAutomaton a, List<String> patterns, String text) {
+        List<String> out = new ArrayList<>();
+        a.scan(text, (id, end) -> out.add(patterns.get(id) + "@" + end));
+        return out;
+    }
+
+    @Test
+    public void findsOverlappingAndNestedPhrases() {
+        List<String> patterns = Arrays.asList("he", "she", "his", "hers");
+        KeywordAutomaton a = KeywordAutomaton.build(patterns);
+        assertEquals(Arrays.asList("she@4", "he@4", "hers@6"), matches(a, patterns, "ushers"));
+    }
+
+    @Test
+    public void foldsCaseWhileScanning() {
+        List<String> patterns = Arrays.asList("otp", "account blocked");
+        KeywordAutomaton a = KeywordAutomaton.build(patterns);
+        assertEquals(Arrays.asList("otp@8", "account blocked@34"),
+                matches(a, patterns, "Tell OTP now, your ACCOUNT Blocked"));
+    }
+
+    @Test
+    public void agreesWithContainsOnEveryRule() {
+        List<String> patterns = Arrays.asList("pin", "password", "reset password", "pass", "word");
+        KeywordAutomaton a = KeywordAutomaton.build(patterns);
+        String text = "please reset password and pin";
+        for (int id = 0; id < patterns.size(); id++) {
+            boolean[] seen = new boolean[patterns.size()];
+            a.scan(text, (m, end) -> seen[m] = true);
+            assertEquals(patterns.get(id), text.contains(patterns.get(id)), seen[id]);
+        }
+    }
+}
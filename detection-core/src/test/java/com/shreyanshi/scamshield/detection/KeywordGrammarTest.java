@@ -0,0 +1,29 @@
+package com.shreyanshi.scamshield.detection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class KeywordGrammarTest {
+
+    @Test
+    public void phrasesTermsAndNoDerivedRules() {
+        RuleSet rules = new RuleSet.Builder()
+                .add("One-Time Password", RuleSet.SOURCE_RULE)
+                .add("otp", RuleSet.SOURCE_LIVE)
+                .addProximity("share NEAR/8 otp", null)
+                .build();
+        assertEquals("[\"one time password\", \"otp\", \"share\", \"[unk]\"]", KeywordGrammar.of(rules));
+    }
+
+    @Test
+    public void entityRulesAddSpokenDigits() {
+        String grammar = KeywordGrammar.of(ScamDetector.rules());
+        assertTrue(grammar.contains("\"seven\""));
+        assertTrue(grammar.contains("\"gift card\""));
+        assertFalse(grammar.contains(EntityScanner.OTP));
+        assertFalse(grammar.contains("NEAR"));
+    }
+}
@@ -0,0 +1,106 @@
+package com.shreyanshi.scamshield.detection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class MatchSessionTest {
+
+    private static final List<String> PATTERNS = Arrays.asList("otp", "bank account", "pin");
+
+    private final MatchSession session = new MatchSession(KeywordAutomaton.build(PATTERNS));
+    private final List<String> hits = new ArrayList<>();
+
+    private int feed(String hypothesis) {
+        return session.update(hypothesis, (id, end) -> hits.add(PATTERNS.get(id)));
+    }
+
+    @Test
+    public void onlyScansAppendedText() {
+        feed("please tell");
+        assertEquals(3, feed("please tell me"));
+        feed("please tell me the otp");
+        feed("please tell me the otp now");
+        assertEquals(Arrays.asList("otp"), hits);
+    }
+
+    @Test
+    public void revisedWordIsRematched() {
+        feed("share your bank");
+        feed("share your bank accord");
+        assertTrue(hits.isEmpty());
+        feed("share your bank account");
+        assertEquals(Arrays.asList("bank account"), hits);
+        // revising an unrelated later word must not report the earlier phrase again
+        feed("share your bank account pen");
+        feed("share your bank account pin");
+        assertEquals(Arrays.asList("bank account", "pin"), hits);
+    }
+
+    @Test
+    public void newUtteranceStartsOver() {
+        feed("what is the otp");
+        feed("ok");
+        feed("ok otp");
+        assertEquals(Arrays.asList("otp", "otp"), hits);
+    }
+
+    @Test
+    public void totalWorkIsLinearInTranscriptLength() {
+        StringBuilder sb = new StringBuilder();
+        long stepped = 0;
+        for (int i = 0; i < 2000; i++) {
+            sb.append(i % 100 == 0 ? "otp " : "word ");
+            stepped += feed(sb.toString());
+        }
+        assertEquals(sb.length(), stepped);
+        assertEquals(20, hits.size());
+    }
+
+    @Test
+    public void phraseSplitAcrossCommitMatches() {
+        feed("please open your bank");
+        session.commit();
+        feed("acc");
+        feed("account now");
+        assertEquals(Arrays.asList("bank account"), hits);
+    }
+
+    @Test
+    public void repeatedWordsAfterCommitCountOnce() {
+        feed("share your otp");
+        session.commit();
+        // an overlapping session hears the end of the last one again
+        feed("your otp");
+        feed("your otp please");
+        feed("Your OTP please and the pin");
+        assertEquals(Arrays.asList("otp", "pin"), hits);
+    }
+
+    @Test
+    public void revisionAfterCommitStaysInUtterance() {
+        feed("the otp");
+        session.commit();
+        feed("my bank accord");
+        feed("my bank account");
+        feed("ok");
+        assertEquals(Arrays.asList("otp", "bank account"), hits);
+    }
+
+    @Test
+    public void committedCallKeepsScanningLinearly() {
+        long stepped = 0;
+        for (int i = 0; i < 2000; i++) {
+            String utterance = i % 100 == 0 ? "read the otp" : "word " + i;
+            stepped += feed(utterance);
+            session.commit();
+        }
+        assertEquals(session.consumed(), stepped + 2000);
+        assertEquals(20, hits.size());
+    }
+}
@@ -0,0 +1,60 @@
+package com.shreyanshi.scamshield.detection;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class NumberNormalizerTest {
+
+    private static String normalize(String text) {
+        return new NumberNormalizer().update(text, 0).toString();
+    }
+
+    @Test
+    public void digitsAndRepeats() {
+        assertEquals("the code is 4 5 2 1 9 8", normalize("the code is four five two one nine eight"));
+        assertEquals("7 7 0 3 3 3", normalize("double seven zero triple three"));
+        assertEquals("double trouble", normalize("double trouble"));
+    }
+
+    @Test
+    public void tensAndTeens() {
+        assertEquals("25 40 13", normalize("twenty five forty thirteen"));
+        assertEquals("it was 20 rupees", normalize("it was twenty rupees"));
+    }
+
+    @Test
+    public void ambiguousWordsNeedANeighbour() {
+        assertEquals("oh okay", normalize("oh okay"));
+        assertEquals("7 0 7", normalize("seven oh seven"));
+        assertEquals("0 7", normalize("oh seven"));
+        assertEquals("what do you want", normalize("what do you want"));
+    }
+
+    @Test
+    public void hindi() {
+        assertEquals("code 1 2 3 4 5", normalize("code ek do teen chaar paanch"));
+        assertEquals("number 2 3 7", normalize("number do teen saat"));
+        assertEquals("do teen baje", normalize("do teen baje"));
+        assertEquals("mera teen bhai", normalize("mera teen bhai"));
+    }
+
+    @Test
+    public void punctuationEndsANumber() {
+        assertEquals("4 5. 6 7", normalize("four five. six seven"));
+    }
+
+    @Test
+    public void growingHypothesisRewritesOnlyTheTail() {
+        NumberNormalizer n = new NumberNormalizer();
+        String before = "my code is four five";
+        assertEquals("my code is 4 5", n.update(before, 0).toString());
+        String after = "my code is four five six oh";
+        assertEquals("my code is 4 5 6 0", n.update(after, before.length()).toString());
+        // rewound to the start of "five", the last word before the change
+        assertEquals("my code is 4".length(), n.changedFrom());
+        // the recognizer revises "oh" into "okay"
+        String revised = "my code is four five six okay";
+        assertEquals("my code is 4 5 6 okay", n.update(revised, revised.indexOf("okay")).toString());
+    }
+}
@@ -0,0 +1,95 @@
+package com.shreyanshi.scamshield.detection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ProximityMatcherTest {
+
+    private final RuleSet rules = new RuleSet.Builder()
+            .addProximity("share NEAR/3 otp", null)
+            .addProximity("remote THEN/2 install THEN/3 app", null)
+            .addProximity("processing fee THEN/4 pay", null)
+            .add("otp", RuleSet.SOURCE_RULE)
+            .build();
+
+    // Proximity rules fired by a growing hypothesis fed through a MatchSession
+    private final class Feed {
+        final MatchSession session = new MatchSession(rules.automaton());
+        final ProximityMatcher proximity = new ProximityMatcher(rules);
+        final List<String> fired = new ArrayList<>();
+
+        List<String> update(String text) {
+            fired.clear();
+            boolean[] stale = {true};
+            session.update(text, (id, end) -> {
+                if (stale[0]) proximity.rewind(session.lastDivergence());
+                stale[0] = false;
+                proximity.onTerm(id, session.tokenIndex(), end, (rule, e) -> fired.add(rules.phrase(rule)));
+            });
+            if (stale[0]) proximity.rewind(session.lastDivergence());
+            return fired;
+        }
+    }
+
+    private List<String> fired(String text) {
+        return new Feed().update(text);
+    }
+
+    @Test
+    public void nearMatchesEitherOrderWithinDistance() {
+        assertEquals(List.of("share near/3 otp"), fired("please share the otp"));
+        assertEquals(List.of("share near/3 otp"), fired("the otp you can share"));
+        assertTrue(fired("share it with me and then read the otp").isEmpty());
+    }
+
+    @Test
+    public void thenNeedsOrderAndEveryGap() {
+        assertEquals(List.of("remote then/2 install then/3 app"), fired("remote so install my app"));
+        assertTrue(fired("install remote app").isEmpty());
+        assertTrue(fired("remote so install this good new app").isEmpty());
+        assertEquals(List.of("processing fee then/4 pay"), fired("a processing fee you must pay"));
+    }
+
+    @Test
+    public void termsWeighNothingUnlessListedElsewhere() {
+        assertEquals(0f, rules.weight(rules.idOf("share")), 0f);
+        assertEquals(RuleSet.DEFAULT_WEIGHT, rules.weight(rules.idOf("otp")), 0f);
+        assertEquals(RuleSet.DEFAULT_WEIGHT, rules.weight(rules.idOf("share near/3 otp")), 0f);
+    }
+
+    @Test
+    public void proximityRulesAreNotMatchedAsText() {
+        List<String> out = new ArrayList<>();
+        rules.automaton().scan("share near/3 otp", (id, end) -> out.add(rules.phrase(id)));
+        assertEquals(List.of("share", "otp"), out);
+    }
+
+    @Test
+    public void revisedWordsAreUndone() {
+        Feed f = new Feed();
+        assertTrue(f.update("please share").isEmpty());
+        // the recognizer revises "share" away, so the otp two words later is on its own
+        assertTrue(f.update("please sure the otp").isEmpty());
+        assertEquals(List.of("share near/3 otp"), f.update("please sure the otp share"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nearCannotBeChained() {
+        ProximityRules.parse("a NEAR/2 b NEAR/2 c");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void distanceMustBeANumber() {
+        ProximityRules.parse("a THEN/x b");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void termsAreRequired() {
+        ProximityRules.parse("THEN/2 b");
+    }
+}
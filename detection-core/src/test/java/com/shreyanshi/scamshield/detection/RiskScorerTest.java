@@ -0,0 +1,75 @@
+package com.shreyanshi.scamshield.detection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class RiskScorerTest {
+
+    private static RuleSet rules() {
+        Map<String, Float> weights = new HashMap<>();
+        weights.put("otp", 1.0f);
+        weights.put("bank", 0.3f);
+        weights.put("account", 0.3f);
+        weights.put("blocked", 0.3f);
+        weights.put("verify", 0.3f);
+        return new RuleSet.Builder()
+                .add("otp", RuleSet.SOURCE_RULE)
+                .add("bank", RuleSet.SOURCE_RULE)
+                .add("account", RuleSet.SOURCE_RULE)
+                .add("blocked", RuleSet.SOURCE_RULE)
+                .add("verify", RuleSet.SOURCE_RULE)
+                .weights(weights)
+                .build();
+    }
+
+    private final RuleSet rules = rules();
+    private final RiskScorer scorer = new RiskScorer(rules, 1.0f, 10_000, 30_000);
+
+    private boolean hit(String phrase, long at) {
+        return scorer.onMatch(rules.idOf(phrase), at);
+    }
+
+    @Test
+    public void singleWeakWordNeverAlerts() {
+        assertFalse(hit("bank", 0));
+        assertFalse(hit("bank", 1_000));
+        assertFalse(hit("bank", 2_000));
+    }
+
+    @Test
+    public void strongPhraseAlertsOnce() {
+        assertTrue(hit("otp", 0));
+        assertFalse(hit("otp", 500));
+        assertFalse(hit("otp", 1_000));
+    }
+
+    @Test
+    public void weakWordsCloseTogetherAlert() {
+        assertFalse(hit("bank", 0));
+        assertFalse(hit("account", 1_000));
+        assertFalse(hit("blocked", 2_000));
+        assertTrue(hit("verify", 3_000));
+    }
+
+    @Test
+    public void weakWordsFarApartDoNot() {
+        assertFalse(hit("bank", 0));
+        assertFalse(hit("account", 20_000));
+        assertFalse(hit("blocked", 40_000));
+        assertFalse(hit("verify", 60_000));
+    }
+
+    @Test
+    public void rearmsAfterScoreDecays() {
+        assertTrue(hit("otp", 0));
+        assertFalse(hit("otp", 5_000));
+        assertTrue(hit("otp", 60_000));
+        assertEquals(1.0f, scorer.lastScore(), 1e-6f);
+    }
+}
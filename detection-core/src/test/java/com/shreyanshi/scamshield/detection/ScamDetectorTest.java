@@ -0,0 +1,38 @@
+package com.shreyanshi.scamshield.detection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ScamDetectorTest {
+
+    @Test
+    public void alertMessageCoversEntityAndProximityHits() {
+        DetectionSession session = ScamDetector.newDetection(ScamDetector.ALERT_THRESHOLD);
+        assertTrue(session.update("please share the code, your otp or one-time password is 4 8 2 9", 0));
+        String message = ScamDetector.buildAlertMessage(session, 0);
+        assertTrue(message, message.contains("A one-time code was read out on the call."));
+        assertTrue(message, message.contains("Caller asked you to share an OTP."));
+        // "otp" and "one-time password" say the same thing once
+        assertTrue(message, message.contains("Caller asked for an OTP"));
+        assertEquals(message.indexOf("Caller asked for an OTP"), message.lastIndexOf("Caller asked for an OTP"));
+    }
+
+    @Test
+    public void alertTextNeverShowsRuleSyntax() {
+        DetectionSession session = ScamDetector.newDetection(ScamDetector.ALERT_THRESHOLD);
+        assertTrue(session.update("you have to share it, the otp", 0));
+        for (String reason : ScamDetector.alertReasons(session, 0)) {
+            assertFalse(reason, reason.contains("near/") || reason.contains(EntityScanner.OTP));
+        }
+        assertFalse(ScamDetector.buildAlertMessage(session, 0).contains("near/"));
+
+        // no rule behind this one has a message; its words are shown instead
+        DetectionSession words = ScamDetector.newDetection(ScamDetector.ALERT_THRESHOLD);
+        assertTrue(words.update("please verify your account", 0));
+        String message = ScamDetector.buildAlertMessage(words, 0);
+        assertTrue(message, message.startsWith("Suspicious words: verify your account, "));
+    }
+}
@@ -0,0 +1,111 @@
+package com.shreyanshi.scamshield.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.List;
+
+public class EventLogTest {
+
+    @Test
+    public void keepsTheLastCapacityEventsInOrder() {
+        EventLog log = EventLog.inMemory(8);
+        for (int i = 0; i < 20; i++) log.log(EventLog.PARTIAL, 0, i);
+        List<EventLog.Record> all = log.tail(100);
+        assertEquals(8, all.size());
+        for (int i = 0; i < 8; i++) {
+            assertEquals(13 + i, all.get(i).seq);
+            assertEquals(12 + i, all.get(i).b);
+        }
+        List<EventLog.Record> last = log.tail(3);
+        assertEquals(3, last.size());
+        assertEquals(19, last.get(2).b);
+    }
+
+    @Test
+    public void reopenedFileContinuesWhereItStopped() throws Exception {
+        File file = File.createTempFile("events", ".bin");
+        try {
+            file.delete();
+            EventLog log = EventLog.open(file, 16);
+            log.log(EventLog.CALL_START);
+            log.log(EventLog.MATCH, 7, 1);
+            log.log(EventLog.CRASH, 0, 42);
+
+            EventLog reopened = EventLog.open(file, 16);
+            reopened.log(EventLog.CALL_START);
+            List<EventLog.Record> records = EventLog.read(ByteBuffer.wrap(Files.readAllBytes(file.toPath())));
+            assertEquals(4, records.size());
+            assertEquals(EventLog.MATCH, records.get(1).event);
+            assertEquals(7, records.get(1).a);
+            assertEquals(EventLog.CRASH, records.get(2).event);
+            assertEquals(42, records.get(2).b);
+            assertEquals(4, records.get(3).seq);
+
+            // another size starts over
+            assertEquals(0, EventLog.open(file, 32).tail(100).size());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void tailWhileLoggingSeesOnlyWholeRecords() throws Exception {
+        EventLog log = EventLog.inMemory(64);
+        int threads = 4;
+        int each = 20_000;
+        Thread[] writers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            writers[t] = new Thread(() -> {
+                for (int i = 1; i <= each; i++) log.log(EventLog.PARTIAL, id * each + i, (id * each + i) * 31L);
+            });
+            writers[t].start();
+        }
+        int reads = 0;
+        do {
+            long previous = 0;
+            for (EventLog.Record r : log.tail(64)) {
+                assertEquals(EventLog.PARTIAL, r.event);
+                assertEquals(r.a * 31L, r.b);
+                assertTrue(r.seq > previous);
+                previous = r.seq;
+            }
+            reads++;
+        } while (writers[threads - 1].isAlive() || reads < 100);
+        for (Thread w : writers) w.join();
+
+        // no slot was left owned: with no reader, a whole ring logs in full
+        long lost = log.lost();
+        for (int i = 0; i < 64; i++) log.log(EventLog.FINAL, i, i * 31L);
+        List<EventLog.Record> last = log.tail(64);
+        assertEquals(64, last.size());
+        assertEquals(threads * each + 64, last.get(63).seq);
+        assertEquals(lost, log.lost());
+    }
+
+    @Test
+    public void skipsARecordLeftHalfWritten() throws Exception {
+        File file = File.createTempFile("events", ".bin");
+        try {
+            file.delete();
+            EventLog log = EventLog.open(file, 4);
+            log.log(EventLog.PARTIAL, 0, 1);
+            log.log(EventLog.PARTIAL, 0, 2);
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            // the process died between invalidating the second record and numbering it again
+            ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putLong(EventLog.HEADER + 2 * EventLog.RECORD, 0);
+            List<EventLog.Record> records = EventLog.read(ByteBuffer.wrap(bytes));
+            assertEquals(1, records.size());
+            assertEquals(1, records.get(0).b);
+        } finally {
+            file.delete();
+        }
+    }
+}
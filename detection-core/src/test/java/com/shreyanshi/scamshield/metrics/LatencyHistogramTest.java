@@ -0,0 +1,57 @@
+package com.shreyanshi.scamshield.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsCoverEveryValueOnce() {
+        assertEquals(0, LatencyHistogram.lowest(0));
+        for (int i = 1; i < LatencyHistogram.BUCKETS; i++) {
+            assertEquals(LatencyHistogram.highest(i - 1) + 1, LatencyHistogram.lowest(i));
+            assertEquals(i, LatencyHistogram.index(LatencyHistogram.lowest(i)));
+            assertEquals(i, LatencyHistogram.index(LatencyHistogram.highest(i)));
+        }
+        assertEquals(LatencyHistogram.MAX_VALUE, LatencyHistogram.highest(LatencyHistogram.BUCKETS - 1));
+    }
+
+    @Test
+    public void percentilesAreWithinABucket() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (int ms = 1; ms <= 1000; ms++) h.record(ms);
+        assertEquals(1000, h.count());
+        assertEquals(500, h.mean());
+        assertEquals(1000, h.max());
+        for (int p : new int[]{50, 90, 99}) {
+            long exact = p * 10L;
+            long got = h.percentile(p);
+            assertTrue(p + ": " + got, got >= exact && got <= exact * 1.125);
+        }
+        h.record(-5);
+        h.record(Long.MAX_VALUE);
+        assertEquals(LatencyHistogram.MAX_VALUE, h.max());
+    }
+
+    @Test
+    public void encodeRoundTrips() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (int ms = 0; ms < 5000; ms += 7) h.record(ms);
+        LatencyHistogram back = LatencyHistogram.decode(h.encode());
+        assertEquals(h.encode(), back.encode());
+        assertEquals(h.percentile(90), back.percentile(90));
+        assertEquals(0, LatencyHistogram.decode("12 oops").count());
+
+        DetectionLatency latency = new DetectionLatency();
+        latency.record(DetectionLatency.CAPTURE, 180);
+        latency.onAlertDispatched(1_000, 1_400, 1_405);
+        latency.onAlertDisplayed(1_405, 1_450);
+        DetectionLatency restored = DetectionLatency.decode(latency.encode());
+        assertEquals(180, restored.stage(DetectionLatency.CAPTURE).max());
+        assertEquals(5, restored.stage(DetectionLatency.DISPATCH).max());
+        assertEquals(45, restored.stage(DetectionLatency.DISPLAY).max());
+        assertEquals(450, restored.stage(DetectionLatency.TOTAL).max());
+    }
+}
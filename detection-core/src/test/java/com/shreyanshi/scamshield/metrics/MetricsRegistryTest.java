@@ -0,0 +1,78 @@
+package com.shreyanshi.scamshield.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class MetricsRegistryTest {
+
+    private final MetricsRegistry registry = new MetricsRegistry();
+
+    @Test
+    public void lookupsReturnTheSameMetric() {
+        MetricsRegistry.Counter alerts = registry.counter("alerts.raised");
+        assertSame(alerts, registry.counter("alerts.raised"));
+        try {
+            registry.gauge("alerts.raised");
+            throw new AssertionError("a counter can't be read as a gauge");
+        } catch (IllegalArgumentException expected) {
+            // the name is taken
+        }
+    }
+
+    @Test
+    public void countersAreExactAcrossThreads() throws InterruptedException {
+        MetricsRegistry.Counter c = registry.counter("partials");
+        MetricsRegistry.Histogram h = registry.histogram("update_us");
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    c.inc();
+                    h.record(i % 1000);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) t.join();
+        assertEquals(400_000, c.get());
+        LatencyHistogram snapshot = h.snapshot();
+        assertEquals(400_000, snapshot.count());
+        assertEquals(999, snapshot.max());
+        assertEquals(499, snapshot.mean());
+    }
+
+    @Test
+    public void meterRateCoversTheLastMinute() {
+        MetricsRegistry.Meter m = new MetricsRegistry.Meter();
+        // 59 complete seconds at 4 a second, then part of the current one
+        for (long ms = 1_000; ms < 60_000; ms += 250) m.mark(ms);
+        m.mark(60_100);
+        assertEquals(4.0, m.rate(60_500), 1e-9);
+        // a minute later the old seconds have aged out
+        assertEquals(1 / 59.0, m.rate(119_500), 1e-9);
+        assertEquals(0.0, m.rate(200_000), 1e-9);
+        assertEquals(237, m.total());
+    }
+
+    @Test
+    public void dumpIsSortedByName() {
+        registry.counter("b.count").add(3);
+        registry.gauge("a.depth", () -> 7);
+        registry.gauge("c.load_ms").set(420);
+        StringBuilder sb = new StringBuilder();
+        registry.dump(sb);
+        assertEquals("a.depth 7\nb.count 3\nc.load_ms 420\n", sb.toString());
+        long[] depth = {7};
+        registry.gauge("a.depth", () -> depth[0]);
+        registry.freeze("a.");
+        depth[0] = 9;
+        registry.histogram("d.latency").record(12);
+        sb.setLength(0);
+        registry.dump(sb);
+        assertTrue(sb.toString(), sb.toString().startsWith("a.depth 7\n"));
+        assertTrue(sb.toString(), sb.toString().endsWith("d.latency n=1 p50=12 p90=12 p99=12 max=12\n"));
+    }
+}